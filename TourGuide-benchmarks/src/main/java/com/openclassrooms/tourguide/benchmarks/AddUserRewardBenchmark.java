@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/** Adding rewards to a user: a reward for every attraction of the catalogue, and a duplicate reward. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AddUserRewardBenchmark {
+
+	private UserReward[] rewards;
+	private User rewardedUser;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Attraction> attractions = Fixtures.instantGpsClient().getAttractions();
+		UUID userId = UUID.randomUUID();
+		rewards = new UserReward[attractions.size()];
+		for (int i = 0; i < rewards.length; i++) {
+			Attraction attraction = attractions.get(i);
+			rewards[i] = new UserReward(new VisitedLocation(userId, attraction, new Date()), attraction, 100);
+		}
+		rewardedUser = newUser();
+		addAll(rewardedUser);
+	}
+
+	@Benchmark
+	public User addEveryAttraction() {
+		User user = newUser();
+		addAll(user);
+		return user;
+	}
+
+	@Benchmark
+	public User addDuplicate() {
+		rewardedUser.addUserReward(rewards[0], 0);
+		return rewardedUser;
+	}
+
+	private void addAll(User user) {
+		for (int i = 0; i < rewards.length; i++) {
+			user.addUserReward(rewards[i], i);
+		}
+	}
+
+	private static User newUser() {
+		return new User(UUID.randomUUID(), "bench", "000", "bench@tourGuide.com");
+	}
+}
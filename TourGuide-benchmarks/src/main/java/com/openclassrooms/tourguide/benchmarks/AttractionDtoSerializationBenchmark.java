@@ -0,0 +1,48 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.tourguide.dto.AttractionDTO;
+
+/** JSON body of {@code /getNearbyAttractions}, written with a mapper configured like Spring Boot's default one. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AttractionDtoSerializationBenchmark {
+
+	private ObjectMapper objectMapper;
+	private List<AttractionDTO> attractions;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		objectMapper = new ObjectMapper().findAndRegisterModules();
+		attractions = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			attractions.add(new AttractionDTO("Attraction " + i, 33.8 + i, -117.9 - i, 40.7, -74.0, 2_400.5 + i, 100 * i));
+		}
+	}
+
+	@Benchmark
+	public byte[] serializeOne() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(attractions.get(0));
+	}
+
+	@Benchmark
+	public byte[] serializeNearbyAttractions() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(attractions);
+	}
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs the benchmarks with the allocation profiler, and saves the results as JSON so that two runs
+ * can be compared, for instance with https://jmh.morethan.io.
+ *
+ * <p>Every JMH command line option is accepted and takes precedence over these defaults, e.g.
+ * {@code java -jar target/benchmarks.jar Distance -rff target/before.json}.</p>
+ */
+public class BenchmarkRunner {
+
+	static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		// NOTE : the options set on the builder would take precedence over its parent, the command line
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getWarmupIterations().hasValue()) {
+			options.warmupIterations(3);
+		}
+		if (!commandLine.getMeasurementIterations().hasValue()) {
+			options.measurementIterations(5);
+		}
+		if (!commandLine.getForkCount().hasValue()) {
+			options.forks(1);
+		}
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		if (commandLine.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+/** Reward calculation of a user whose locations have never been checked, by length of history.
+ *
+ * <p>A calculation consumes the locations it checks, so each iteration is a batch of
+ * {@value #USERS_PER_ITERATION} calculations over as many users built beforehand, each calculated once,
+ * and the score is the time of the batch divided by its size.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(batchSize = CalculateRewardsBenchmark.USERS_PER_ITERATION)
+@Measurement(batchSize = CalculateRewardsBenchmark.USERS_PER_ITERATION)
+@OperationsPerInvocation(CalculateRewardsBenchmark.USERS_PER_ITERATION)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalculateRewardsBenchmark {
+
+	static final int USERS_PER_ITERATION = 2_000;
+
+	@Param({ "1", "10", "100", "1000" })
+	public int historyLength;
+
+	private RewardsService rewardsService;
+	private Random random;
+	private final User[] users = new User[USERS_PER_ITERATION];
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		rewardsService = Fixtures.instantRewardsService(Fixtures.instantGpsClient());
+		random = new Random(42);
+	}
+
+	@Setup(Level.Iteration)
+	public void newUsers() {
+		for (int i = 0; i < users.length; i++) {
+			users[i] = Fixtures.userWithHistory(random, historyLength);
+		}
+		next = 0;
+	}
+
+	@Benchmark
+	public User calculateRewards() {
+		User user = users[next++ % users.length];
+		rewardsService.calculateRewards(user);
+		return user;
+	}
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+/** Distance from a location to one attraction, and to the whole catalogue. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistanceBenchmark {
+
+	private RewardsService rewardsService;
+	private DistanceKernel kernel;
+	private Attraction attraction;
+	private Location location;
+	private double[] distances;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		rewardsService = new RewardsService(Fixtures.instantGpsClient(), Fixtures.instantRewardsClient());
+		kernel = rewardsService.getAttractionIndex().getDistanceKernel();
+		attraction = rewardsService.getAttractionIndex().get(0);
+		location = Fixtures.randomLocation(new Random(42));
+		distances = new double[kernel.size()];
+	}
+
+	@Benchmark
+	public double getDistance() {
+		return rewardsService.getDistance(attraction, location);
+	}
+
+	@Benchmark
+	public double kernelDistance() {
+		return kernel.statuteMiles(0, location.latitude, location.longitude);
+	}
+
+	@Benchmark
+	public double[] kernelDistancesToCatalogue() {
+		kernel.statuteMiles(location.latitude, location.longitude, distances);
+		return distances;
+	}
+
+	@Benchmark
+	public double getDistanceToCatalogue() {
+		double sum = 0;
+		for (Attraction each : rewardsService.getAttractionIndex().getAttractions()) {
+			sum += rewardsService.getDistance(each, location);
+		}
+		return sum;
+	}
+}
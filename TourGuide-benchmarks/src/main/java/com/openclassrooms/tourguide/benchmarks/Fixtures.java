@@ -0,0 +1,73 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.GpsClient;
+import com.openclassrooms.tourguide.client.RewardPointsGateway;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.simulation.LatencyProfile;
+import com.openclassrooms.tourguide.simulation.SimulatedGpsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedRewardsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedTripPricerClient;
+import com.openclassrooms.tourguide.simulation.SimulatedUpstream;
+import com.openclassrooms.tourguide.user.User;
+
+/** Data shared by the benchmarks. The vendored upstream libraries sleep up to a second per call, so the
+ * benchmarks use seeded simulators without latency, to measure TourGuide's own code only. For the same
+ * reason, their rewards service looks reward points up through a gateway dispatching each lookup at once:
+ * the default one holds a lookup for a batching window of a few milliseconds, which the benchmarks would
+ * measure instead of the code.
+ */
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	static final long SEED = 42;
+
+	/** GpsUtil simulator answering at once, with the GpsUtil attraction catalogue. */
+	static SimulatedGpsClient instantGpsClient() {
+		return new SimulatedGpsClient(new SimulatedUpstream("GpsUtil", SEED, LatencyProfile.none(), 0));
+	}
+
+	/** RewardCentral simulator answering at once. */
+	static SimulatedRewardsClient instantRewardsClient() {
+		return new SimulatedRewardsClient(new SimulatedUpstream("RewardCentral", SEED, LatencyProfile.none(), 0));
+	}
+
+	/** Rewards service over the instant RewardCentral simulator, whose gateway sends every lookup from the
+	 * caller as a batch of one, without waiting for a window. */
+	static RewardsService instantRewardsService(GpsClient gpsClient) {
+		ExecutorProperties executors = new ExecutorProperties();
+		RewardPointsGateway gateway = new RewardPointsGateway(instantRewardsClient(),
+				TourGuideExecutors.newPool(TourGuideExecutors.UPSTREAM, executors.getUpstream()), Duration.ZERO, 1);
+		return new RewardsService(gpsClient, gateway,
+				TourGuideExecutors.newPool(TourGuideExecutors.REWARDS, executors.getRewards()),
+				TourGuideExecutors.newPool(TourGuideExecutors.COMMIT, executors.getCommit()));
+	}
+
+	/** TripPricer simulator answering at once. */
+	static SimulatedTripPricerClient instantTripPricerClient() {
+		return new SimulatedTripPricerClient(new SimulatedUpstream("TripPricer", SEED, LatencyProfile.none(), 0));
+	}
+
+	/** Creates a user with random visited locations, none of them checked for rewards yet. */
+	static User userWithHistory(Random random, int locations) {
+		User user = new User(new UUID(random.nextLong(), random.nextLong()), "bench", "000", "bench@tourGuide.com");
+		for (int i = 0; i < locations; i++) {
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), randomLocation(random), new Date()));
+		}
+		return user;
+	}
+
+	static Location randomLocation(Random random) {
+		return new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+	}
+}
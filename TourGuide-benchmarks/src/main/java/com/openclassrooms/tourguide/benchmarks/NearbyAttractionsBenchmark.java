@@ -0,0 +1,64 @@
+package com.openclassrooms.tourguide.benchmarks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.dto.AttractionDTO;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.simulation.SimulatedGpsClient;
+
+/** Nearest attractions of a location, as served by {@code /getNearbyAttractions}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NearbyAttractionsBenchmark {
+
+	@Param({ "5", "26" })
+	public int limit;
+
+	private TourGuideService tourGuideService;
+	private VisitedLocation[] visitedLocations;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		SimulatedGpsClient gpsClient = Fixtures.instantGpsClient();
+		InternalTestHelper.setInternalUserNumber(0);
+		tourGuideService = new TourGuideService(gpsClient, Fixtures.instantTripPricerClient(),
+				Fixtures.instantRewardsService(gpsClient), Runnable::run);
+		tourGuideService.tracker.stopTracking();
+
+		Random random = new Random(42);
+		visitedLocations = new VisitedLocation[1024];
+		for (int i = 0; i < visitedLocations.length; i++) {
+			visitedLocations[i] = new VisitedLocation(UUID.randomUUID(), Fixtures.randomLocation(random), new Date());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		tourGuideService.tracker.stopTracking();
+	}
+
+	@Benchmark
+	public List<AttractionDTO> getNearByAttractions() {
+		VisitedLocation visitedLocation = visitedLocations[next++ & (visitedLocations.length - 1)];
+		return tourGuideService.getNearByAttractions(visitedLocation, limit);
+	}
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.client.RewardsClient;
+
+/** {@link RewardsClient} decorator memoizing the reward points of each (attraction, user) pair.
+ *
+ * <p>{@code RewardCentral} is slow by design and is asked the same question on every qualifying
+ * reward and for every nearby attraction displayed to the user. The answers are kept in an
+ * {@link ExpiringCache}, so concurrent lookups of the same pair share a single upstream call.</p>
+ *
+ * @see com.openclassrooms.tourguide.configuration.TourGuideModule
+ */
+public class CachingRewardsClient implements RewardsClient {
+
+	private final RewardsClient delegate;
+	private final ExpiringCache<RewardPointsKey, Integer> cache;
+
+
+	public CachingRewardsClient(RewardsClient delegate, ExpiringCache<RewardPointsKey, Integer> cache) {
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return cache.get(new RewardPointsKey(attractionId, userId),
+				key -> delegate.getAttractionRewardPoints(key.attractionId(), key.userId()));
+	}
+
+
+	public ExpiringCache<RewardPointsKey, Integer> getCache() {
+		return cache;
+	}
+
+
+	/** Key of a reward points lookup.
+	 *
+	 * @param attractionId the attraction visited
+	 * @param userId the user rewarded
+	 */
+	public record RewardPointsKey(UUID attractionId, UUID userId) {
+	}
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.client.TripPricerClient;
+
+/** {@link TripPricerClient} decorator memoizing the quotes of each pricing tuple.
+ *
+ * <p>A user asking for trip deals again, without new rewards nor new preferences, gets the quote
+ * priced the first time until it expires, instead of a new TripPricer call. The quotes are kept
+ * in an {@link ExpiringCache} bounded in size, as unmodifiable lists, so that no caller can alter
+ * the quote served to the next one.</p>
+ *
+ * @see com.openclassrooms.tourguide.configuration.TourGuideModule
+ */
+public class CachingTripPricerClient implements TripPricerClient {
+
+	private final TripPricerClient delegate;
+	private final ExpiringCache<TripQuoteKey, List<Provider>> cache;
+
+
+	public CachingTripPricerClient(TripPricerClient delegate, ExpiringCache<TripQuoteKey, List<Provider>> cache) {
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+		return cache.get(new TripQuoteKey(apiKey, userId, adults, children, nightsStay, rewardsPoints),
+				key -> List.copyOf(delegate.getPrice(key.apiKey(), key.userId(), key.adults(), key.children(),
+						key.nightsStay(), key.rewardsPoints())));
+	}
+
+
+	public ExpiringCache<TripQuoteKey, List<Provider>> getCache() {
+		return cache;
+	}
+
+
+	/** Key of a quote: every input of the price.
+	 *
+	 * @param apiKey the TripPricer API key
+	 * @param userId the user the trip is for, also the trip identifier of the deals
+	 * @param adults number of adults
+	 * @param children number of children
+	 * @param nightsStay duration of the trip, in nights
+	 * @param rewardsPoints reward points of the user, deducted from the prices
+	 */
+	public record TripQuoteKey(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+	}
+}
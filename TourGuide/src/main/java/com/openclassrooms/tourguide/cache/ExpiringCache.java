@@ -0,0 +1,213 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/** Bounded, time-limited memoizing cache with single-flight loading.
+ *
+ * <p>When several threads miss the same key at the same time, only the first one calls the loader;
+ * the others wait for its result. A value is kept for at most {@code timeToLive} after it was
+ * requested, and when the cache grows beyond {@code maximumSize} the oldest entries are evicted
+ * first (insertion order). A failed load is not cached: the entry it was replacing, if any, is put back
+ * as it was, expired.</p>
+ *
+ * <p>A key joins the insertion order once its first load succeeds, and the keys no longer cached are only
+ * skipped when they reach its head. An entry being reloaded is never evicted, so that the callers missing
+ * it keep sharing its load: its key goes back to the tail instead.</p>
+ *
+ * <p>{@link #peek(Object)} gives the value last loaded for a key, even expired or being reloaded, for
+ * callers which prefer a stale value to none.</p>
+ *
+ * @param <K> type of the keys, which must implement {@code equals} and {@code hashCode}
+ * @param <V> type of the cached values
+ */
+public class ExpiringCache<K, V> {
+
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final long maximumSize;
+	private final long timeToLiveNanos;
+	private final LongSupplier nanoClock;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+
+	public ExpiringCache(long maximumSize, Duration timeToLive) {
+		this(maximumSize, timeToLive, System::nanoTime);
+	}
+
+
+	public ExpiringCache(long maximumSize, Duration timeToLive, LongSupplier nanoClock) {
+		if (maximumSize <= 0 || timeToLive.isNegative() || timeToLive.isZero()) {
+			throw new IllegalArgumentException("The cache needs a positive maximum size and time to live");
+		}
+		this.maximumSize = maximumSize;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.nanoClock = nanoClock;
+	}
+
+
+	/** Returns the value cached for a key, loading it if it is absent or expired.
+	 *
+	 * @param key the key
+	 * @param loader computes the value of a missing key, called by one thread at a time per key
+	 * @return the cached or freshly loaded value
+	 * @throws RuntimeException the exception thrown by the loader, for the loading thread and for
+	 *         every thread that waited on that load
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		long now = nanoClock.getAsLong();
+		Entry<V> existing = entries.get(key);
+		if (existing != null && !existing.isExpired(now, timeToLiveNanos)) {
+			hits.increment();
+			return await(existing);
+		}
+
+		Entry<V> created = new Entry<>(now);
+		Entry<V> current = entries.compute(key, (k, entry) -> {
+			if (entry == null) {
+				return created;
+			}
+			if (entry.isExpired(now, timeToLiveNanos)) {
+				evictions.increment();
+				created.replaced = entry;
+				return created;
+			}
+			return entry;
+		});
+		if (current != created) {
+			hits.increment();
+			return await(current);
+		}
+
+		misses.increment();
+		try {
+			V value = loader.apply(key);
+			created.value.complete(value);
+			if (created.replaced == null) {
+				insertionOrder.add(key);
+			}
+			created.replaced = null;
+			return value;
+		} catch (RuntimeException | Error e) {
+			if (created.replaced != null) {
+				entries.replace(key, created, created.replaced);
+			} else {
+				entries.remove(key, created);
+			}
+			created.value.completeExceptionally(e);
+			throw e;
+		} finally {
+			evictOverflow();
+		}
+	}
+
+
+	/** Returns the value last loaded for a key without loading it, even if it has expired, or if it
+	 * is being loaded again.
+	 *
+	 * @param key the key
+	 * @return the last value loaded, or {@code null} if none was
+	 */
+	public V peek(K key) {
+		Entry<V> entry = entries.get(key);
+		while (entry != null) {
+			if (entry.value.isDone() && !entry.value.isCompletedExceptionally()) {
+				return entry.value.join();
+			}
+			entry = entry.replaced;
+		}
+		return null;
+	}
+
+
+	public void invalidateAll() {
+		entries.clear();
+		insertionOrder.clear();
+	}
+
+
+	public long size() {
+		return entries.size();
+	}
+
+
+	public long hitCount() {
+		return hits.sum();
+	}
+
+
+	public long missCount() {
+		return misses.sum();
+	}
+
+
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+
+	// NOTE : stops once every key left has gone back to the tail, the overflow is evicted by a later load
+	private void evictOverflow() {
+		K firstRequeued = null;
+		while (entries.size() > maximumSize) {
+			K oldest = insertionOrder.poll();
+			if (oldest == null) {
+				return;
+			}
+			Entry<V> entry = entries.get(oldest);
+			if (entry == null) {
+				continue;
+			}
+			if (entry.value.isDone() && entries.remove(oldest, entry)) {
+				evictions.increment();
+				continue;
+			}
+			if (oldest.equals(firstRequeued)) {
+				insertionOrder.add(oldest);
+				return;
+			}
+			if (firstRequeued == null) {
+				firstRequeued = oldest;
+			}
+			insertionOrder.add(oldest);
+		}
+	}
+
+
+	private static <V> V await(Entry<V> entry) {
+		try {
+			return entry.value.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+
+	private static final class Entry<V> {
+		private final CompletableFuture<V> value = new CompletableFuture<>();
+		private final long createdAt;
+		// NOTE : the expired entry this one reloads, put back if the load fails, and dropped once it succeeds
+		private volatile Entry<V> replaced;
+
+		private Entry(long createdAt) {
+			this.createdAt = createdAt;
+		}
+
+		private boolean isExpired(long now, long timeToLiveNanos) {
+			return now - createdAt >= timeToLiveNanos;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+/** Locates users and lists the attraction catalogue.
+ *
+ * @see VendorGpsClient
+ * @see com.openclassrooms.tourguide.simulation.SimulatedGpsClient
+ */
+public interface GpsClient {
+
+	/** Locates a user.
+	 *
+	 * @param userId the user to locate
+	 * @return the user's current location
+	 * @throws UpstreamException if the location service failed
+	 */
+	VisitedLocation getUserLocation(UUID userId);
+
+	/** Lists the attractions.
+	 *
+	 * @return the attraction catalogue
+	 */
+	List<Attraction> getAttractions();
+}
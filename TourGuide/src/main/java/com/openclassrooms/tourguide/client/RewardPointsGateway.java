@@ -0,0 +1,243 @@
+package com.openclassrooms.tourguide.client;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Asynchronous front of a {@link RewardsClient}, coalescing concurrent reward points lookups into batches.
+ *
+ * <p>A lookup joins the current batch and gets a future at once. The batch is dispatched when its
+ * window has elapsed since its first lookup, or as soon as it holds {@code maxBatchSize} lookups:
+ * identical lookups are asked once, and the others are fanned out in parallel on the upstream
+ * executor. The lookups a caller makes one after the other, such as the reward points of the
+ * nearby attractions of a user, therefore cost about one upstream round trip instead of one each.</p>
+ *
+ * <p>The upstream executor must not be one whose tasks wait for these futures, or they could hold
+ * every thread the lookups need. A batch full before its window is fanned out from the caller, which runs
+ * the lookups itself when a {@code CALLER_RUNS} executor is saturated; a batch dispatched by the timer
+ * never runs on the timer thread: a lookup the saturated executor hands back to it is offered again
+ * after a window, so that the timer keeps dispatching the other batches.</p>
+ *
+ * @see com.openclassrooms.tourguide.executor.TourGuideExecutors#upstream()
+ */
+public class RewardPointsGateway implements AutoCloseable {
+
+	public static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+	public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+	private final RewardsClient rewardsClient;
+	private final Executor upstreamExecutor;
+	private final long windowNanos;
+	private final long retryNanos;
+	private final int maxBatchSize;
+	private final ScheduledThreadPoolExecutor timer;
+	private final Lock lock = new ReentrantLock();
+	private Map<RewardPointsLookup, CompletableFuture<Integer>> batch = new HashMap<>();
+
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder upstreamCalls = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+
+
+	public RewardPointsGateway(RewardsClient rewardsClient, Executor upstreamExecutor) {
+		this(rewardsClient, upstreamExecutor, DEFAULT_WINDOW, DEFAULT_MAX_BATCH_SIZE);
+	}
+
+
+	/** Creates a gateway.
+	 *
+	 * @param rewardsClient the client asked for each distinct lookup of a batch
+	 * @param upstreamExecutor runs the upstream calls of the batches
+	 * @param window how long a batch collects lookups after its first one
+	 * @param maxBatchSize number of lookups dispatching a batch before its window has elapsed
+	 */
+	public RewardPointsGateway(RewardsClient rewardsClient, Executor upstreamExecutor, Duration window, int maxBatchSize) {
+		if (window.isNegative() || maxBatchSize < 1) {
+			throw new IllegalArgumentException("The gateway needs a window of at least 0 and batches of at least 1 lookup");
+		}
+		this.rewardsClient = rewardsClient;
+		this.upstreamExecutor = upstreamExecutor;
+		this.windowNanos = window.toNanos();
+		this.retryNanos = Math.max(windowNanos, TimeUnit.MILLISECONDS.toNanos(1));
+		this.maxBatchSize = maxBatchSize;
+		this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "tourguide-reward-points-batcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.timer.setKeepAliveTime(1, TimeUnit.SECONDS);
+		this.timer.allowCoreThreadTimeOut(true);
+	}
+
+
+	/** Looks the reward points of an attraction up for a user.
+	 *
+	 * @param attractionId the attraction visited
+	 * @param userId the user rewarded
+	 * @return a future completed with the reward points once the batch has been answered, or
+	 *         exceptionally with the exception of the upstream call
+	 */
+	public CompletableFuture<Integer> getRewardPoints(UUID attractionId, UUID userId) {
+		lookups.increment();
+		RewardPointsLookup lookup = new RewardPointsLookup(attractionId, userId);
+		Map<RewardPointsLookup, CompletableFuture<Integer>> ready = null;
+		CompletableFuture<Integer> points;
+		lock.lock();
+		try {
+			points = batch.get(lookup);
+			if (points == null) {
+				points = new CompletableFuture<>();
+				batch.put(lookup, points);
+				if (batch.size() >= maxBatchSize || (batch.size() == 1 && !scheduleDispatch(batch))) {
+					ready = batch;
+					batch = new HashMap<>();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (ready != null) {
+			batches.increment();
+			ready.forEach(this::execute);
+		}
+		return points;
+	}
+
+
+	/** Waits for a lookup, rethrowing the exception of the upstream call as is.
+	 *
+	 * @param points a future returned by {@link #getRewardPoints(UUID, UUID)}
+	 * @return the reward points
+	 */
+	public static int await(CompletableFuture<Integer> points) {
+		try {
+			return points.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+
+	public long getLookupCount() {
+		return lookups.sum();
+	}
+
+
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+
+	/** Returns the number of upstream calls made, lower than the lookups when identical ones were coalesced. */
+	public long getUpstreamCallCount() {
+		return upstreamCalls.sum();
+	}
+
+
+	/** Returns the number of times a lookup dispatched by the timer was handed back by the saturated
+	 * upstream executor, and offered again after a window.
+	 */
+	public long getRetryCount() {
+		return retries.sum();
+	}
+
+
+	/** Stops the batch timer. The batches already open are still dispatched when their window
+	 * elapses, and the lookups made afterwards are dispatched at once.
+	 */
+	@Override
+	public void close() {
+		timer.shutdown();
+	}
+
+
+	// NOTE : called under the lock; the timer only dispatches the batch it was scheduled for, if it is still open
+	private boolean scheduleDispatch(Map<RewardPointsLookup, CompletableFuture<Integer>> opened) {
+		try {
+			timer.schedule(() -> dispatchIfOpen(opened), windowNanos, TimeUnit.NANOSECONDS);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+
+	private void dispatchIfOpen(Map<RewardPointsLookup, CompletableFuture<Integer>> opened) {
+		lock.lock();
+		try {
+			if (batch != opened) {
+				return;
+			}
+			batch = new HashMap<>();
+		} finally {
+			lock.unlock();
+		}
+		batches.increment();
+		opened.forEach(this::handOver);
+	}
+
+
+	// NOTE : runs on the calling thread, which runs the lookup itself when a CALLER_RUNS executor is saturated
+	private void execute(RewardPointsLookup lookup, CompletableFuture<Integer> points) {
+		try {
+			upstreamExecutor.execute(() -> call(lookup, points));
+		} catch (RejectedExecutionException e) {
+			points.completeExceptionally(e);
+		}
+	}
+
+
+	// NOTE : runs on the timer thread; a lookup the executor runs on the timer itself is only rescheduled
+	private void handOver(RewardPointsLookup lookup, CompletableFuture<Integer> points) {
+		Thread timerThread = Thread.currentThread();
+		try {
+			upstreamExecutor.execute(() -> {
+				if (Thread.currentThread() == timerThread) {
+					retryLater(lookup, points);
+				} else {
+					call(lookup, points);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			points.completeExceptionally(e);
+		}
+	}
+
+
+	private void retryLater(RewardPointsLookup lookup, CompletableFuture<Integer> points) {
+		retries.increment();
+		try {
+			timer.schedule(() -> handOver(lookup, points), retryNanos, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			points.completeExceptionally(e);
+		}
+	}
+
+
+	private void call(RewardPointsLookup lookup, CompletableFuture<Integer> points) {
+		upstreamCalls.increment();
+		try {
+			points.complete(rewardsClient.getAttractionRewardPoints(lookup.attractionId(), lookup.userId()));
+		} catch (RuntimeException | Error e) {
+			points.completeExceptionally(e);
+		}
+	}
+
+
+	private record RewardPointsLookup(UUID attractionId, UUID userId) {
+	}
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.tourguide.client;
+
+import java.util.UUID;
+
+/** Tells how many reward points a user earns by visiting an attraction.
+ *
+ * @see VendorRewardsClient
+ * @see com.openclassrooms.tourguide.simulation.SimulatedRewardsClient
+ */
+@FunctionalInterface
+public interface RewardsClient {
+
+	/** Returns the reward points of an attraction for a user.
+	 *
+	 * @param attractionId the attraction visited
+	 * @param userId the user rewarded
+	 * @return the reward points
+	 * @throws UpstreamException if the rewards service failed
+	 */
+	int getAttractionRewardPoints(UUID attractionId, UUID userId);
+}
@@ -0,0 +1,28 @@
+package com.openclassrooms.tourguide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+
+/** Prices trips with the partner providers.
+ *
+ * @see VendorTripPricerClient
+ * @see com.openclassrooms.tourguide.simulation.SimulatedTripPricerClient
+ */
+@FunctionalInterface
+public interface TripPricerClient {
+
+	/** Asks the providers for trip deals.
+	 *
+	 * @param apiKey the TripPricer API key
+	 * @param userId the user the trip is for
+	 * @param adults number of adults
+	 * @param children number of children
+	 * @param nightsStay duration of the trip, in nights
+	 * @param rewardsPoints reward points of the user, deducted from the prices
+	 * @return one deal per provider
+	 * @throws UpstreamException if the pricing service failed
+	 */
+	List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints);
+}
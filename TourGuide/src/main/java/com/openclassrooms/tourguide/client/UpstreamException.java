@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.client;
+
+/** Thrown when GpsUtil, RewardCentral or TripPricer fails to answer. */
+public class UpstreamException extends RuntimeException {
+
+	public UpstreamException(String message) {
+		super(message);
+	}
+
+	public UpstreamException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
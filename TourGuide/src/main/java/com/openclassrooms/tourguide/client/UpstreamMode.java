@@ -0,0 +1,11 @@
+package com.openclassrooms.tourguide.client;
+
+/** Which implementation of the upstream clients the application uses. */
+public enum UpstreamMode {
+
+	/** The vendored GpsUtil, RewardCentral and TripPricer libraries. */
+	VENDOR,
+
+	/** Seeded simulators, with the latencies and error rates of {@code tourguide.upstream.simulation.*}. */
+	SIMULATED
+}
@@ -0,0 +1,184 @@
+package com.openclassrooms.tourguide.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.openclassrooms.tourguide.simulation.LatencyDistribution;
+import com.openclassrooms.tourguide.simulation.LatencyProfile;
+
+/** Choice of the upstream clients and settings of their simulators, bound from the
+ * {@code tourguide.upstream.*} properties.
+ *
+ * <p>The default simulation profiles reproduce the latencies of the vendored libraries, without
+ * failures.</p>
+ *
+ * @see com.openclassrooms.tourguide.configuration.TourGuideModule
+ */
+@ConfigurationProperties(prefix = "tourguide.upstream")
+public class UpstreamProperties {
+
+	private UpstreamMode mode = UpstreamMode.VENDOR;
+
+	private Simulation simulation = new Simulation();
+
+	public UpstreamMode getMode() {
+		return mode;
+	}
+
+	public void setMode(UpstreamMode mode) {
+		this.mode = mode;
+	}
+
+	public Simulation getSimulation() {
+		return simulation;
+	}
+
+	public void setSimulation(Simulation simulation) {
+		this.simulation = simulation;
+	}
+
+
+	public static class Simulation {
+
+		/** Seed of every simulator: two runs with the same seed make the same draws. */
+		private long seed = 42;
+
+		private Profile gps = new Profile(LatencyDistribution.UNIFORM, Duration.ofMillis(30), Duration.ofMillis(100));
+
+		private Profile rewards = new Profile(LatencyDistribution.UNIFORM, Duration.ofMillis(1), Duration.ofMillis(1_000));
+
+		private Profile tripPricer = new Profile(LatencyDistribution.UNIFORM, Duration.ofMillis(1), Duration.ofMillis(50));
+
+		public long getSeed() {
+			return seed;
+		}
+
+		public void setSeed(long seed) {
+			this.seed = seed;
+		}
+
+		public Profile getGps() {
+			return gps;
+		}
+
+		public void setGps(Profile gps) {
+			this.gps = gps;
+		}
+
+		public Profile getRewards() {
+			return rewards;
+		}
+
+		public void setRewards(Profile rewards) {
+			this.rewards = rewards;
+		}
+
+		public Profile getTripPricer() {
+			return tripPricer;
+		}
+
+		public void setTripPricer(Profile tripPricer) {
+			this.tripPricer = tripPricer;
+		}
+	}
+
+
+	public static class Profile {
+
+		private LatencyDistribution distribution = LatencyDistribution.NONE;
+
+		/** Fixed latency, shortest uniform latency, or median log-normal latency. */
+		private Duration latency = Duration.ZERO;
+
+		/** Longest uniform latency. */
+		private Duration maxLatency = Duration.ZERO;
+
+		/** Spread of the log-normal latency. */
+		private double sigma = 0.5;
+
+		/** Probability that a call gets a latency spike on top of its latency. */
+		private double spikeProbability;
+
+		private Duration spikeLatency = Duration.ofSeconds(1);
+
+		/** Probability that a call fails. */
+		private double errorRate;
+
+		public Profile() {
+		}
+
+		public Profile(LatencyDistribution distribution, Duration latency, Duration maxLatency) {
+			this.distribution = distribution;
+			this.latency = latency;
+			this.maxLatency = maxLatency;
+		}
+
+		/** Builds the latency profile these settings describe. */
+		public LatencyProfile toLatencyProfile() {
+			LatencyProfile profile = switch (distribution) {
+				case NONE -> LatencyProfile.none();
+				case FIXED -> LatencyProfile.fixed(latency);
+				case UNIFORM -> LatencyProfile.uniform(latency, maxLatency);
+				case LOG_NORMAL -> LatencyProfile.logNormal(latency, sigma);
+			};
+			return spikeProbability > 0 ? profile.withTailSpikes(spikeProbability, spikeLatency) : profile;
+		}
+
+		public LatencyDistribution getDistribution() {
+			return distribution;
+		}
+
+		public void setDistribution(LatencyDistribution distribution) {
+			this.distribution = distribution;
+		}
+
+		public Duration getLatency() {
+			return latency;
+		}
+
+		public void setLatency(Duration latency) {
+			this.latency = latency;
+		}
+
+		public Duration getMaxLatency() {
+			return maxLatency;
+		}
+
+		public void setMaxLatency(Duration maxLatency) {
+			this.maxLatency = maxLatency;
+		}
+
+		public double getSigma() {
+			return sigma;
+		}
+
+		public void setSigma(double sigma) {
+			this.sigma = sigma;
+		}
+
+		public double getSpikeProbability() {
+			return spikeProbability;
+		}
+
+		public void setSpikeProbability(double spikeProbability) {
+			this.spikeProbability = spikeProbability;
+		}
+
+		public Duration getSpikeLatency() {
+			return spikeLatency;
+		}
+
+		public void setSpikeLatency(Duration spikeLatency) {
+			this.spikeLatency = spikeLatency;
+		}
+
+		public double getErrorRate() {
+			return errorRate;
+		}
+
+		public void setErrorRate(double errorRate) {
+			this.errorRate = errorRate;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.tourguide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+/** {@link GpsClient} calling the vendored {@link GpsUtil} library. */
+public class VendorGpsClient implements GpsClient {
+
+	private final GpsUtil gpsUtil;
+
+
+	public VendorGpsClient(GpsUtil gpsUtil) {
+		this.gpsUtil = gpsUtil;
+	}
+
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return gpsUtil.getUserLocation(userId);
+	}
+
+
+	/** {@inheritDoc}
+	 * <p>GpsUtil gives the attractions new identifiers on every call.</p>
+	 */
+	@Override
+	public List<Attraction> getAttractions() {
+		return gpsUtil.getAttractions();
+	}
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.tourguide.client;
+
+import java.util.UUID;
+
+import rewardCentral.RewardCentral;
+
+/** {@link RewardsClient} calling the vendored {@link RewardCentral} library. */
+public class VendorRewardsClient implements RewardsClient {
+
+	private final RewardCentral rewardCentral;
+
+
+	public VendorRewardsClient(RewardCentral rewardCentral) {
+		this.rewardCentral = rewardCentral;
+	}
+
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return rewardCentral.getAttractionRewardPoints(attractionId, userId);
+	}
+}
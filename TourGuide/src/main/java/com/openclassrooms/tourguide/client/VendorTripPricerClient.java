@@ -0,0 +1,24 @@
+package com.openclassrooms.tourguide.client;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/** {@link TripPricerClient} calling the vendored {@link TripPricer} library. */
+public class VendorTripPricerClient implements TripPricerClient {
+
+	private final TripPricer tripPricer;
+
+
+	public VendorTripPricerClient(TripPricer tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+		return tripPricer.getPrice(apiKey, userId, adults, children, nightsStay, rewardsPoints);
+	}
+}
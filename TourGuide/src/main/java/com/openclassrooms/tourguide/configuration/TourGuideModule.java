@@ -1,28 +1,294 @@
 package com.openclassrooms.tourguide.configuration;
 
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import gpsUtil.GpsUtil;
 import rewardCentral.RewardCentral;
+import tripPricer.TripPricer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import com.openclassrooms.tourguide.cache.CachingRewardsClient;
+import com.openclassrooms.tourguide.cache.CachingTripPricerClient;
+import com.openclassrooms.tourguide.cache.ExpiringCache;
+import com.openclassrooms.tourguide.client.GpsClient;
+import com.openclassrooms.tourguide.client.RewardPointsGateway;
+import com.openclassrooms.tourguide.client.RewardsClient;
+import com.openclassrooms.tourguide.client.TripPricerClient;
+import com.openclassrooms.tourguide.client.UpstreamMode;
+import com.openclassrooms.tourguide.client.UpstreamProperties;
+import com.openclassrooms.tourguide.client.VendorGpsClient;
+import com.openclassrooms.tourguide.client.VendorRewardsClient;
+import com.openclassrooms.tourguide.client.VendorTripPricerClient;
+import com.openclassrooms.tourguide.deals.TripDealsPrecomputer;
+import com.openclassrooms.tourguide.deals.TripDealsProperties;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+import com.openclassrooms.tourguide.geo.AttractionCatalog;
+import com.openclassrooms.tourguide.job.BatchJobProperties;
+import com.openclassrooms.tourguide.job.BatchJobService;
+import com.openclassrooms.tourguide.job.BatchJobsEndpoint;
+import com.openclassrooms.tourguide.metrics.MeteredGpsClient;
+import com.openclassrooms.tourguide.metrics.MeteredRewardsClient;
+import com.openclassrooms.tourguide.metrics.MeteredTripPricerClient;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.resilience.ResilienceProperties;
+import com.openclassrooms.tourguide.resilience.ResilientGpsClient;
+import com.openclassrooms.tourguide.resilience.ResilientRewardsClient;
+import com.openclassrooms.tourguide.resilience.ResilientTripPricerClient;
+import com.openclassrooms.tourguide.resilience.UpstreamGuards;
+import com.openclassrooms.tourguide.retention.LocationRetention;
+import com.openclassrooms.tourguide.retention.RetentionProperties;
 import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.simulation.SimulatedGpsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedRewardsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedTripPricerClient;
+import com.openclassrooms.tourguide.simulation.SimulatedUpstream;
+import com.openclassrooms.tourguide.tracker.TrackerProperties;
 
 @Configuration
+@EnableConfigurationProperties({ ExecutorProperties.class, TrackerProperties.class, RetentionProperties.class,
+		UpstreamProperties.class, TripDealsProperties.class, BatchJobProperties.class, ResilienceProperties.class })
 public class TourGuideModule {
+
+	private final ExecutorProperties executorProperties;
+
+	private final RetentionProperties retentionProperties;
+
+	private final UpstreamProperties upstreamProperties;
+
+	private final TripDealsProperties tripDealsProperties;
+
+	private final BatchJobProperties batchJobProperties;
+
+	private final ResilienceProperties resilienceProperties;
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	@Value("${tourguide.rewards.cache.enabled:true}")
+	private boolean rewardPointsCacheEnabled;
+
+	@Value("${tourguide.rewards.cache.maximum-size:100000}")
+	private long rewardPointsCacheMaximumSize;
+
+	@Value("${tourguide.rewards.cache.time-to-live:24h}")
+	private Duration rewardPointsCacheTimeToLive;
+
+	@Value("${tourguide.trip-deals.cache.enabled:true}")
+	private boolean tripQuoteCacheEnabled;
+
+	@Value("${tourguide.trip-deals.cache.maximum-size:100000}")
+	private long tripQuoteCacheMaximumSize;
+
+	@Value("${tourguide.trip-deals.cache.time-to-live:10m}")
+	private Duration tripQuoteCacheTimeToLive;
+
+	@Value("${tourguide.attractions.refresh-interval:1h}")
+	private Duration attractionCatalogRefreshInterval;
+
+	@Value("${tourguide.rewards.batch.window:2ms}")
+	private Duration rewardPointsBatchWindow;
+
+	@Value("${tourguide.rewards.batch.max-size:100}")
+	private int rewardPointsBatchMaxSize;
+
+	public TourGuideModule(ExecutorProperties executorProperties, RetentionProperties retentionProperties,
+			UpstreamProperties upstreamProperties, TripDealsProperties tripDealsProperties,
+			BatchJobProperties batchJobProperties, ResilienceProperties resilienceProperties,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.executorProperties = executorProperties;
+		this.retentionProperties = retentionProperties;
+		this.upstreamProperties = upstreamProperties;
+		this.tripDealsProperties = tripDealsProperties;
+		this.batchJobProperties = batchJobProperties;
+		this.resilienceProperties = resilienceProperties;
+		this.meterRegistry = meterRegistry;
+	}
 	
+	/** Meters of the tracking and reward hot paths, exposed on {@code /actuator/metrics} and
+	 * {@code /actuator/prometheus}.
+	 *
+	 * @return the metrics recorded in the application meter registry, or nowhere without one
+	 */
 	@Bean
-	public GpsUtil getGpsUtil() {
-		return new GpsUtil();
+	public TourGuideMetrics getTourGuideMetrics() {
+		return new TourGuideMetrics(meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+	}
+	
+	/** Bulkheads, timeouts and circuit breakers of the upstream services, whose threads stop when the
+	 * application context closes.
+	 *
+	 * @return the guards configured by the {@code tourguide.resilience.*} properties
+	 */
+	@Bean(destroyMethod = "close")
+	public UpstreamGuards getUpstreamGuards() {
+		return new UpstreamGuards(resilienceProperties);
 	}
 	
+	/** GpsUtil client, or its simulator when {@code tourguide.upstream.mode} is SIMULATED, behind its
+	 * guard unless {@code tourguide.resilience.enabled} is false.
+	 *
+	 * @return the {@link GpsClient} used by the services
+	 *
+	 * @see ResilientGpsClient
+	 */
+	@Bean
+	public GpsClient getGpsClient() {
+		GpsClient gpsClient = upstreamProperties.getMode() == UpstreamMode.SIMULATED
+				? new SimulatedGpsClient(simulatedUpstream("GpsUtil", upstreamProperties.getSimulation().getGps()))
+				: new VendorGpsClient(new GpsUtil());
+		gpsClient = new MeteredGpsClient(gpsClient, getTourGuideMetrics());
+		if (!resilienceProperties.isEnabled()) {
+			return gpsClient;
+		}
+		return new ResilientGpsClient(gpsClient, getUpstreamGuards().gps());
+	}
+	
+	/** Rewards calculation, whose blocking batches wait {@code tourguide.jobs.batch-timeout} for their users.
+	 *
+	 * @return the service matching on the rewards pool and committing on the commit pool
+	 */
 	@Bean
 	public RewardsService getRewardsService() {
-		return new RewardsService(getGpsUtil(), getRewardCentral());
+		RewardsService rewardsService = new RewardsService(getAttractionCatalog(), getRewardPointsGateway(),
+				getTourGuideExecutors());
+		rewardsService.setBatchTimeout(batchJobProperties.getBatchTimeout());
+		return rewardsService;
+	}
+
+	/** Attraction catalogue, loaded once and refreshed in the background.
+	 *
+	 * @return the catalogue refreshed every {@code tourguide.attractions.refresh-interval}, never if it is 0
+	 */
+	@Bean(destroyMethod = "close")
+	public AttractionCatalog getAttractionCatalog() {
+		AttractionCatalog attractionCatalog = new AttractionCatalog(getGpsClient());
+		attractionCatalog.start(attractionCatalogRefreshInterval);
+		return attractionCatalog;
+	}
+
+	/** Reward points lookups, coalesced into batches fanned out on the upstream pool.
+	 *
+	 * @return the gateway configured by the {@code tourguide.rewards.batch.*} properties
+	 */
+	@Bean(destroyMethod = "close")
+	public RewardPointsGateway getRewardPointsGateway() {
+		return new RewardPointsGateway(getRewardsClient(), getTourGuideExecutors().upstream(),
+				rewardPointsBatchWindow, rewardPointsBatchMaxSize);
+	}
+
+	/** Thread pools of the services, shut down gracefully when the application context closes.
+	 *
+	 * @return the named, bounded pools sized by the {@code tourguide.executor.*} properties
+	 */
+	@Bean(destroyMethod = "close")
+	public TourGuideExecutors getTourGuideExecutors() {
+		return new TourGuideExecutors(executorProperties);
+	}
+	
+	/** Retention of the visited locations, applied after each tracked location.
+	 *
+	 * @return the engine configured by the {@code tourguide.location-retention.*} properties
+	 */
+	@Bean
+	public LocationRetention getLocationRetention() {
+		return new LocationRetention(retentionProperties);
+	}
+	
+	/** RewardCentral client, or its simulator, behind its guard unless {@code tourguide.resilience.enabled}
+	 * is false, then behind a memoizing cache unless {@code tourguide.rewards.cache.enabled} is false.
+	 * The guard falls back on the points of the cache, expired ones included.
+	 *
+	 * @return the {@link RewardsClient} used by the services
+	 *
+	 * @see CachingRewardsClient
+	 * @see ResilientRewardsClient
+	 */
+	@Bean
+	public RewardsClient getRewardsClient() {
+		RewardsClient rewardsClient = upstreamProperties.getMode() == UpstreamMode.SIMULATED
+				? new SimulatedRewardsClient(simulatedUpstream("RewardCentral", upstreamProperties.getSimulation().getRewards()))
+				: new VendorRewardsClient(new RewardCentral());
+		rewardsClient = new MeteredRewardsClient(rewardsClient, getTourGuideMetrics());
+		ExpiringCache<CachingRewardsClient.RewardPointsKey, Integer> cache = rewardPointsCacheEnabled
+				? new ExpiringCache<>(rewardPointsCacheMaximumSize, rewardPointsCacheTimeToLive) : null;
+		if (resilienceProperties.isEnabled()) {
+			rewardsClient = new ResilientRewardsClient(rewardsClient, getUpstreamGuards().rewards(),
+					(attractionId, userId) -> cache == null ? null
+							: cache.peek(new CachingRewardsClient.RewardPointsKey(attractionId, userId)));
+		}
+		return cache == null ? rewardsClient : new CachingRewardsClient(rewardsClient, cache);
 	}
 	
+	/** TripPricer client, or its simulator, behind its guard unless {@code tourguide.resilience.enabled}
+	 * is false, then behind a quote cache unless {@code tourguide.trip-deals.cache.enabled} is false.
+	 *
+	 * @return the {@link TripPricerClient} used by the services
+	 *
+	 * @see CachingTripPricerClient
+	 */
 	@Bean
-	public RewardCentral getRewardCentral() {
-		return new RewardCentral();
+	public TripPricerClient getTripPricerClient() {
+		TripPricerClient tripPricerClient = upstreamProperties.getMode() == UpstreamMode.SIMULATED
+				? new SimulatedTripPricerClient(simulatedUpstream("TripPricer", upstreamProperties.getSimulation().getTripPricer()))
+				: new VendorTripPricerClient(new TripPricer());
+		tripPricerClient = new MeteredTripPricerClient(tripPricerClient, getTourGuideMetrics());
+		if (resilienceProperties.isEnabled()) {
+			tripPricerClient = new ResilientTripPricerClient(tripPricerClient, getUpstreamGuards().tripPricer());
+		}
+		if (!tripQuoteCacheEnabled) {
+			return tripPricerClient;
+		}
+		return new CachingTripPricerClient(tripPricerClient,
+				new ExpiringCache<>(tripQuoteCacheMaximumSize, tripQuoteCacheTimeToLive));
+	}
+	
+	/** Off-peak precomputation of the trip deals, started unless {@code tourguide.trip-deals.precompute.enabled}
+	 * is false.
+	 *
+	 * @param tourGuideService the service pricing and serving the deals
+	 * @return the job configured by the {@code tourguide.trip-deals.precompute.*} properties
+	 */
+	@Bean(destroyMethod = "close")
+	public TripDealsPrecomputer getTripDealsPrecomputer(TourGuideService tourGuideService) {
+		TripDealsPrecomputer precomputer = new TripDealsPrecomputer(tourGuideService, tripDealsProperties,
+				getTourGuideExecutors().upstream(), Clock.systemUTC());
+		if (tripDealsProperties.isEnabled()) {
+			precomputer.start();
+		}
+		return precomputer;
+	}
+	
+	/** Background tracking and rewards batches, cancelled when the application context closes.
+	 *
+	 * @param tourGuideService the service tracking the users
+	 * @return the jobs configured by the {@code tourguide.jobs.*} properties
+	 */
+	@Bean(destroyMethod = "close")
+	public BatchJobService getBatchJobService(TourGuideService tourGuideService) {
+		return new BatchJobService(tourGuideService, getRewardsService(), batchJobProperties, Clock.systemUTC());
+	}
+	
+	/** Progress and cancellation of the batch jobs on {@code /actuator/batchjobs}.
+	 *
+	 * @param batchJobService the jobs
+	 * @return the Actuator endpoint, exposed by {@code management.endpoints.web.exposure.include}
+	 */
+	@Bean
+	public BatchJobsEndpoint getBatchJobsEndpoint(BatchJobService batchJobService) {
+		return new BatchJobsEndpoint(batchJobService);
+	}
+	
+	private SimulatedUpstream simulatedUpstream(String name, UpstreamProperties.Profile profile) {
+		return new SimulatedUpstream(name, upstreamProperties.getSimulation().getSeed(), profile.toLatencyProfile(),
+				profile.getErrorRate());
 	}
 	
 }
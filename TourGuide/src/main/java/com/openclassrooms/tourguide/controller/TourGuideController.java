@@ -1,6 +1,8 @@
 package com.openclassrooms.tourguide.controller;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.openclassrooms.tourguide.dto.AttractionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,16 +47,30 @@ public class TourGuideController {
     }
 
 
-    /** GET request that return the closest five tourist attractions to the user - no matter how far away they are.
+    /** GET request that return the closest tourist attractions to the user - no matter how far away they are.
      *
      * @param userName the username for which to find nearby attractions
-     * @return a list of {@link AttractionDTO} objects representing nearby attractions
+     * @param limit the number of attractions to return, five by default
+     * @return a list of {@link AttractionDTO} objects representing nearby attractions, nearest first
      *
      */
     @RequestMapping("/getNearbyAttractions")
-    public List<AttractionDTO> getNearbyAttractions(@RequestParam String userName) {
+    public List<AttractionDTO> getNearbyAttractions(@RequestParam String userName,
+            @RequestParam(defaultValue = "" + TourGuideService.DEFAULT_NEARBY_ATTRACTIONS_LIMIT) int limit) {
         VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-        return tourGuideService.getNearByAttractions(visitedLocation);
+        return tourGuideService.getNearByAttractions(visitedLocation, limit);
+    }
+
+
+    /** GET request that returns how long ago the location of a userName was last refreshed
+     *
+     * @param userName string of the userName
+     * @return the refresh lag in milliseconds, or null if the user was never located
+     */
+    @RequestMapping("/getLocationRefreshLag")
+    public Long getLocationRefreshLag(@RequestParam String userName) {
+        Duration lag = tourGuideService.getLocationRefreshLag(getUser(userName));
+        return lag == null ? null : lag.toMillis();
     }
 
 
@@ -80,6 +96,57 @@ public class TourGuideController {
     }
 
 
+    /** Asynchronous variant of {@link #getLocation(String)}: the request thread is released while
+     * GpsUtil is called. The request times out after {@code spring.mvc.async.request-timeout}.
+     *
+     * @param userName string of the userName
+     * @return a future of the {@link VisitedLocation} of the userName requested
+     */
+    @RequestMapping("/async/getLocation")
+    public CompletableFuture<VisitedLocation> getLocationAsync(@RequestParam String userName) {
+        return tourGuideService.getUserLocationAsync(getUser(userName));
+    }
+
+
+    /** Asynchronous variant of {@link #getNearbyAttractions(String, int)}: the request thread is released
+     * while GpsUtil and RewardCentral are called. The request times out after {@code spring.mvc.async.request-timeout}.
+     *
+     * @param userName the username for which to find nearby attractions
+     * @param limit the number of attractions to return, five by default
+     * @return a future of the {@link AttractionDTO} objects representing nearby attractions, nearest first
+     */
+    @RequestMapping("/async/getNearbyAttractions")
+    public CompletableFuture<List<AttractionDTO>> getNearbyAttractionsAsync(@RequestParam String userName,
+            @RequestParam(defaultValue = "" + TourGuideService.DEFAULT_NEARBY_ATTRACTIONS_LIMIT) int limit) {
+        return tourGuideService.getUserLocationAsync(getUser(userName))
+                .thenCompose(visitedLocation -> tourGuideService.getNearByAttractionsAsync(visitedLocation, limit));
+    }
+
+
+    /** Asynchronous variant of {@link #getRewards(String)}, answered once the rewards calculations
+     * already started for the user are committed. The request times out after {@code spring.mvc.async.request-timeout}.
+     *
+     * @param userName string of the userName
+     * @return a future of the {@link UserReward} of the userName requested
+     */
+    @RequestMapping("/async/getRewards")
+    public CompletableFuture<List<UserReward>> getRewardsAsync(@RequestParam String userName) {
+        return tourGuideService.getUserRewardsAsync(getUser(userName));
+    }
+
+
+    /** Asynchronous variant of {@link #getTripDeals(String)}: the request thread is released while
+     * TripPricer is called. The request times out after {@code spring.mvc.async.request-timeout}.
+     *
+     * @param userName string of the userName
+     * @return a future of the {@link Provider} of the userName requested
+     */
+    @RequestMapping("/async/getTripDeals")
+    public CompletableFuture<List<Provider>> getTripDealsAsync(@RequestParam String userName) {
+        return tourGuideService.getTripDealsAsync(getUser(userName));
+    }
+
+
     /** private method used to find the User (userId, userName, phoneNumber, emailAddress) associated with the userName sent
      *
      * @param userName string of the userName
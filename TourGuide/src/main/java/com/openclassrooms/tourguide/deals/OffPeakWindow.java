@@ -0,0 +1,38 @@
+package com.openclassrooms.tourguide.deals;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/** Daily time range, from {@code start} included to {@code end} excluded, spanning midnight if it ends
+ * before it starts, and the whole day if it ends when it starts.
+ *
+ * @param start first time of the window
+ * @param end first time after the window
+ */
+public record OffPeakWindow(LocalTime start, LocalTime end) {
+
+	/** Parses a window written {@code HH:mm-HH:mm}.
+	 *
+	 * @param window the window, such as {@code 22:30-04:00}
+	 * @return the window
+	 * @throws IllegalArgumentException if the window is malformed
+	 */
+	public static OffPeakWindow parse(String window) {
+		String[] times = window.trim().split("-");
+		if (times.length != 2) {
+			throw new IllegalArgumentException("Off-peak window must be written HH:mm-HH:mm: " + window);
+		}
+		try {
+			return new OffPeakWindow(LocalTime.parse(times[0].trim()), LocalTime.parse(times[1].trim()));
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Off-peak window must be written HH:mm-HH:mm: " + window, e);
+		}
+	}
+
+	public boolean contains(LocalTime time) {
+		if (start.isBefore(end)) {
+			return !time.isBefore(start) && time.isBefore(end);
+		}
+		return !time.isBefore(start) || time.isBefore(end);
+	}
+}
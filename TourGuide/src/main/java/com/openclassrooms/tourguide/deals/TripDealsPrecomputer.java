@@ -0,0 +1,203 @@
+package com.openclassrooms.tourguide.deals;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.PricedTripDeals;
+import com.openclassrooms.tourguide.user.User;
+
+/** Background job pricing the trip deals of the active users during off-peak windows, so that
+ * {@link TourGuideService#getTripDeals(User)} serves them without calling TripPricer.
+ *
+ * <p>A scheduler thread checks the windows every {@link TripDealsProperties#getCheckInterval()}; in a
+ * window, it walks the users and prices those located within {@link TripDealsProperties#getActiveWithin()}
+ * whose deals are missing, older than {@link TripDealsProperties#getRefreshAfter()} or priced for other
+ * inputs. The calls run on the given executor, at most {@link TripDealsProperties#getParallelism()}
+ * at a time and {@link TripDealsProperties#getRateLimit()} started per second. A pass stops dispatching
+ * when its window closes.</p>
+ *
+ * <p>Passes are idempotent: a user whose deals are fresh is skipped, also when the check is made again
+ * right before the call, so a second pass, or a user priced live meanwhile, costs no TripPricer call.</p>
+ *
+ * @see TripDealsProperties
+ */
+public class TripDealsPrecomputer implements AutoCloseable {
+
+	private final Logger logger = LoggerFactory.getLogger(TripDealsPrecomputer.class);
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "tourguide-trip-deals");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final TourGuideService tourGuideService;
+	private final TripDealsProperties properties;
+	private final List<OffPeakWindow> offPeakWindows;
+	private final Executor executor;
+	private final Clock clock;
+	private final long permitIntervalNanos;
+	private long nextPermitNanos;
+	private final LongAdder priced = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private volatile boolean stop = false;
+
+
+	/** Creates a job, which does nothing until {@link #start()}.
+	 *
+	 * @param tourGuideService the service pricing the deals
+	 * @param properties the windows, freshness and rate of the job
+	 * @param executor runs the TripPricer calls
+	 * @param clock tells the time of day and the age of the deals
+	 */
+	public TripDealsPrecomputer(TourGuideService tourGuideService, TripDealsProperties properties, Executor executor,
+			Clock clock) {
+		if (properties.getParallelism() < 1 || properties.getRateLimit() <= 0) {
+			throw new IllegalArgumentException("The trip deals precomputation needs a parallelism and a rate limit above 0");
+		}
+		this.tourGuideService = tourGuideService;
+		this.properties = properties;
+		this.offPeakWindows = properties.getOffPeakWindows().stream().map(OffPeakWindow::parse).toList();
+		this.executor = executor;
+		this.clock = clock;
+		this.permitIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getRateLimit());
+		this.nextPermitNanos = System.nanoTime();
+	}
+
+
+	/** Checks the off-peak windows every {@link TripDealsProperties#getCheckInterval()} from now on. */
+	public void start() {
+		long interval = properties.getCheckInterval().toMillis();
+		scheduler.scheduleWithFixedDelay(this::runIfOffPeak, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+
+	/** Tells whether an instant falls in one of the off-peak windows. */
+	public boolean isOffPeak(Instant instant) {
+		LocalTime time = LocalTime.ofInstant(instant, properties.getZone());
+		return offPeakWindows.stream().anyMatch(window -> window.contains(time));
+	}
+
+
+	/** Runs a pass if the clock is in an off-peak window, until the window closes.
+	 *
+	 * @return the number of users priced
+	 */
+	public int precomputeIfOffPeak() {
+		if (!isOffPeak(clock.instant())) {
+			return 0;
+		}
+		return precompute(() -> isOffPeak(clock.instant()));
+	}
+
+
+	/** Runs a whole pass now, whatever the time of day, and waits for its last calls.
+	 *
+	 * @return the number of users priced
+	 */
+	public int precompute() {
+		return precompute(() -> true);
+	}
+
+
+	public long getPricedCount() {
+		return priced.sum();
+	}
+
+
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+
+	@Override
+	public void close() {
+		stop = true;
+		scheduler.shutdownNow();
+	}
+
+
+	// NOTE : exceptions are logged rather than thrown, since they would cancel the following checks
+	private void runIfOffPeak() {
+		try {
+			int count = precomputeIfOffPeak();
+			if (count > 0) {
+				logger.debug("Precomputed the trip deals of {} users", count);
+			}
+		} catch (RuntimeException e) {
+			logger.error("Trip deals precomputation failed", e);
+		}
+	}
+
+
+	private int precompute(BooleanSupplier inWindow) {
+		Semaphore slots = new Semaphore(properties.getParallelism());
+		LongAdder pricedInPass = new LongAdder();
+		try {
+			for (User user : tourGuideService.getUsers()) {
+				if (stop || !inWindow.getAsBoolean()) {
+					break;
+				}
+				if (!needsPricing(user)) {
+					continue;
+				}
+				acquirePermit();
+				slots.acquire();
+				CompletableFuture.runAsync(() -> {
+					if (needsPricing(user)) {
+						tourGuideService.priceTripDeals(user);
+						pricedInPass.increment();
+					}
+				}, executor).whenComplete((ignored, e) -> {
+					slots.release();
+					if (e != null) {
+						failures.increment();
+						logger.warn("Failed to precompute the trip deals of user: " + user.getUserName(), e);
+					}
+				});
+			}
+			// NOTE : waits for the calls still in flight
+			slots.acquire(properties.getParallelism());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		priced.add(pricedInPass.sum());
+		return pricedInPass.intValue();
+	}
+
+
+	private boolean needsPricing(User user) {
+		Instant now = clock.instant();
+		Date latest = user.getLatestLocationTimestamp();
+		if (latest == null || latest.toInstant().isBefore(now.minus(properties.getActiveWithin()))) {
+			return false;
+		}
+		PricedTripDeals pricedTripDeals = user.getPricedTripDeals();
+		return pricedTripDeals == null || !pricedTripDeals.isValidFor(user, now, properties.getRefreshAfter());
+	}
+
+
+	// NOTE : evenly spaced permits, a pass resuming after a pause does not get a burst
+	private void acquirePermit() throws InterruptedException {
+		long now = System.nanoTime();
+		if (nextPermitNanos - now > 0) {
+			TimeUnit.NANOSECONDS.sleep(nextPermitNanos - now);
+			now = System.nanoTime();
+		}
+		// NOTE : nanoTime values are only compared by their difference, they may be negative or wrap around
+		nextPermitNanos = (nextPermitNanos - now > 0 ? nextPermitNanos : now) + permitIntervalNanos;
+	}
+}
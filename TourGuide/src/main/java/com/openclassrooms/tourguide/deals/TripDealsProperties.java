@@ -0,0 +1,102 @@
+package com.openclassrooms.tourguide.deals;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Off-peak precomputation of the trip deals, bound from the {@code tourguide.trip-deals.precompute.*} properties.
+ *
+ * @see TripDealsPrecomputer
+ */
+@ConfigurationProperties(prefix = "tourguide.trip-deals.precompute")
+public class TripDealsProperties {
+
+	private boolean enabled = false;
+
+	/** Time ranges, such as {@code 01:00-05:00}, in which the deals are precomputed; a range may span midnight. */
+	private List<String> offPeakWindows = List.of("01:00-05:00");
+
+	/** Time zone of the off-peak windows. */
+	private ZoneId zone = ZoneId.systemDefault();
+
+	/** Time between two checks of the windows; a pass starts on the first check in a window. */
+	private Duration checkInterval = Duration.ofMinutes(1);
+
+	/** Deals priced longer ago than this are priced again. */
+	private Duration refreshAfter = Duration.ofHours(12);
+
+	/** Only the users located within this duration are priced. */
+	private Duration activeWithin = Duration.ofDays(7);
+
+	/** Maximum number of TripPricer calls in flight. */
+	private int parallelism = 16;
+
+	/** Maximum number of TripPricer calls started per second. */
+	private double rateLimit = 50;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public List<String> getOffPeakWindows() {
+		return offPeakWindows;
+	}
+
+	public void setOffPeakWindows(List<String> offPeakWindows) {
+		this.offPeakWindows = offPeakWindows;
+	}
+
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	public void setZone(ZoneId zone) {
+		this.zone = zone;
+	}
+
+	public Duration getCheckInterval() {
+		return checkInterval;
+	}
+
+	public void setCheckInterval(Duration checkInterval) {
+		this.checkInterval = checkInterval;
+	}
+
+	public Duration getRefreshAfter() {
+		return refreshAfter;
+	}
+
+	public void setRefreshAfter(Duration refreshAfter) {
+		this.refreshAfter = refreshAfter;
+	}
+
+	public Duration getActiveWithin() {
+		return activeWithin;
+	}
+
+	public void setActiveWithin(Duration activeWithin) {
+		this.activeWithin = activeWithin;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public double getRateLimit() {
+		return rateLimit;
+	}
+
+	public void setRateLimit(double rateLimit) {
+		this.rateLimit = rateLimit;
+	}
+}
@@ -0,0 +1,37 @@
+package com.openclassrooms.tourguide.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/** What a bounded pool does with a task submitted while its queue is full. */
+public enum BackpressurePolicy {
+
+	/** The submitting thread runs the task itself, which slows the producer down. */
+	CALLER_RUNS,
+
+	/** The submitting thread waits until the queue has room for the task. */
+	BLOCK,
+
+	/** The task is rejected with a {@link RejectedExecutionException}. */
+	ABORT;
+
+
+	RejectedExecutionHandler handler() {
+		return switch (this) {
+			case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+			case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+			case BLOCK -> (task, executor) -> {
+				if (executor.isShutdown()) {
+					throw new RejectedExecutionException("Executor has been shut down");
+				}
+				try {
+					executor.getQueue().put(task);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException("Interrupted while waiting for room in the queue", e);
+				}
+			};
+		};
+	}
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.tourguide.executor;
+
+/** How the executors run their tasks. */
+public enum ExecutionMode {
+
+	/** Bounded pools of platform threads with a bounded queue. */
+	PLATFORM,
+
+	/** One virtual thread per task, the number of running tasks being capped by a semaphore.
+	 * Requires Java 21; on older runtimes the executors fall back to {@link #PLATFORM}. */
+	VIRTUAL
+}
@@ -0,0 +1,157 @@
+package com.openclassrooms.tourguide.executor;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Sizing of the executors used by the services, bound from the {@code tourguide.executor.*} properties.
+ *
+ * @see TourGuideExecutors
+ */
+@ConfigurationProperties(prefix = "tourguide.executor")
+public class ExecutorProperties {
+
+	/** Platform thread pools, or one virtual thread per task (Java 21). */
+	private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+	/** Pool tracking user locations (GpsUtil calls). */
+	private Pool tracking = new Pool(256, 10_000, 1_000);
+
+	/** Pool matching the visited locations of the users against the attractions. */
+	private Pool rewards = new Pool(512, 10_000, 5_000);
+
+	/** Pool committing the rewards found, once their points are known. */
+	private Pool commit = new Pool(16, 10_000, 1_000);
+
+	/** Pool calling the upstream services on behalf of the others, such as the batched reward points lookups. */
+	private Pool upstream = new Pool(512, 10_000, 5_000);
+
+	/** Parallelism of the fork/join pool splitting the rewards batches of the
+	 * {@code FORK_JOIN} engine, apart from the common pool. */
+	private int forkJoinParallelism = Runtime.getRuntime().availableProcessors();
+
+	/** How long a graceful shutdown waits for running and queued tasks. */
+	private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+	public ExecutionMode getMode() {
+		return mode;
+	}
+
+	public void setMode(ExecutionMode mode) {
+		this.mode = mode;
+	}
+
+	public Pool getTracking() {
+		return tracking;
+	}
+
+	public void setTracking(Pool tracking) {
+		this.tracking = tracking;
+	}
+
+	public Pool getRewards() {
+		return rewards;
+	}
+
+	public void setRewards(Pool rewards) {
+		this.rewards = rewards;
+	}
+
+	public Pool getCommit() {
+		return commit;
+	}
+
+	public void setCommit(Pool commit) {
+		this.commit = commit;
+	}
+
+	public Pool getUpstream() {
+		return upstream;
+	}
+
+	public void setUpstream(Pool upstream) {
+		this.upstream = upstream;
+	}
+
+	public int getForkJoinParallelism() {
+		return forkJoinParallelism;
+	}
+
+	public void setForkJoinParallelism(int forkJoinParallelism) {
+		this.forkJoinParallelism = forkJoinParallelism;
+	}
+
+	public Duration getShutdownTimeout() {
+		return shutdownTimeout;
+	}
+
+	public void setShutdownTimeout(Duration shutdownTimeout) {
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+
+	public static class Pool {
+
+		/** Maximum number of threads; idle threads are released after {@code keepAlive}. */
+		private int threads;
+
+		/** Number of tasks waiting for a thread before the backpressure policy applies. */
+		private int queueCapacity;
+
+		private BackpressurePolicy backpressure = BackpressurePolicy.CALLER_RUNS;
+
+		private Duration keepAlive = Duration.ofSeconds(60);
+
+		/** In {@link ExecutionMode#VIRTUAL} mode, maximum number of tasks running at the same time. */
+		private int virtualConcurrency;
+
+		public Pool() {
+		}
+
+		public Pool(int threads, int queueCapacity, int virtualConcurrency) {
+			this.threads = threads;
+			this.queueCapacity = queueCapacity;
+			this.virtualConcurrency = virtualConcurrency;
+		}
+
+		public int getThreads() {
+			return threads;
+		}
+
+		public void setThreads(int threads) {
+			this.threads = threads;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public BackpressurePolicy getBackpressure() {
+			return backpressure;
+		}
+
+		public void setBackpressure(BackpressurePolicy backpressure) {
+			this.backpressure = backpressure;
+		}
+
+		public Duration getKeepAlive() {
+			return keepAlive;
+		}
+
+		public void setKeepAlive(Duration keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		public int getVirtualConcurrency() {
+			return virtualConcurrency;
+		}
+
+		public void setVirtualConcurrency(int virtualConcurrency) {
+			this.virtualConcurrency = virtualConcurrency;
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.openclassrooms.tourguide.executor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/** Named, bounded thread pools shared by the services.
+ *
+ * <p>In {@link ExecutionMode#PLATFORM} mode, each pool has a bounded queue and a
+ * {@link BackpressurePolicy}, and releases its idle threads, so a pool costs nothing between two
+ * batches. In {@link ExecutionMode#VIRTUAL} mode, each task runs on its own virtual thread and a
+ * {@link VirtualThreadExecutor} caps how many run at once. The pools live as long as this object:
+ * batches can be submitted any number of times, and {@link #close()} drains them gracefully when
+ * the Spring context stops.</p>
+ *
+ * <p>As a {@link MeterBinder}, it publishes the queue depth and the active threads of each pool,
+ * read from the pools when the registry is scraped.</p>
+ *
+ * @see ExecutorProperties
+ */
+public class TourGuideExecutors implements AutoCloseable, MeterBinder {
+
+	public static final String TRACKING = "tracking";
+	public static final String REWARDS = "rewards";
+	public static final String COMMIT = "commit";
+	public static final String UPSTREAM = "upstream";
+	public static final String FORK_JOIN = "fork-join";
+
+	private final Logger logger = LoggerFactory.getLogger(TourGuideExecutors.class);
+	private final ExecutionMode mode;
+	private final ExecutorService tracking;
+	private final ExecutorService rewards;
+	private final ExecutorService commit;
+	private final ExecutorService upstream;
+	private final ForkJoinPool forkJoin;
+	private final Duration shutdownTimeout;
+
+
+	public TourGuideExecutors(ExecutorProperties properties) {
+		this.mode = effectiveMode(properties.getMode());
+		this.tracking = newExecutor(TRACKING, properties.getTracking(), mode);
+		this.rewards = newExecutor(REWARDS, properties.getRewards(), mode);
+		this.commit = newExecutor(COMMIT, properties.getCommit(), mode);
+		this.upstream = newExecutor(UPSTREAM, properties.getUpstream(), mode);
+		this.forkJoin = newForkJoinPool(properties.getForkJoinParallelism());
+		this.shutdownTimeout = properties.getShutdownTimeout();
+	}
+
+
+	public ExecutionMode getMode() {
+		return mode;
+	}
+
+
+	public ExecutorService tracking() {
+		return tracking;
+	}
+
+
+	public ExecutorService rewards() {
+		return rewards;
+	}
+
+
+	/** Executor of the last stage of the rewards pipeline, adding the rewards to the users.
+	 *
+	 * @see com.openclassrooms.tourguide.service.RewardsService#calculateRewardsAsync(com.openclassrooms.tourguide.user.User)
+	 */
+	public ExecutorService commit() {
+		return commit;
+	}
+
+
+	/** Executor of the upstream calls the other pools wait for, kept apart so that tasks waiting for
+	 * an upstream call never hold the threads that call would need.
+	 */
+	public ExecutorService upstream() {
+		return upstream;
+	}
+
+
+	/** Fork/join pool of the rewards batches split into chunks of users. Their matches take the users'
+	 * locks and may run an upstream call, so they are kept off the common pool.
+	 *
+	 * @see com.openclassrooms.tourguide.service.RewardsBatchEngine#FORK_JOIN
+	 */
+	public ForkJoinPool forkJoin() {
+		return forkJoin;
+	}
+
+
+	/** Creates the executor of a pool in the given mode.
+	 *
+	 * @param name name of the pool
+	 * @param pool sizing of the pool
+	 * @param mode execution mode, which must be supported by the runtime
+	 * @return a new executor
+	 */
+	public static ExecutorService newExecutor(String name, ExecutorProperties.Pool pool, ExecutionMode mode) {
+		if (mode == ExecutionMode.VIRTUAL) {
+			return new VirtualThreadExecutor(VirtualThreads.factory("tourguide-" + name + "-"), pool.getVirtualConcurrency());
+		}
+		return newPool(name, pool);
+	}
+
+
+	/** Creates a bounded pool whose threads are named {@code tourguide-<name>-<n>}.
+	 *
+	 * @param name name of the pool
+	 * @param pool sizing of the pool
+	 * @return a new pool, started lazily
+	 */
+	public static ThreadPoolExecutor newPool(String name, ExecutorProperties.Pool pool) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(pool.getThreads(), pool.getThreads(),
+				pool.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(pool.getQueueCapacity()),
+				namedThreadFactory(name),
+				pool.getBackpressure().handler());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+
+	/** Creates a fork/join pool whose threads are named {@code tourguide-fork-join-<n>}.
+	 *
+	 * @param parallelism target number of workers
+	 * @return a new pool, whose workers are started on demand
+	 */
+	public static ForkJoinPool newForkJoinPool(int parallelism) {
+		AtomicInteger counter = new AtomicInteger();
+		return new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("tourguide-" + FORK_JOIN + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+	}
+
+
+	/** Publishes {@code tourguide.executor.queued} (platform pools only, a virtual thread executor
+	 * has no queue) and {@code tourguide.executor.active}, tagged by pool name.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		bindTo(registry, TRACKING, tracking);
+		bindTo(registry, REWARDS, rewards);
+		bindTo(registry, COMMIT, commit);
+		bindTo(registry, UPSTREAM, upstream);
+		bindTo(registry, FORK_JOIN, forkJoin);
+	}
+
+
+	/** Stops accepting tasks, lets running and queued tasks finish within the shutdown timeout,
+	 * then interrupts whatever is left.
+	 */
+	@Override
+	public void close() {
+		List<ExecutorService> pools = List.of(tracking, rewards, commit, upstream, forkJoin);
+		pools.forEach(ExecutorService::shutdown);
+		long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+		for (ExecutorService pool : pools) {
+			try {
+				if (!pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+					logger.warn("Executor did not terminate within {}, {} tasks dropped", shutdownTimeout,
+							pool.shutdownNow().size());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				pool.shutdownNow();
+			}
+		}
+	}
+
+
+	private static void bindTo(MeterRegistry registry, String name, ExecutorService executor) {
+		if (executor instanceof ThreadPoolExecutor pool) {
+			Gauge.builder("tourguide.executor.queued", pool, p -> p.getQueue().size())
+					.description("Tasks waiting for a thread").tag("pool", name).register(registry);
+			Gauge.builder("tourguide.executor.active", pool, ThreadPoolExecutor::getActiveCount)
+					.description("Threads running a task").tag("pool", name).register(registry);
+		} else if (executor instanceof ForkJoinPool pool) {
+			Gauge.builder("tourguide.executor.queued", pool, p -> p.getQueuedSubmissionCount() + p.getQueuedTaskCount())
+					.description("Tasks waiting for a thread").tag("pool", name).register(registry);
+			Gauge.builder("tourguide.executor.active", pool, ForkJoinPool::getActiveThreadCount)
+					.description("Threads running a task").tag("pool", name).register(registry);
+		} else if (executor instanceof VirtualThreadExecutor virtualThreads) {
+			Gauge.builder("tourguide.executor.active", virtualThreads, VirtualThreadExecutor::getActiveCount)
+					.description("Threads running a task").tag("pool", name).register(registry);
+		}
+	}
+
+
+	private ExecutionMode effectiveMode(ExecutionMode requested) {
+		if (requested == ExecutionMode.VIRTUAL && !VirtualThreads.isSupported()) {
+			logger.warn("Virtual threads require Java 21, running on Java {}: falling back to platform threads",
+					Runtime.version().feature());
+			return ExecutionMode.PLATFORM;
+		}
+		return requested;
+	}
+
+
+	private static ThreadFactory namedThreadFactory(String name) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "tourguide-" + name + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,108 @@
+package com.openclassrooms.tourguide.executor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/** Executor starting one thread per task, with at most {@code maxConcurrency} tasks running at once.
+ *
+ * <p>Meant for virtual threads, which are cheap to create but would otherwise let a batch of 100,000
+ * users hit GpsUtil or RewardCentral all at the same time. There is no queue: a submitting thread
+ * waits for a permit of the semaphore, which is the backpressure of this executor.</p>
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+	private final ThreadFactory threadFactory;
+	private final int maxConcurrency;
+	private final Semaphore permits;
+	private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+	private volatile boolean shutdown;
+
+
+	public VirtualThreadExecutor(ThreadFactory threadFactory, int maxConcurrency) {
+		this.threadFactory = threadFactory;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency);
+	}
+
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+
+	public int getActiveCount() {
+		return maxConcurrency - permits.availablePermits();
+	}
+
+
+	@Override
+	public void execute(Runnable task) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Executor has been shut down");
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for a permit", e);
+		}
+		try {
+			Thread thread = threadFactory.newThread(() -> {
+				runningThreads.add(Thread.currentThread());
+				try {
+					task.run();
+				} finally {
+					runningThreads.remove(Thread.currentThread());
+					permits.release();
+				}
+			});
+			thread.start();
+		} catch (RuntimeException | Error e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+	}
+
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown = true;
+		runningThreads.forEach(Thread::interrupt);
+		return List.of();
+	}
+
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+
+	@Override
+	public boolean isTerminated() {
+		return shutdown && permits.availablePermits() == maxConcurrency;
+	}
+
+
+	/** Waits until every running task has released its permit. */
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		if (!permits.tryAcquire(maxConcurrency, timeout, unit)) {
+			return false;
+		}
+		permits.release(maxConcurrency);
+		return true;
+	}
+}
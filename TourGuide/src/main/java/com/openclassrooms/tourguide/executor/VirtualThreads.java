@@ -0,0 +1,56 @@
+package com.openclassrooms.tourguide.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/** Access to the virtual threads of Java 21 from code compiled for Java 17.
+ *
+ * <p>The {@code Thread.ofVirtual()} builder is looked up reflectively, once, so the same build runs
+ * on both runtimes and only the {@link ExecutionMode#VIRTUAL} mode depends on Java 21.</p>
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL = findOfVirtual();
+
+	private VirtualThreads() {
+	}
+
+
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+
+	/** Creates a factory of virtual threads named {@code <prefix><n>}.
+	 *
+	 * @param prefix prefix of the thread names
+	 * @return the thread factory
+	 * @throws UnsupportedOperationException if the runtime has no virtual threads
+	 */
+	public static ThreadFactory factory(String prefix) {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+		}
+		try {
+			Object builder = OF_VIRTUAL.invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Unable to create virtual threads", e);
+		}
+	}
+
+
+	private static Method findOfVirtual() {
+		// NOTE : present but in preview on Java 19 and 20
+		if (Runtime.version().feature() < 21) {
+			return null;
+		}
+		try {
+			return Thread.class.getMethod("ofVirtual");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
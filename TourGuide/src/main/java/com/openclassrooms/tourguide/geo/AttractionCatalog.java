@@ -0,0 +1,169 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.Attraction;
+import com.openclassrooms.tourguide.client.GpsClient;
+
+/** Attraction catalogue, loaded once from GpsUtil into an immutable {@link AttractionIndex} snapshot
+ * and refreshed in the background.
+ *
+ * <p>Readers take the current {@link Snapshot} with a single volatile read and use it for a whole
+ * operation: they never block, and never see a catalogue half updated. A refresh builds a complete
+ * new index, with its grid and its {@link DistanceKernel}, then swaps it in; it only swaps when
+ * GpsUtil answered something different.</p>
+ *
+ * <p>The dense identifier of an attraction, its position in the index, is kept across refreshes by
+ * attraction name, since the users record their rewards by that position
+ * ({@link com.openclassrooms.tourguide.user.User#hasRewardForAttraction(int)}): new attractions are
+ * appended, and attractions gone from GpsUtil are retired, keeping their position, rather than removed.
+ * An attraction whose name, city, state and coordinates are unchanged also keeps its instance, and
+ * thereby its {@code attractionId}, which keys the reward points lookups.</p>
+ */
+public class AttractionCatalog implements AutoCloseable {
+
+	private final Logger logger = LoggerFactory.getLogger(AttractionCatalog.class);
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "tourguide-attraction-catalog");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final GpsClient gpsClient;
+	// NOTE : only read and written under the monitor of the catalogue, by refresh()
+	private final Map<String, Integer> idsByName = new HashMap<>();
+	private volatile Snapshot snapshot;
+
+
+	/** Creates a catalogue, loading the attractions of GpsUtil at once.
+	 *
+	 * @param gpsClient the client giving the attractions
+	 */
+	public AttractionCatalog(GpsClient gpsClient) {
+		this.gpsClient = gpsClient;
+		this.snapshot = new Snapshot(0, AttractionIndex.of(List.of()));
+		refresh();
+	}
+
+
+	/** Returns the current snapshot, to be used for a whole operation. */
+	public Snapshot snapshot() {
+		return snapshot;
+	}
+
+
+	/** Returns the index of the current snapshot. */
+	public AttractionIndex current() {
+		return snapshot.index();
+	}
+
+
+	/** Refreshes the catalogue every {@code interval} from now on; a zero interval never does.
+	 *
+	 * @param interval time between the end of a refresh and the start of the next one
+	 */
+	public void start(Duration interval) {
+		if (interval.isZero() || interval.isNegative()) {
+			return;
+		}
+		long millis = interval.toMillis();
+		scheduler.scheduleWithFixedDelay(this::refreshQuietly, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+
+	/** Loads the attractions of GpsUtil and swaps a new snapshot in if they changed.
+	 * An empty answer is ignored once the catalogue has attractions.
+	 *
+	 * @return {@code true} if a new snapshot was swapped in
+	 */
+	public synchronized boolean refresh() {
+		List<Attraction> fetched = gpsClient.getAttractions();
+		AttractionIndex index = snapshot.index();
+		if (fetched.isEmpty() && index.size() > 0) {
+			logger.warn("GpsUtil returned no attractions, the catalogue is kept as is");
+			return false;
+		}
+
+		List<Attraction> attractions = new ArrayList<>(index.getAttractions());
+		BitSet retired = new BitSet(attractions.size());
+		retired.set(0, attractions.size());
+		for (Attraction attraction : fetched) {
+			Integer id = idsByName.get(attraction.attractionName);
+			if (id == null) {
+				id = attractions.size();
+				idsByName.put(attraction.attractionName, id);
+				attractions.add(attraction);
+			} else if (!sameAttraction(attractions.get(id), attraction)) {
+				attractions.set(id, attraction);
+			}
+			retired.clear(id);
+		}
+
+		if (!changed(index, attractions, retired)) {
+			return false;
+		}
+		snapshot = new Snapshot(snapshot.version() + 1, AttractionIndex.of(attractions, retired));
+		logger.debug("Attraction catalogue version {}: {} attractions, {} retired", snapshot.version(),
+				attractions.size() - retired.cardinality(), retired.cardinality());
+		return true;
+	}
+
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+
+	// NOTE : a failed refresh keeps the current snapshot, and must not cancel the following ones
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			logger.warn("Failed to refresh the attraction catalogue", e);
+		}
+	}
+
+
+	private static boolean changed(AttractionIndex index, List<Attraction> attractions, BitSet retired) {
+		if (index.size() != attractions.size()) {
+			return true;
+		}
+		for (int i = 0; i < attractions.size(); i++) {
+			if (index.isRetired(i) != retired.get(i) || index.get(i) != attractions.get(i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// NOTE : GpsUtil draws a new attractionId on every call, the id is not compared
+	private static boolean sameAttraction(Attraction a, Attraction b) {
+		return a == b || (Objects.equals(a.attractionName, b.attractionName)
+				&& Objects.equals(a.city, b.city)
+				&& Objects.equals(a.state, b.state)
+				&& a.latitude == b.latitude
+				&& a.longitude == b.longitude);
+	}
+
+
+	/** Immutable state of the catalogue.
+	 *
+	 * @param version incremented by every refresh swapping a new index in, 1 for the first load
+	 * @param index the attractions, by identifier
+	 */
+	public record Snapshot(long version, AttractionIndex index) {
+	}
+}
@@ -0,0 +1,246 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+/** Immutable latitude/longitude grid over the attraction catalogue.
+ *
+ * <p>Each attraction is stored once, in the 1&deg; x 1&deg; cell that contains it. A radius query
+ * only visits the cells overlapping the bounding box of the spherical cap around the point, then
+ * tests the attractions found there with a {@link DistanceKernel} query, which falls back on the
+ * exact {@link GeoDistance} test near the radius, so its answers are the same as a brute-force scan
+ * over the whole catalogue.</p>
+ *
+ * <p>Attractions keep their position in the source list: that position is the attraction's dense
+ * identifier and query results are always returned in catalogue order. An index built by
+ * {@link AttractionCatalog} may hold retired attractions, which keep their position but are never found.</p>
+ */
+public final class AttractionIndex {
+
+	static final int LATITUDE_CELLS = 180;
+	static final int LONGITUDE_CELLS = 360;
+
+	private final Attraction[] attractions;
+	private final List<Attraction> attractionList;
+	// Compressed rows: attractions of cell c are cellEntries[cellStart[c] .. cellStart[c + 1] - 1]
+	private final int[] cellStart;
+	private final int[] cellEntries;
+	private final int[] attractionCells;
+	private final BitSet retired;
+	private final int activeCount;
+	private final DistanceKernel distanceKernel;
+
+
+	private AttractionIndex(List<Attraction> attractions, BitSet retired) {
+		this.attractions = attractions.toArray(new Attraction[0]);
+		this.attractionList = List.of(this.attractions);
+		this.retired = (BitSet) retired.clone();
+		this.activeCount = this.attractions.length - this.retired.cardinality();
+		this.distanceKernel = DistanceKernel.of(attractionList);
+		this.cellStart = new int[LATITUDE_CELLS * LONGITUDE_CELLS + 1];
+		this.cellEntries = new int[activeCount];
+
+		int[] cells = new int[this.attractions.length];
+		this.attractionCells = cells;
+		for (int i = 0; i < this.attractions.length; i++) {
+			cells[i] = cellOf(this.attractions[i].latitude, this.attractions[i].longitude);
+			if (!this.retired.get(i)) {
+				cellStart[cells[i] + 1]++;
+			}
+		}
+		for (int c = 0; c < LATITUDE_CELLS * LONGITUDE_CELLS; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		int[] fill = Arrays.copyOf(cellStart, cellStart.length - 1);
+		for (int i = 0; i < this.attractions.length; i++) {
+			if (!this.retired.get(i)) {
+				cellEntries[fill[cells[i]]++] = i;
+			}
+		}
+	}
+
+
+	/** Builds an index over the given attractions.
+	 *
+	 * @param attractions the attraction catalogue, typically {@code gpsUtil.getAttractions()}
+	 * @return a new immutable index
+	 */
+	public static AttractionIndex of(List<Attraction> attractions) {
+		return new AttractionIndex(attractions, new BitSet());
+	}
+
+
+	/** Builds an index over the given attractions, some of which are retired: they keep their
+	 * position but are left out of every query.
+	 *
+	 * @param attractions the attractions, by identifier
+	 * @param retired the positions of the retired attractions
+	 * @return a new immutable index
+	 */
+	static AttractionIndex of(List<Attraction> attractions, BitSet retired) {
+		return new AttractionIndex(attractions, retired);
+	}
+
+
+	/** Returns the number of positions, retired attractions included: every identifier is below it. */
+	public int size() {
+		return attractions.length;
+	}
+
+
+	/** Returns the number of attractions which can be found, the retired ones excluded. */
+	public int activeCount() {
+		return activeCount;
+	}
+
+
+	public boolean isRetired(int attractionIndex) {
+		return retired.get(attractionIndex);
+	}
+
+
+	public Attraction get(int attractionIndex) {
+		return attractions[attractionIndex];
+	}
+
+
+	/** Returns every indexed attraction, in catalogue order, retired ones included.
+	 *
+	 * @return an unmodifiable list of the attractions
+	 */
+	public List<Attraction> getAttractions() {
+		return attractionList;
+	}
+
+
+	/** Returns the distance kernel of the attractions, which share their catalogue position with it. */
+	public DistanceKernel getDistanceKernel() {
+		return distanceKernel;
+	}
+
+
+	/** Finds the attractions within a radius of a location.
+	 *
+	 * @param location the centre of the search
+	 * @param radiusMiles the radius in statute miles
+	 * @return the matching attractions, in catalogue order
+	 *
+	 * @see #findWithin(double, double, double)
+	 */
+	public List<Attraction> getAttractionsWithin(Location location, double radiusMiles) {
+		int[] found = findWithin(location.latitude, location.longitude, radiusMiles);
+		List<Attraction> result = new ArrayList<>(found.length);
+		for (int attractionIndex : found) {
+			result.add(attractions[attractionIndex]);
+		}
+		return result;
+	}
+
+
+	/** Finds the positions of the attractions within a radius of a point.
+	 * An attraction matches when {@link GeoDistance#isWithin(double, double)} holds for its
+	 * {@link GeoDistance#statuteMiles(double, double, double, double)} distance to the point.
+	 *
+	 * @param latitude latitude of the centre, in degrees
+	 * @param longitude longitude of the centre, in degrees
+	 * @param radiusMiles the radius in statute miles
+	 * @return the catalogue positions of the matching attractions, in ascending order
+	 */
+	public int[] findWithin(double latitude, double longitude, double radiusMiles) {
+		return findWithin(latitude, longitude, radiusMiles, attractionIndex -> false);
+	}
+
+
+	/** Finds the positions of the attractions within a radius of a point, leaving out some of them
+	 * before any distance is computed.
+	 *
+	 * @param latitude latitude of the centre, in degrees
+	 * @param longitude longitude of the centre, in degrees
+	 * @param radiusMiles the radius in statute miles
+	 * @param excluded tells, from its catalogue position, whether an attraction must be ignored
+	 * @return the catalogue positions of the matching attractions, in ascending order
+	 */
+	public int[] findWithin(double latitude, double longitude, double radiusMiles, IntPredicate excluded) {
+		DistanceKernel.Query query = distanceKernel.query(latitude, longitude, radiusMiles);
+		CellWindow window = new CellWindow();
+		if (!window.set(latitude, longitude, radiusMiles)) {
+			return scan(query, excluded);
+		}
+
+		int[] found = new int[Math.min(attractions.length, 8)];
+		int count = 0;
+		for (int row = window.rowMin; row <= window.rowMax; row++) {
+			for (int col = window.colMin; col <= window.colMax; col++) {
+				int cell = cellIndex(row, col);
+				for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+					int attractionIndex = cellEntries[e];
+					if (!excluded.test(attractionIndex) && query.isWithin(attractionIndex)) {
+						if (count == found.length) {
+							found = Arrays.copyOf(found, Math.max(1, count * 2));
+						}
+						found[count++] = attractionIndex;
+					}
+				}
+			}
+		}
+		found = Arrays.copyOf(found, count);
+		Arrays.sort(found);
+		return found;
+	}
+
+
+	private int[] scan(DistanceKernel.Query query, IntPredicate excluded) {
+		int[] found = new int[attractions.length];
+		int count = 0;
+		for (int i = 0; i < attractions.length; i++) {
+			if (!retired.get(i) && !excluded.test(i) && query.isWithin(i)) {
+				found[count++] = i;
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+
+	double distanceTo(int attractionIndex, double latitude, double longitude) {
+		Attraction attraction = attractions[attractionIndex];
+		return GeoDistance.statuteMiles(attraction.latitude, attraction.longitude, latitude, longitude);
+	}
+
+
+	int cellFirstEntry(int cell) {
+		return cellStart[cell];
+	}
+
+
+	int cellEndEntry(int cell) {
+		return cellStart[cell + 1];
+	}
+
+
+	int entry(int e) {
+		return cellEntries[e];
+	}
+
+
+	int cellOfAttraction(int attractionIndex) {
+		return attractionCells[attractionIndex];
+	}
+
+
+	static int cellIndex(int row, int col) {
+		return row * LONGITUDE_CELLS + Math.floorMod(col, LONGITUDE_CELLS);
+	}
+
+
+	static int cellOf(double latitude, double longitude) {
+		int row = Math.min(LATITUDE_CELLS - 1, Math.max(0, (int) Math.floor(latitude + 90)));
+		int col = Math.floorMod((int) Math.floor(longitude + 180), LONGITUDE_CELLS);
+		return row * LONGITUDE_CELLS + col;
+	}
+}
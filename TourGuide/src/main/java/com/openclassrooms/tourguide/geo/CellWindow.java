@@ -0,0 +1,67 @@
+package com.openclassrooms.tourguide.geo;
+
+/** Range of grid cells covering the bounding box of a spherical cap.
+ *
+ * <p>Columns are kept unwrapped ({@code colMin} may be negative or {@code colMax} beyond the last
+ * column when the cap crosses the antimeridian); {@link AttractionIndex#cellIndex(int, int)} folds
+ * them back. Windows computed for the same centre and a growing radius are nested.</p>
+ */
+final class CellWindow {
+
+	// NOTE : covers the rounding error of acos for almost identical points (about 1e-6 degree)
+	private static final double PADDING_DEGREES = 1e-4;
+
+	int rowMin;
+	int rowMax;
+	int colMin;
+	int colMax;
+
+
+	/** Computes the window of the cap of the given radius around a point.
+	 *
+	 * @param latitude latitude of the centre, in degrees
+	 * @param longitude longitude of the centre, in degrees
+	 * @param radiusMiles the radius of the cap in statute miles
+	 * @return {@code false} when the cap may reach any point of the globe, in which case the
+	 *         window is left undefined and callers should scan everything
+	 */
+	boolean set(double latitude, double longitude, double radiusMiles) {
+		double radiusDegrees = radiusMiles / GeoDistance.STATUTE_MILES_PER_DEGREE + PADDING_DEGREES;
+		if (!(radiusDegrees < 180)) {
+			return false;
+		}
+
+		rowMin = Math.max(0, (int) Math.floor(latitude - radiusDegrees + 90));
+		rowMax = Math.min(AttractionIndex.LATITUDE_CELLS - 1, (int) Math.floor(latitude + radiusDegrees + 90));
+		colMin = 0;
+		colMax = AttractionIndex.LONGITUDE_CELLS - 1;
+
+		boolean coversPole = latitude - radiusDegrees <= -90 || latitude + radiusDegrees >= 90;
+		if (!coversPole && radiusDegrees < 90) {
+			double ratio = Math.sin(Math.toRadians(radiusDegrees)) / Math.cos(Math.toRadians(latitude));
+			if (ratio < 1) {
+				double longitudeDegrees = Math.toDegrees(Math.asin(ratio)) + PADDING_DEGREES;
+				int from = (int) Math.floor(longitude - longitudeDegrees + 180);
+				int to = (int) Math.floor(longitude + longitudeDegrees + 180);
+				if (to - from + 1 < AttractionIndex.LONGITUDE_CELLS) {
+					colMin = from;
+					colMax = to;
+				}
+			}
+		}
+		return true;
+	}
+
+
+	boolean contains(int row, int col) {
+		return row >= rowMin && row <= rowMax && Math.floorMod(col - colMin, AttractionIndex.LONGITUDE_CELLS) <= colMax - colMin;
+	}
+
+
+	void copyFrom(CellWindow other) {
+		rowMin = other.rowMin;
+		rowMax = other.rowMax;
+		colMin = other.colMin;
+		colMax = other.colMax;
+	}
+}
@@ -0,0 +1,218 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.List;
+
+import gpsUtil.location.Location;
+
+/** Great-circle distances from one point to a fixed set of locations, without trigonometry per pair.
+ *
+ * <p>The sine and cosine of each location's latitude and longitude are computed once, into primitive
+ * arrays. For a query point, the haversine of the angle to a location is then
+ * {@code (1 - cos(dLat)) / 2 + cosLat1 cosLat2 (1 - cos(dLon)) / 2}, where {@code cos(dLat)} and
+ * {@code cos(dLon)} only take products and sums of the precomputed values. A radius test compares
+ * haversines, so it needs no {@code acos} nor {@code asin} at all, and the batch methods are plain
+ * loops over the arrays, without branches, which the JIT can compile to SIMD instructions.</p>
+ *
+ * <p>Tolerance: {@link #statuteMiles(int, double, double)} differs from
+ * {@link GeoDistance#statuteMiles(double, double, double, double)} by less than
+ * {@value #TOLERANCE_MILES} miles: in practice by less than 1e-6 miles, except for points a few metres
+ * apart, for which the law of cosines of {@link GeoDistance} is itself only accurate to about 1e-4
+ * miles. A {@link Query} uses this tolerance to tell the locations certainly within
+ * or beyond its radius, and leaves the few others, in the band around the radius, to the exact
+ * {@link GeoDistance} test: its answers are those of {@link GeoDistance} itself.</p>
+ */
+public final class DistanceKernel {
+
+	/** Maximum difference, in statute miles, between the kernel and {@link GeoDistance}. */
+	public static final double TOLERANCE_MILES = 0.01;
+
+	private final double[] latitudes;
+	private final double[] longitudes;
+	private final double[] sinLatitudes;
+	private final double[] cosLatitudes;
+	private final double[] sinLongitudes;
+	private final double[] cosLongitudes;
+
+
+	private DistanceKernel(double[] latitudes, double[] longitudes) {
+		int size = latitudes.length;
+		this.latitudes = latitudes;
+		this.longitudes = longitudes;
+		sinLatitudes = new double[size];
+		cosLatitudes = new double[size];
+		sinLongitudes = new double[size];
+		cosLongitudes = new double[size];
+		for (int i = 0; i < size; i++) {
+			sinLatitudes[i] = Math.sin(Math.toRadians(latitudes[i]));
+			cosLatitudes[i] = Math.cos(Math.toRadians(latitudes[i]));
+			sinLongitudes[i] = Math.sin(Math.toRadians(longitudes[i]));
+			cosLongitudes[i] = Math.cos(Math.toRadians(longitudes[i]));
+		}
+	}
+
+
+	/** Precomputes the kernel of a list of locations, which keep their position as identifier.
+	 *
+	 * @param locations the locations, typically the attraction catalogue
+	 * @return a new immutable kernel
+	 */
+	public static DistanceKernel of(List<? extends Location> locations) {
+		double[] latitudes = new double[locations.size()];
+		double[] longitudes = new double[locations.size()];
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = locations.get(i).latitude;
+			longitudes[i] = locations.get(i).longitude;
+		}
+		return new DistanceKernel(latitudes, longitudes);
+	}
+
+
+	/** Precomputes the kernel of points given by their coordinates, which keep their position as identifier.
+	 * The arrays are kept as they are, and must not be modified afterwards.
+	 *
+	 * @param latitudes the latitudes of the points, in degrees
+	 * @param longitudes the longitudes of the points, in degrees
+	 * @return a new kernel
+	 */
+	static DistanceKernel of(double[] latitudes, double[] longitudes) {
+		return new DistanceKernel(latitudes, longitudes);
+	}
+
+
+	public int size() {
+		return latitudes.length;
+	}
+
+
+	/** Computes the distance from a point to a location, within {@value #TOLERANCE_MILES} miles
+	 * of {@link GeoDistance}.
+	 *
+	 * @param i position of the location
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @return the distance in statute miles
+	 */
+	public double statuteMiles(int i, double latitude, double longitude) {
+		return new Query(latitude, longitude, 0).statuteMiles(i);
+	}
+
+
+	/** Computes the distances from a point to every location.
+	 *
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @param distances receives the distance in statute miles to each location, at its position
+	 */
+	public void statuteMiles(double latitude, double longitude, double[] distances) {
+		Query query = new Query(latitude, longitude, 0);
+		query.haversines(distances);
+		for (int i = 0; i < distances.length; i++) {
+			distances[i] = milesOfHaversine(distances[i]);
+		}
+	}
+
+
+	/** Prepares the radius tests around a point.
+	 *
+	 * @param latitude latitude of the centre, in degrees
+	 * @param longitude longitude of the centre, in degrees
+	 * @param radiusMiles the radius in statute miles
+	 * @return a query testing the locations against this radius
+	 */
+	public Query query(double latitude, double longitude, double radiusMiles) {
+		return new Query(latitude, longitude, radiusMiles);
+	}
+
+
+	static double milesOfHaversine(double haversine) {
+		double angle = 2 * Math.asin(Math.sqrt(Math.min(1, Math.max(0, haversine))));
+		return Math.toDegrees(angle) * GeoDistance.STATUTE_MILES_PER_DEGREE;
+	}
+
+
+	static double haversineOfMiles(double miles) {
+		if (miles < 0) {
+			return -1;
+		}
+		double angle = Math.toRadians(miles / GeoDistance.STATUTE_MILES_PER_DEGREE);
+		if (angle >= Math.PI) {
+			return 2;
+		}
+		double sin = Math.sin(angle / 2);
+		return sin * sin;
+	}
+
+
+	/** Radius tests around a point, each costing a few multiplications. */
+	public final class Query {
+
+		private final double latitude;
+		private final double longitude;
+		private final double radiusMiles;
+		private final double sinLatitude;
+		private final double cosLatitude;
+		private final double sinLongitude;
+		private final double cosLongitude;
+		private final double certainlyWithin;
+		private final double certainlyBeyond;
+		private final double latitudeReach;
+
+		private Query(double latitude, double longitude, double radiusMiles) {
+			this.latitude = latitude;
+			this.longitude = longitude;
+			this.radiusMiles = radiusMiles;
+			this.sinLatitude = Math.sin(Math.toRadians(latitude));
+			this.cosLatitude = Math.cos(Math.toRadians(latitude));
+			this.sinLongitude = Math.sin(Math.toRadians(longitude));
+			this.cosLongitude = Math.cos(Math.toRadians(longitude));
+			this.certainlyWithin = haversineOfMiles(radiusMiles - TOLERANCE_MILES);
+			this.certainlyBeyond = haversineOfMiles(radiusMiles + TOLERANCE_MILES);
+			this.latitudeReach = (radiusMiles + TOLERANCE_MILES) / GeoDistance.STATUTE_MILES_PER_DEGREE;
+		}
+
+		/** Tells whether a location is within the radius, with the same answer as
+		 * {@link GeoDistance#isWithin(double, double)} on the {@link GeoDistance} distance.
+		 *
+		 * @param i position of the location
+		 * @return {@code true} if the location is within the radius
+		 */
+		public boolean isWithin(int i) {
+			// NOTE : equirectangular pre-filter, the north-south leg alone never exceeds the great-circle distance
+			if (Math.abs(latitudes[i] - latitude) > latitudeReach) {
+				return false;
+			}
+			double haversine = haversine(i);
+			if (haversine < certainlyWithin) {
+				return true;
+			}
+			if (haversine > certainlyBeyond) {
+				return false;
+			}
+			return GeoDistance.isWithin(GeoDistance.statuteMiles(latitudes[i], longitudes[i], latitude, longitude), radiusMiles);
+		}
+
+		/** Computes the distance to a location, within {@value #TOLERANCE_MILES} miles of {@link GeoDistance}.
+		 *
+		 * @param i position of the location
+		 * @return the distance in statute miles
+		 */
+		public double statuteMiles(int i) {
+			return milesOfHaversine(haversine(i));
+		}
+
+		double haversine(int i) {
+			double cosDeltaLatitude = cosLatitudes[i] * cosLatitude + sinLatitudes[i] * sinLatitude;
+			double cosDeltaLongitude = cosLongitudes[i] * cosLongitude + sinLongitudes[i] * sinLongitude;
+			return (1 - cosDeltaLatitude) / 2 + cosLatitudes[i] * cosLatitude * (1 - cosDeltaLongitude) / 2;
+		}
+
+		/** Computes the haversine of the angle to every location, in one loop over the arrays. */
+		void haversines(double[] haversines) {
+			for (int i = 0; i < haversines.length; i++) {
+				double cosDeltaLatitude = cosLatitudes[i] * cosLatitude + sinLatitudes[i] * sinLatitude;
+				double cosDeltaLongitude = cosLongitudes[i] * cosLongitude + sinLongitudes[i] * sinLongitude;
+				haversines[i] = (1 - cosDeltaLatitude) / 2 + cosLatitudes[i] * cosLatitude * (1 - cosDeltaLongitude) / 2;
+			}
+		}
+	}
+}
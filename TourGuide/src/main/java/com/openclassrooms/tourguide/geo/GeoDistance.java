@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/** Great-circle distance helpers shared by the services and the spatial indexes.
+ *
+ * <p>The formula is the spherical law of cosines historically used by
+ * {@code RewardsService.getDistance}; it is kept bit for bit so that every index built
+ * on top of it returns exactly the same answers as a brute-force scan.</p>
+ */
+public final class GeoDistance {
+
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+
+	/** Statute miles covered by one degree of arc on the earth's surface. */
+	public static final double STATUTE_MILES_PER_DEGREE = 60 * STATUTE_MILES_PER_NAUTICAL_MILE;
+
+	public static final double METERS_PER_STATUTE_MILE = 1609.344;
+
+	private GeoDistance() {
+	}
+
+
+	/** Computes the distance in statute miles between two locations.
+	 *
+	 * @param loc1 first location
+	 * @param loc2 second location
+	 * @return the distance in statute miles, or {@code NaN} when rounding pushes two
+	 *         almost identical points out of the {@code acos} domain
+	 */
+	public static double statuteMiles(Location loc1, Location loc2) {
+		return statuteMiles(loc1.latitude, loc1.longitude, loc2.latitude, loc2.longitude);
+	}
+
+
+	/** Computes the distance in statute miles between two points given in degrees.
+	 *
+	 * @param latitude1 latitude of the first point
+	 * @param longitude1 longitude of the first point
+	 * @param latitude2 latitude of the second point
+	 * @param longitude2 longitude of the second point
+	 * @return the distance in statute miles
+	 */
+	public static double statuteMiles(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double lat1 = Math.toRadians(latitude1);
+		double lon1 = Math.toRadians(longitude1);
+		double lat2 = Math.toRadians(latitude2);
+		double lon2 = Math.toRadians(longitude2);
+		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	}
+
+
+	/** Tells whether a distance is within a radius, with the same semantics as the historical
+	 * {@code distance > radius ? false : true} test (a {@code NaN} distance counts as within).
+	 *
+	 * @param distance the computed distance in miles
+	 * @param radius the radius in miles
+	 * @return {@code true} if the distance is not greater than the radius
+	 */
+	public static boolean isWithin(double distance, double radius) {
+		return !(distance > radius);
+	}
+}
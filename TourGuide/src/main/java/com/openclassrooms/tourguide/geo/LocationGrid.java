@@ -0,0 +1,107 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.Arrays;
+
+/** Throwaway latitude/longitude grid over a set of points, such as the visited locations of many users.
+ *
+ * <p>It is the reverse of the {@link AttractionIndex}: built once over the points of a batch, it is
+ * then queried around each attraction. The points are stored in the 1&deg; x 1&deg; cells of the
+ * attraction grid, in compressed rows, and tested with a {@link DistanceKernel} query, so that a point
+ * is found around an attraction exactly when the attraction is found around the point by
+ * {@link AttractionIndex#findWithin(double, double, double)}.</p>
+ *
+ * <p>The grid is immutable once built, and can be queried from several threads.</p>
+ */
+public final class LocationGrid {
+
+	private final int size;
+	// Compressed rows: points of cell c are cellEntries[cellStart[c] .. cellStart[c + 1] - 1]
+	private final int[] cellStart;
+	private final int[] cellEntries;
+	private final DistanceKernel distanceKernel;
+
+
+	private LocationGrid(double[] latitudes, double[] longitudes) {
+		this.size = latitudes.length;
+		this.distanceKernel = DistanceKernel.of(latitudes, longitudes);
+		this.cellStart = new int[AttractionIndex.LATITUDE_CELLS * AttractionIndex.LONGITUDE_CELLS + 1];
+		this.cellEntries = new int[size];
+
+		int[] cells = new int[size];
+		for (int i = 0; i < size; i++) {
+			cells[i] = AttractionIndex.cellOf(latitudes[i], longitudes[i]);
+			cellStart[cells[i] + 1]++;
+		}
+		for (int c = 0; c < cellStart.length - 1; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		int[] fill = Arrays.copyOf(cellStart, cellStart.length - 1);
+		for (int i = 0; i < size; i++) {
+			cellEntries[fill[cells[i]]++] = i;
+		}
+	}
+
+
+	/** Builds a grid over points given by their coordinates, which keep their position as identifier.
+	 * The arrays are kept as they are, and must not be modified afterwards.
+	 *
+	 * @param latitudes the latitudes of the points, in degrees
+	 * @param longitudes the longitudes of the points, in degrees, as many as the latitudes
+	 * @return a new grid
+	 */
+	public static LocationGrid of(double[] latitudes, double[] longitudes) {
+		if (latitudes.length != longitudes.length) {
+			throw new IllegalArgumentException("Every point needs a latitude and a longitude");
+		}
+		return new LocationGrid(latitudes, longitudes);
+	}
+
+
+	public int size() {
+		return size;
+	}
+
+
+	/** Finds the positions of the points within a radius of a centre.
+	 *
+	 * @param latitude latitude of the centre, in degrees
+	 * @param longitude longitude of the centre, in degrees
+	 * @param radiusMiles the radius in statute miles
+	 * @return the positions of the matching points, in ascending order
+	 */
+	public int[] findWithin(double latitude, double longitude, double radiusMiles) {
+		DistanceKernel.Query query = distanceKernel.query(latitude, longitude, radiusMiles);
+		CellWindow window = new CellWindow();
+		int[] found = new int[Math.min(size, 8)];
+		int count = 0;
+		if (!window.set(latitude, longitude, radiusMiles)) {
+			for (int i = 0; i < size; i++) {
+				if (query.isWithin(i)) {
+					if (count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+					}
+					found[count++] = i;
+				}
+			}
+			return Arrays.copyOf(found, count);
+		}
+
+		for (int row = window.rowMin; row <= window.rowMax; row++) {
+			for (int col = window.colMin; col <= window.colMax; col++) {
+				int cell = AttractionIndex.cellIndex(row, col);
+				for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+					int point = cellEntries[e];
+					if (query.isWithin(point)) {
+						if (count == found.length) {
+							found = Arrays.copyOf(found, Math.max(1, count * 2));
+						}
+						found[count++] = point;
+					}
+				}
+			}
+		}
+		found = Arrays.copyOf(found, count);
+		Arrays.sort(found);
+		return found;
+	}
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.tourguide.geo;
+
+/** K-nearest-neighbour search over an {@link AttractionIndex}.
+ *
+ * <p>The search visits the grid cells around the point in windows of doubling radius, never
+ * visiting a cell twice, and keeps the K best candidates in a bounded heap. It stops as soon as
+ * the heap is full and its farthest candidate lies within the radius already covered, since every
+ * attraction that has not been examined is then farther away. Each distance is computed once.</p>
+ *
+ * <p>Unlike the radius queries, a {@code NaN} distance (two almost identical points) is ranked
+ * as a distance of 0.</p>
+ */
+public final class NearestAttractionSearch {
+
+	private static final double INITIAL_RADIUS_MILES = GeoDistance.STATUTE_MILES_PER_DEGREE;
+
+	private final AttractionIndex index;
+
+
+	public NearestAttractionSearch(AttractionIndex index) {
+		this.index = index;
+	}
+
+
+	public AttractionIndex getIndex() {
+		return index;
+	}
+
+
+	/** Finds the K attractions nearest to a point, no matter how far away they are.
+	 *
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @param k the number of attractions wanted
+	 * @return the {@code min(k, catalogue size)} nearest attractions, nearest first, retired ones excluded
+	 */
+	public NearestAttractions nearest(double latitude, double longitude, int k) {
+		NearestAttractions result = new NearestAttractions(Math.max(0, Math.min(k, index.activeCount())));
+		if (result.isFull()) {
+			return result;
+		}
+
+		CellWindow window = new CellWindow();
+		CellWindow visited = null;
+		double radius = INITIAL_RADIUS_MILES;
+		while (window.set(latitude, longitude, radius)) {
+			for (int row = window.rowMin; row <= window.rowMax; row++) {
+				for (int col = window.colMin; col <= window.colMax; col++) {
+					if (visited == null || !visited.contains(row, col)) {
+						offerCell(result, AttractionIndex.cellIndex(row, col), latitude, longitude);
+					}
+				}
+			}
+			if (result.isFull() && result.farthestDistance() <= radius) {
+				result.sort();
+				return result;
+			}
+			if (visited == null) {
+				visited = new CellWindow();
+			}
+			visited.copyFrom(window);
+			radius *= 2;
+		}
+
+		for (int attractionIndex = 0; attractionIndex < index.size(); attractionIndex++) {
+			int cell = index.cellOfAttraction(attractionIndex);
+			int row = cell / AttractionIndex.LONGITUDE_CELLS;
+			int col = cell % AttractionIndex.LONGITUDE_CELLS;
+			if (!index.isRetired(attractionIndex) && (visited == null || !visited.contains(row, col))) {
+				offer(result, attractionIndex, latitude, longitude);
+			}
+		}
+		result.sort();
+		return result;
+	}
+
+
+	private void offerCell(NearestAttractions result, int cell, double latitude, double longitude) {
+		for (int e = index.cellFirstEntry(cell); e < index.cellEndEntry(cell); e++) {
+			offer(result, index.entry(e), latitude, longitude);
+		}
+	}
+
+
+	private void offer(NearestAttractions result, int attractionIndex, double latitude, double longitude) {
+		double distance = index.distanceTo(attractionIndex, latitude, longitude);
+		result.offer(attractionIndex, Double.isNaN(distance) ? 0 : distance);
+	}
+}
@@ -0,0 +1,124 @@
+package com.openclassrooms.tourguide.geo;
+
+/** Result of a {@link NearestAttractionSearch}: the catalogue positions of the K nearest
+ * attractions and their distances, sorted from the nearest to the farthest.
+ *
+ * <p>While the search runs, the two arrays hold a bounded max-heap ordered by distance then by
+ * catalogue position, so that ties are broken exactly like a stable sort of the catalogue.</p>
+ */
+public final class NearestAttractions {
+
+	private final int[] attractionIndexes;
+	private final double[] distances;
+	private int size;
+
+
+	NearestAttractions(int capacity) {
+		this.attractionIndexes = new int[capacity];
+		this.distances = new double[capacity];
+	}
+
+
+	public int size() {
+		return size;
+	}
+
+
+	/** Returns the catalogue position of the i-th nearest attraction.
+	 *
+	 * @param i rank of the attraction, 0 being the nearest
+	 * @return the position of the attraction in the {@link AttractionIndex}
+	 */
+	public int attractionIndex(int i) {
+		return attractionIndexes[i];
+	}
+
+
+	/** Returns the distance to the i-th nearest attraction.
+	 *
+	 * @param i rank of the attraction, 0 being the nearest
+	 * @return the distance in statute miles
+	 */
+	public double distance(int i) {
+		return distances[i];
+	}
+
+
+	boolean isFull() {
+		return size == attractionIndexes.length;
+	}
+
+
+	double farthestDistance() {
+		return distances[0];
+	}
+
+
+	void offer(int attractionIndex, double distance) {
+		if (size < attractionIndexes.length) {
+			attractionIndexes[size] = attractionIndex;
+			distances[size] = distance;
+			siftUp(size++);
+		} else if (size > 0 && isBefore(attractionIndex, distance, 0)) {
+			attractionIndexes[0] = attractionIndex;
+			distances[0] = distance;
+			siftDown(0, size);
+		}
+	}
+
+
+	/** Turns the heap into the final ascending order (in-place heap sort). */
+	void sort() {
+		for (int end = size - 1; end > 0; end--) {
+			swap(0, end);
+			siftDown(0, end);
+		}
+	}
+
+
+	private boolean isBefore(int attractionIndex, double distance, int slot) {
+		return distance < distances[slot] || (distance == distances[slot] && attractionIndex < attractionIndexes[slot]);
+	}
+
+
+	private void siftUp(int slot) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (!isBefore(attractionIndexes[parent], distances[parent], slot)) {
+				return;
+			}
+			swap(slot, parent);
+			slot = parent;
+		}
+	}
+
+
+	private void siftDown(int slot, int end) {
+		while (true) {
+			int largest = slot;
+			int left = 2 * slot + 1;
+			int right = left + 1;
+			if (left < end && isBefore(attractionIndexes[largest], distances[largest], left)) {
+				largest = left;
+			}
+			if (right < end && isBefore(attractionIndexes[largest], distances[largest], right)) {
+				largest = right;
+			}
+			if (largest == slot) {
+				return;
+			}
+			swap(slot, largest);
+			slot = largest;
+		}
+	}
+
+
+	private void swap(int a, int b) {
+		int attractionIndex = attractionIndexes[a];
+		attractionIndexes[a] = attractionIndexes[b];
+		attractionIndexes[b] = attractionIndex;
+		double distance = distances[a];
+		distances[a] = distances[b];
+		distances[b] = distance;
+	}
+}
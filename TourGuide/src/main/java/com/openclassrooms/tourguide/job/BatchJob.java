@@ -0,0 +1,175 @@
+package com.openclassrooms.tourguide.job;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.openclassrooms.tourguide.user.User;
+
+/** Handle of a batch run over a list of users, started by {@link BatchJobService}.
+ *
+ * <p>The job dispatches its users one after the other, at most {@link BatchJobProperties#getParallelism()}
+ * in flight, so that it can be stopped between two users: {@link #cancel()} stops the dispatch, and the
+ * job ends once the users in flight are done. Their failures are collected rather than printed, and
+ * {@link #status()} gives the live progress, throughput and estimated time to completion.</p>
+ *
+ * @see BatchJobStatus
+ */
+public class BatchJob {
+
+	private final long id;
+	private final BatchJobKind kind;
+	private final List<User> users;
+	private final int maxFailures;
+	private final Clock clock;
+	private final AtomicReference<BatchJobState> state = new AtomicReference<>(BatchJobState.QUEUED);
+	private final LongAdder usersDone = new LongAdder();
+	private final LongAdder failureCount = new LongAdder();
+	// NOTE : guarded by its own monitor, only the first maxFailures are kept
+	private final List<BatchJobFailure> failures = new ArrayList<>();
+	private final CompletableFuture<BatchJobStatus> completion = new CompletableFuture<>();
+	private volatile Instant startedAt;
+	private volatile Instant endedAt;
+
+
+	BatchJob(long id, BatchJobKind kind, List<User> users, int maxFailures, Clock clock) {
+		this.id = id;
+		this.kind = kind;
+		this.users = users;
+		this.maxFailures = maxFailures;
+		this.clock = clock;
+	}
+
+
+	public long getId() {
+		return id;
+	}
+
+
+	public BatchJobKind getKind() {
+		return kind;
+	}
+
+
+	public BatchJobState getState() {
+		return state.get();
+	}
+
+
+	/** Returns a future completed with the final status of the job, once it has completed or was cancelled. */
+	public CompletableFuture<BatchJobStatus> getCompletion() {
+		return completion.copy();
+	}
+
+
+	/** Stops the job: a queued job never runs, a running one dispatches no more users and ends once
+	 * the users in flight are done.
+	 *
+	 * @return {@code false} if the job had already ended
+	 */
+	public boolean cancel() {
+		if (state.compareAndSet(BatchJobState.QUEUED, BatchJobState.CANCELLED)) {
+			end();
+			return true;
+		}
+		return state.compareAndSet(BatchJobState.RUNNING, BatchJobState.CANCELLED);
+	}
+
+
+	/** Returns a snapshot of the progress of the job. */
+	public BatchJobStatus status() {
+		BatchJobState currentState = state.get();
+		Instant started = startedAt;
+		Instant ended = endedAt;
+		long done = usersDone.sum();
+		List<BatchJobFailure> failuresSoFar;
+		synchronized (failures) {
+			failuresSoFar = List.copyOf(failures);
+		}
+
+		double usersPerSecond = 0;
+		Duration eta = null;
+		if (started != null) {
+			long elapsedMillis = Duration.between(started, ended != null ? ended : clock.instant()).toMillis();
+			usersPerSecond = elapsedMillis > 0 ? done * 1000.0 / elapsedMillis : 0;
+			if (ended == null && usersPerSecond > 0) {
+				eta = Duration.ofMillis((long) ((users.size() - done) * 1000 / usersPerSecond));
+			}
+		}
+		return new BatchJobStatus(id, kind, currentState, users.size(), done, failureCount.sum(), usersPerSecond, eta,
+				started, ended, failuresSoFar);
+	}
+
+
+	/** Dispatches the users to {@code process}, and waits for the last ones in flight.
+	 * Does nothing if the job was cancelled while queued.
+	 *
+	 * @param process processes a user, without blocking
+	 * @param parallelism maximum number of users in flight
+	 */
+	void run(Function<User, CompletableFuture<?>> process, int parallelism) {
+		if (!state.compareAndSet(BatchJobState.QUEUED, BatchJobState.RUNNING)) {
+			return;
+		}
+		startedAt = clock.instant();
+		Semaphore slots = new Semaphore(parallelism);
+		try {
+			for (User user : users) {
+				slots.acquire();
+				if (state.get() != BatchJobState.RUNNING) {
+					slots.release();
+					break;
+				}
+				start(process, user).whenComplete((ignored, e) -> {
+					if (e != null) {
+						failed(user, e);
+					}
+					usersDone.increment();
+					slots.release();
+				});
+			}
+			// NOTE : waits for the users still in flight
+			slots.acquire(parallelism);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			state.compareAndSet(BatchJobState.RUNNING, BatchJobState.CANCELLED);
+		}
+		state.compareAndSet(BatchJobState.RUNNING, BatchJobState.COMPLETED);
+		end();
+	}
+
+
+	// NOTE : an exception thrown before the future is returned is a failure of the user, not of the job
+	private static CompletableFuture<?> start(Function<User, CompletableFuture<?>> process, User user) {
+		try {
+			return process.apply(user);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+
+	private void failed(User user, Throwable e) {
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		failureCount.increment();
+		synchronized (failures) {
+			if (failures.size() < maxFailures) {
+				failures.add(new BatchJobFailure(user.getUserId(), user.getUserName(), String.valueOf(cause.getMessage())));
+			}
+		}
+	}
+
+
+	private void end() {
+		endedAt = clock.instant();
+		completion.complete(status());
+	}
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.tourguide.job;
+
+import java.util.UUID;
+
+/** A user whose processing failed in a {@link BatchJob}.
+ *
+ * @param userId the user
+ * @param userName the name of the user
+ * @param message the message of the exception
+ */
+public record BatchJobFailure(UUID userId, String userName, String message) {
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.tourguide.job;
+
+/** What a {@link BatchJob} does for each of its users. */
+public enum BatchJobKind {
+
+	/** Tracks the location of the user, then calculates their rewards. */
+	TRACKING,
+
+	/** Calculates the rewards of the user for the locations visited since the last calculation. */
+	REWARDS
+}
@@ -0,0 +1,57 @@
+package com.openclassrooms.tourguide.job;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Background batch jobs, bound from the {@code tourguide.jobs.*} properties.
+ *
+ * @see BatchJobService
+ */
+@ConfigurationProperties(prefix = "tourguide.jobs")
+public class BatchJobProperties {
+
+	/** Maximum number of users of a job in flight. */
+	private int parallelism = 1_000;
+
+	/** Failures kept in the status of a job; the following ones are only counted. */
+	private int maxFailures = 100;
+
+	/** Finished jobs kept, the oldest ones being forgotten first. */
+	private int history = 20;
+
+	/** How long the blocking batches, such as {@code RewardsService.calculateAllUsersRewards}, wait for their users. */
+	private Duration batchTimeout = Duration.ofMinutes(20);
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public int getMaxFailures() {
+		return maxFailures;
+	}
+
+	public void setMaxFailures(int maxFailures) {
+		this.maxFailures = maxFailures;
+	}
+
+	public Duration getBatchTimeout() {
+		return batchTimeout;
+	}
+
+	public void setBatchTimeout(Duration batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
+	public int getHistory() {
+		return history;
+	}
+
+	public void setHistory(int history) {
+		this.history = history;
+	}
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.tourguide.job;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/** Runs the tracking and rewards batches in the background, and returns a {@link BatchJob} handle
+ * instead of blocking the caller like {@link TourGuideService#trackAllUsersLocation(Collection)} and
+ * {@link RewardsService#calculateAllUsersRewards(Collection)}.
+ *
+ * <p>Jobs run one after the other on a single dispatcher thread, in the order they were submitted, and
+ * each user goes through the asynchronous pipeline of its kind:
+ * {@link TourGuideService#trackUserLocationAsync(User)} or {@link RewardsService#calculateRewardsAsync(User)}.
+ * A rewards job therefore matches each user on its own whatever {@link RewardsService#getBatchEngine()} is:
+ * the engines match a whole batch at once, which could neither be cancelled nor kept to the parallelism of the job.
+ * The latest {@link BatchJobProperties#getHistory()} finished jobs are kept, with the running and queued ones.</p>
+ *
+ * @see BatchJobProperties
+ * @see BatchJobsEndpoint
+ */
+public class BatchJobService implements AutoCloseable {
+
+	private final Logger logger = LoggerFactory.getLogger(BatchJobService.class);
+	private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "tourguide-batch-jobs");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final TourGuideService tourGuideService;
+	private final RewardsService rewardsService;
+	private final BatchJobProperties properties;
+	private final Clock clock;
+	private final AtomicLong nextId = new AtomicLong(1);
+	// NOTE : guarded by its own monitor, in submission order
+	private final Map<Long, BatchJob> jobs = new LinkedHashMap<>();
+
+
+	/** Creates the service, whose dispatcher thread starts with the first job.
+	 *
+	 * @param tourGuideService tracks the users and gives the users of the jobs started over every user
+	 * @param rewardsService calculates the rewards
+	 * @param properties the parallelism and the history of the jobs
+	 * @param clock times the jobs
+	 */
+	public BatchJobService(TourGuideService tourGuideService, RewardsService rewardsService,
+			BatchJobProperties properties, Clock clock) {
+		if (properties.getParallelism() < 1) {
+			throw new IllegalArgumentException("The batch jobs need a parallelism above 0");
+		}
+		this.tourGuideService = tourGuideService;
+		this.rewardsService = rewardsService;
+		this.properties = properties;
+		this.clock = clock;
+	}
+
+
+	/** Starts a job over every registered user.
+	 *
+	 * @param kind what the job does for each user
+	 * @return the handle of the job, queued behind the jobs not finished yet
+	 */
+	public BatchJob start(BatchJobKind kind) {
+		return start(kind, tourGuideService.getUsers());
+	}
+
+
+	/** Starts a job over the given users.
+	 *
+	 * @param kind what the job does for each user
+	 * @param users the users, copied
+	 * @return the handle of the job, queued behind the jobs not finished yet
+	 */
+	public BatchJob start(BatchJobKind kind, Collection<User> users) {
+		BatchJob job = new BatchJob(nextId.getAndIncrement(), kind, List.copyOf(users), properties.getMaxFailures(), clock);
+		synchronized (jobs) {
+			jobs.put(job.getId(), job);
+			forgetOldJobs();
+		}
+		dispatcher.execute(() -> run(job));
+		return job;
+	}
+
+
+	/** Returns a job still kept, or {@code null}. */
+	public BatchJob getJob(long id) {
+		synchronized (jobs) {
+			return jobs.get(id);
+		}
+	}
+
+
+	/** Returns the jobs still kept, oldest first. */
+	public List<BatchJob> getJobs() {
+		synchronized (jobs) {
+			return new ArrayList<>(jobs.values());
+		}
+	}
+
+
+	/** Cancels every job not finished yet, and stops the dispatcher thread. */
+	@Override
+	public void close() {
+		getJobs().forEach(BatchJob::cancel);
+		dispatcher.shutdownNow();
+	}
+
+
+	// NOTE : exceptions are logged rather than thrown, nobody waits for the dispatcher
+	private void run(BatchJob job) {
+		try {
+			logger.debug("Batch job {} ({}) starting", job.getId(), job.getKind());
+			job.run(processor(job.getKind()), properties.getParallelism());
+			BatchJobStatus status = job.status();
+			logger.info("Batch job {} ({}) {}: {} of {} users in {} ms, {} failures", job.getId(), job.getKind(),
+					status.state(), status.usersDone(), status.totalUsers(),
+					status.startedAt() == null ? 0 : status.endedAt().toEpochMilli() - status.startedAt().toEpochMilli(),
+					status.failureCount());
+		} catch (RuntimeException e) {
+			logger.error("Batch job " + job.getId() + " failed", e);
+		}
+	}
+
+
+	// NOTE : the per-user pipelines, the batch engine of the rewards service only applies to its blocking batches
+	private Function<User, CompletableFuture<?>> processor(BatchJobKind kind) {
+		return switch (kind) {
+			case TRACKING -> tourGuideService::trackUserLocationAsync;
+			case REWARDS -> rewardsService::calculateRewardsAsync;
+		};
+	}
+
+
+	private void forgetOldJobs() {
+		long finished = jobs.values().stream().filter(job -> job.getState().isDone()).count();
+		Iterator<BatchJob> iterator = jobs.values().iterator();
+		while (finished > properties.getHistory() && iterator.hasNext()) {
+			if (iterator.next().getState().isDone()) {
+				iterator.remove();
+				finished--;
+			}
+		}
+	}
+}
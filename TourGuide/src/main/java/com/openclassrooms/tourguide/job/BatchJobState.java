@@ -0,0 +1,21 @@
+package com.openclassrooms.tourguide.job;
+
+/** Lifecycle of a {@link BatchJob}. */
+public enum BatchJobState {
+
+	/** Waiting for the jobs submitted before it. */
+	QUEUED,
+
+	/** Dispatching its users. */
+	RUNNING,
+
+	/** Every user was processed, successfully or not. */
+	COMPLETED,
+
+	/** Stopped before every user was dispatched; the users in flight were waited for. */
+	CANCELLED;
+
+	public boolean isDone() {
+		return this == COMPLETED || this == CANCELLED;
+	}
+}
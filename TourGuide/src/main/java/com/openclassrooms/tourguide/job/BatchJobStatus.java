@@ -0,0 +1,24 @@
+package com.openclassrooms.tourguide.job;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/** Snapshot of the progress of a {@link BatchJob}, as exposed on the {@code batchjobs} Actuator endpoint.
+ *
+ * @param id the identifier of the job
+ * @param kind what the job does for each user
+ * @param state the state of the job
+ * @param totalUsers users of the job
+ * @param usersDone users processed so far, successfully or not
+ * @param failureCount users whose processing failed
+ * @param usersPerSecond users processed per second since the job started, 0 before
+ * @param eta estimated time to process the remaining users at that rate, {@code null} when unknown or done
+ * @param startedAt when the job started running, {@code null} while queued
+ * @param endedAt when the job completed or was cancelled, {@code null} before
+ * @param failures the first failures, up to {@link BatchJobProperties#getMaxFailures()}
+ */
+public record BatchJobStatus(long id, BatchJobKind kind, BatchJobState state, int totalUsers, long usersDone,
+		long failureCount, double usersPerSecond, Duration eta, Instant startedAt, Instant endedAt,
+		List<BatchJobFailure> failures) {
+}
@@ -0,0 +1,57 @@
+package com.openclassrooms.tourguide.job;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/** Actuator endpoint of the batch jobs, on {@code /actuator/batchjobs}:
+ * <ul>
+ * <li><b>GET</b> {@code /actuator/batchjobs} lists the jobs kept, oldest first;</li>
+ * <li><b>GET</b> {@code /actuator/batchjobs/{id}} gives the status of a job;</li>
+ * <li><b>POST</b> {@code /actuator/batchjobs} with {@code {"kind": "TRACKING"}} or {@code {"kind": "REWARDS"}}
+ * starts a job over every user;</li>
+ * <li><b>DELETE</b> {@code /actuator/batchjobs/{id}} cancels a job.</li>
+ * </ul>
+ * An unknown job answers 404.
+ *
+ * @see BatchJobService
+ */
+@Endpoint(id = "batchjobs")
+public class BatchJobsEndpoint {
+
+	private final BatchJobService batchJobService;
+
+	public BatchJobsEndpoint(BatchJobService batchJobService) {
+		this.batchJobService = batchJobService;
+	}
+
+	@ReadOperation
+	public List<BatchJobStatus> jobs() {
+		return batchJobService.getJobs().stream().map(BatchJob::status).toList();
+	}
+
+	@ReadOperation
+	public BatchJobStatus job(@Selector long id) {
+		BatchJob job = batchJobService.getJob(id);
+		return job == null ? null : job.status();
+	}
+
+	@WriteOperation
+	public BatchJobStatus start(BatchJobKind kind) {
+		return batchJobService.start(kind).status();
+	}
+
+	@DeleteOperation
+	public BatchJobStatus cancel(@Selector long id) {
+		BatchJob job = batchJobService.getJob(id);
+		if (job == null) {
+			return null;
+		}
+		job.cancel();
+		return job.status();
+	}
+}
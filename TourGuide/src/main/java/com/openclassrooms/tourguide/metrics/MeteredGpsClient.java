@@ -0,0 +1,33 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.GpsClient;
+
+/** {@link GpsClient} decorator timing every call under {@link TourGuideMetrics#UPSTREAM_CALLS}. */
+public class MeteredGpsClient implements GpsClient {
+
+	private final GpsClient delegate;
+	private final TourGuideMetrics metrics;
+
+
+	public MeteredGpsClient(GpsClient delegate, TourGuideMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return metrics.recordUpstreamCall(TourGuideMetrics.GPS_UTIL, () -> delegate.getUserLocation(userId));
+	}
+
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return metrics.recordUpstreamCall(TourGuideMetrics.GPS_UTIL, delegate::getAttractions);
+	}
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.client.RewardsClient;
+
+/** {@link RewardsClient} decorator timing every call under {@link TourGuideMetrics#UPSTREAM_CALLS}. */
+public class MeteredRewardsClient implements RewardsClient {
+
+	private final RewardsClient delegate;
+	private final TourGuideMetrics metrics;
+
+
+	public MeteredRewardsClient(RewardsClient delegate, TourGuideMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return metrics.recordUpstreamCall(TourGuideMetrics.REWARD_CENTRAL,
+				() -> delegate.getAttractionRewardPoints(attractionId, userId));
+	}
+}
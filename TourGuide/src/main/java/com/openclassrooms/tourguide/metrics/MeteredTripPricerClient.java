@@ -0,0 +1,27 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.client.TripPricerClient;
+
+/** {@link TripPricerClient} decorator timing every call under {@link TourGuideMetrics#UPSTREAM_CALLS}. */
+public class MeteredTripPricerClient implements TripPricerClient {
+
+	private final TripPricerClient delegate;
+	private final TourGuideMetrics metrics;
+
+
+	public MeteredTripPricerClient(TripPricerClient delegate, TourGuideMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+		return metrics.recordUpstreamCall(TourGuideMetrics.TRIP_PRICER,
+				() -> delegate.getPrice(apiKey, userId, adults, children, nightsStay, rewardsPoints));
+	}
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/** Meters of the tracking and reward hot paths.
+ *
+ * <p>Every meter is registered once, when this object is created, and recorded from a
+ * {@link System#nanoTime()} difference: recording allocates nothing and takes no lock, so the meters
+ * can stay on in production. The timers publish a percentile histogram, with buckets bounded by
+ * the expected range of each latency, from which Prometheus computes the quantiles.</p>
+ *
+ * <ul>
+ * <li>{@value #TRACK_USER_LOCATION}: fetching and recording the location of a user</li>
+ * <li>{@value #REWARDS_CALCULATION}: a rewards calculation of a user, tagged by outcome</li>
+ * <li>{@value #REWARDS_GRANTED}: rewards added to the users</li>
+ * <li>{@value #UPSTREAM_CALLS}: calls to GpsUtil, RewardCentral and TripPricer, tagged by service and outcome</li>
+ * <li>{@value #TRACKER_CYCLE} and {@value #TRACKER_OVERRUNS}: tracker cycles, and those longer than the polling interval</li>
+ * </ul>
+ *
+ * @see MeteredGpsClient
+ * @see com.openclassrooms.tourguide.executor.TourGuideExecutors#bindTo(MeterRegistry)
+ */
+public class TourGuideMetrics {
+
+	public static final String TRACK_USER_LOCATION = "tourguide.track.user.location";
+	public static final String REWARDS_CALCULATION = "tourguide.rewards.calculation";
+	public static final String REWARDS_GRANTED = "tourguide.rewards.granted";
+	public static final String UPSTREAM_CALLS = "tourguide.upstream.calls";
+	public static final String TRACKER_CYCLE = "tourguide.tracker.cycle";
+	public static final String TRACKER_OVERRUNS = "tourguide.tracker.overruns";
+
+	public static final String GPS_UTIL = "GpsUtil";
+	public static final String REWARD_CENTRAL = "RewardCentral";
+	public static final String TRIP_PRICER = "TripPricer";
+
+	private static final TourGuideMetrics NOOP = new TourGuideMetrics(new CompositeMeterRegistry());
+
+	private final MeterRegistry registry;
+	private final Timer trackUserLocation;
+	private final Timer rewardsCalculationSuccess;
+	private final Timer rewardsCalculationFailure;
+	private final Counter rewardsGranted;
+	private final Map<String, Timer> upstreamSuccess;
+	private final Map<String, Timer> upstreamFailure;
+	private final Timer trackerCycle;
+	private final Counter trackerOverruns;
+
+
+	public TourGuideMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.trackUserLocation = timer(TRACK_USER_LOCATION, "Fetching and recording the location of a user",
+				Duration.ofMillis(1), Duration.ofSeconds(10)).register(registry);
+		this.rewardsCalculationSuccess = rewardsCalculation("success").register(registry);
+		this.rewardsCalculationFailure = rewardsCalculation("failure").register(registry);
+		this.rewardsGranted = Counter.builder(REWARDS_GRANTED).description("Rewards added to the users").register(registry);
+		this.upstreamSuccess = Map.of(
+				GPS_UTIL, upstreamCalls(GPS_UTIL, "success").register(registry),
+				REWARD_CENTRAL, upstreamCalls(REWARD_CENTRAL, "success").register(registry),
+				TRIP_PRICER, upstreamCalls(TRIP_PRICER, "success").register(registry));
+		this.upstreamFailure = Map.of(
+				GPS_UTIL, upstreamCalls(GPS_UTIL, "failure").register(registry),
+				REWARD_CENTRAL, upstreamCalls(REWARD_CENTRAL, "failure").register(registry),
+				TRIP_PRICER, upstreamCalls(TRIP_PRICER, "failure").register(registry));
+		this.trackerCycle = timer(TRACKER_CYCLE, "Tracking every user once",
+				Duration.ofSeconds(1), Duration.ofHours(1)).register(registry);
+		this.trackerOverruns = Counter.builder(TRACKER_OVERRUNS).description("Tracker cycles longer than the polling interval")
+				.register(registry);
+	}
+
+
+	/** Returns metrics recorded nowhere, the default of the services created outside of Spring. */
+	public static TourGuideMetrics noop() {
+		return NOOP;
+	}
+
+
+	public MeterRegistry getRegistry() {
+		return registry;
+	}
+
+
+	public void recordTrackUserLocation(long nanos) {
+		trackUserLocation.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+
+	public void recordRewardsCalculation(long nanos, boolean success) {
+		(success ? rewardsCalculationSuccess : rewardsCalculationFailure).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+
+	public void incrementRewardsGranted() {
+		rewardsGranted.increment();
+	}
+
+
+	/** Times an upstream call.
+	 *
+	 * @param service one of {@link #GPS_UTIL}, {@link #REWARD_CENTRAL} and {@link #TRIP_PRICER}
+	 * @param call the call
+	 * @return the result of the call
+	 */
+	public <T> T recordUpstreamCall(String service, Supplier<T> call) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			T result = call.get();
+			success = true;
+			return result;
+		} finally {
+			(success ? upstreamSuccess : upstreamFailure).get(service).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+
+	public void recordTrackerCycle(Duration elapsed, boolean overrun) {
+		trackerCycle.record(elapsed);
+		if (overrun) {
+			trackerOverruns.increment();
+		}
+	}
+
+
+	private static Timer.Builder rewardsCalculation(String outcome) {
+		return timer(REWARDS_CALCULATION, "Rewards calculation of a user, from the proximity match to the commit",
+				Duration.ofMillis(1), Duration.ofSeconds(30)).tag("outcome", outcome);
+	}
+
+
+	private static Timer.Builder upstreamCalls(String service, String outcome) {
+		return timer(UPSTREAM_CALLS, "Calls to the upstream services", Duration.ofMillis(1), Duration.ofSeconds(30))
+				.tag("service", service).tag("outcome", outcome);
+	}
+
+
+	private static Timer.Builder timer(String name, String description, Duration minimum, Duration maximum) {
+		return Timer.builder(name).description(description)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(minimum)
+				.maximumExpectedValue(maximum);
+	}
+}
@@ -0,0 +1,40 @@
+package com.openclassrooms.tourguide.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.tourguide.user.User;
+
+/** {@link UserRepository} keeping the users in memory, in a {@link ConcurrentHashMap}.
+ * Lookups and iteration take no lock; insertions only lock the bin of the user's name.
+ */
+@Repository
+public class InMemoryUserRepository implements UserRepository {
+
+	private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+	private final Collection<User> view = Collections.unmodifiableCollection(users.values());
+
+	@Override
+	public User findByUserName(String userName) {
+		return users.get(userName);
+	}
+
+	@Override
+	public User addIfAbsent(User user) {
+		return users.putIfAbsent(user.getUserName(), user);
+	}
+
+	@Override
+	public Collection<User> findAll() {
+		return view;
+	}
+
+	@Override
+	public int count() {
+		return users.size();
+	}
+}
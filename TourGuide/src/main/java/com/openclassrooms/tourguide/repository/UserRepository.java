@@ -0,0 +1,37 @@
+package com.openclassrooms.tourguide.repository;
+
+import java.util.Collection;
+
+import com.openclassrooms.tourguide.user.User;
+
+/** Registry of the users, keyed by user name, safe to use from the HTTP threads and the tracker at once.
+ *
+ * @see InMemoryUserRepository
+ */
+public interface UserRepository {
+
+	/** Finds a user by name.
+	 *
+	 * @param userName the name of the user
+	 * @return the user, or {@code null} if no user has this name
+	 */
+	User findByUserName(String userName);
+
+	/** Adds a user, unless a user with the same name is already registered; the check and the
+	 * insertion are a single atomic operation.
+	 *
+	 * @param user the user to add
+	 * @return the user already registered under this name, or {@code null} if the user was added
+	 */
+	User addIfAbsent(User user);
+
+	/** Returns a live, weakly consistent view of the users: iterating it copies nothing, never throws
+	 * {@link java.util.ConcurrentModificationException}, and may or may not see the users added meanwhile.
+	 *
+	 * @return the registered users
+	 */
+	Collection<User> findAll();
+
+	/** Returns the number of registered users. */
+	int count();
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/** Timeout of an upstream service derived from its observed latency.
+ *
+ * <p>The latencies of the latest successful calls are kept in a ring; every tenth of the ring, the
+ * timeout is recomputed as a multiple of a high percentile of them, bounded by a minimum and a
+ * maximum. The timeout is the maximum until a fifth of the ring has been filled, and follows the
+ * service when it gets slower or faster. A call which timed out is not a latency sample: it would
+ * only push the timeout to the maximum while the service is failing.</p>
+ */
+public class AdaptiveTimeout {
+
+	private final double percentile;
+	private final double multiplier;
+	private final long minNanos;
+	private final long maxNanos;
+	private final long[] latencies;
+	private final int recomputeEvery;
+	private int recorded;
+	private int next;
+	private volatile long timeoutNanos;
+
+
+	public AdaptiveTimeout(ResilienceProperties.Policy policy) {
+		this(policy.getTimeoutPercentile(), policy.getTimeoutMultiplier(), policy.getMinTimeout(), policy.getMaxTimeout(),
+				policy.getLatencyWindow());
+	}
+
+
+	public AdaptiveTimeout(double percentile, double multiplier, Duration min, Duration max, int window) {
+		if (percentile <= 0 || percentile > 1 || multiplier < 1 || min.compareTo(max) > 0 || window < 5) {
+			throw new IllegalArgumentException("The timeout needs a percentile in ]0, 1], a multiplier of 1 at least, "
+					+ "min <= max and a window of 5 latencies at least");
+		}
+		this.percentile = percentile;
+		this.multiplier = multiplier;
+		this.minNanos = min.toNanos();
+		this.maxNanos = max.toNanos();
+		this.latencies = new long[window];
+		this.recomputeEvery = Math.max(1, window / 10);
+		this.timeoutNanos = maxNanos;
+	}
+
+
+	/** Returns the current timeout. */
+	public Duration get() {
+		return Duration.ofNanos(timeoutNanos);
+	}
+
+
+	public long getNanos() {
+		return timeoutNanos;
+	}
+
+
+	/** Records the latency of a successful call.
+	 *
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public synchronized void record(long nanos) {
+		latencies[next] = nanos;
+		next = (next + 1) % latencies.length;
+		recorded = Math.min(recorded + 1, latencies.length);
+		if (recorded >= latencies.length / 5 && next % recomputeEvery == 0) {
+			long[] sorted = Arrays.copyOf(latencies, recorded);
+			Arrays.sort(sorted);
+			long high = sorted[Math.max(0, Math.min(recorded - 1, (int) Math.ceil(percentile * recorded) - 1))];
+			timeoutNanos = Math.max(minNanos, Math.min(maxNanos, (long) (high * multiplier)));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.openclassrooms.tourguide.executor.BackpressurePolicy;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+
+/** Threads of a single upstream service, so that a slow service only holds its own.
+ *
+ * <p>A call first takes one of {@code maxConcurrentCalls} permits, waiting up to {@code maxWait} for
+ * it, then runs on a pool of as many threads, named {@code tourguide-<name>-<n>}. The permit is given
+ * back when the call returns, not when its caller stops waiting for it: a call which timed out still
+ * counts against the service until it answers.</p>
+ */
+public class Bulkhead implements AutoCloseable {
+
+	private final Semaphore permits;
+	private final long maxWaitNanos;
+	private final ThreadPoolExecutor executor;
+
+
+	public Bulkhead(String name, int maxConcurrentCalls, Duration maxWait) {
+		if (maxConcurrentCalls < 1 || maxWait.isNegative()) {
+			throw new IllegalArgumentException("The bulkhead needs 1 concurrent call at least and a wait of at least 0");
+		}
+		this.permits = new Semaphore(maxConcurrentCalls);
+		this.maxWaitNanos = maxWait.toNanos();
+		ExecutorProperties.Pool pool = new ExecutorProperties.Pool(maxConcurrentCalls, maxConcurrentCalls, maxConcurrentCalls);
+		// NOTE : the permits keep the queue from ever filling up
+		pool.setBackpressure(BackpressurePolicy.ABORT);
+		this.executor = TourGuideExecutors.newPool(name, pool);
+	}
+
+
+	/** Takes a permit, waiting up to {@code maxWait}.
+	 *
+	 * @return {@code false} if every permit is still taken
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public boolean tryAcquire() throws InterruptedException {
+		return maxWaitNanos == 0 ? permits.tryAcquire() : permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+	}
+
+
+	/** Gives back a permit taken by {@link #tryAcquire()} which was not used for a call. */
+	public void release() {
+		permits.release();
+	}
+
+
+	/** Starts a call with a permit taken by {@link #tryAcquire()}, which is given back once it returns.
+	 *
+	 * @param call the upstream call
+	 * @return the future of the call
+	 */
+	public <T> FutureTask<T> submit(Callable<T> call) {
+		FutureTask<T> task = new FutureTask<>(call);
+		try {
+			executor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					permits.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+		return task;
+	}
+
+
+	public int getAvailablePermits() {
+		return permits.availablePermits();
+	}
+
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
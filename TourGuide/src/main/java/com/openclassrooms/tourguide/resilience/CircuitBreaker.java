@@ -0,0 +1,143 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/** Count-based circuit breaker of an upstream service.
+ *
+ * <p>While {@link State#CLOSED}, the outcomes of the latest {@code slidingWindow} calls are kept in a
+ * ring; once at least {@code minimumCalls} were made, the circuit opens when the share of failures
+ * reaches {@code failureRateThreshold}. While {@link State#OPEN}, every call is refused at once, for
+ * {@code openDuration}; the circuit is then {@link State#HALF_OPEN} and lets {@code halfOpenCalls}
+ * trial calls through: it closes when they all succeed, and opens again on the first failure.</p>
+ *
+ * <p>The state changes under the monitor of the breaker, which only holds it for a few field updates.</p>
+ */
+public class CircuitBreaker {
+
+	public enum State { CLOSED, OPEN, HALF_OPEN }
+
+	private final double failureRateThreshold;
+	private final int minimumCalls;
+	private final long openNanos;
+	private final int halfOpenCalls;
+	private final LongSupplier nanoClock;
+	private final boolean[] outcomes;
+	private int recorded;
+	private int next;
+	private int failures;
+	private State state = State.CLOSED;
+	private long openedAt;
+	private int trialsStarted;
+	private int trialsSucceeded;
+
+
+	public CircuitBreaker(ResilienceProperties.Policy policy, LongSupplier nanoClock) {
+		this(policy.getFailureRateThreshold(), policy.getSlidingWindow(), policy.getMinimumCalls(),
+				policy.getOpenDuration(), policy.getHalfOpenCalls(), nanoClock);
+	}
+
+
+	public CircuitBreaker(double failureRateThreshold, int slidingWindow, int minimumCalls, Duration openDuration,
+			int halfOpenCalls, LongSupplier nanoClock) {
+		if (slidingWindow < 1 || minimumCalls < 1 || minimumCalls > slidingWindow || halfOpenCalls < 1) {
+			throw new IllegalArgumentException("The circuit breaker needs 1 <= minimumCalls <= slidingWindow and 1 trial call at least");
+		}
+		this.failureRateThreshold = failureRateThreshold;
+		this.minimumCalls = minimumCalls;
+		this.openNanos = openDuration.toNanos();
+		this.halfOpenCalls = halfOpenCalls;
+		this.nanoClock = nanoClock;
+		this.outcomes = new boolean[slidingWindow];
+	}
+
+
+	/** Asks for a call; when it is granted, its outcome must be recorded by {@link #onSuccess()} or {@link #onFailure()}.
+	 *
+	 * @return {@code false} if the circuit is open, or half open with every trial call already started
+	 */
+	public synchronized boolean tryAcquire() {
+		if (state == State.OPEN) {
+			if (nanoClock.getAsLong() - openedAt < openNanos) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+			trialsStarted = 0;
+			trialsSucceeded = 0;
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialsStarted == halfOpenCalls) {
+				return false;
+			}
+			trialsStarted++;
+		}
+		return true;
+	}
+
+
+	public synchronized void onSuccess() {
+		if (state == State.HALF_OPEN) {
+			if (++trialsSucceeded == halfOpenCalls) {
+				close();
+			}
+		} else if (state == State.CLOSED) {
+			record(false);
+		}
+	}
+
+
+	public synchronized void onFailure() {
+		if (state == State.HALF_OPEN) {
+			open();
+		} else if (state == State.CLOSED) {
+			record(true);
+			if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+				open();
+			}
+		}
+	}
+
+
+	/** Records a granted call whose outcome says nothing of the service, such as a caller interrupted while waiting. */
+	public synchronized void onIgnored() {
+		if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+			trialsStarted--;
+		}
+	}
+
+
+	public synchronized State getState() {
+		return state;
+	}
+
+
+	private void record(boolean failed) {
+		if (recorded == outcomes.length) {
+			if (outcomes[next]) {
+				failures--;
+			}
+		} else {
+			recorded++;
+		}
+		outcomes[next] = failed;
+		if (failed) {
+			failures++;
+		}
+		next = (next + 1) % outcomes.length;
+	}
+
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = nanoClock.getAsLong();
+	}
+
+
+	// NOTE : the calls made before the circuit opened say nothing of the recovered service
+	private void close() {
+		state = State.CLOSED;
+		recorded = 0;
+		next = 0;
+		failures = 0;
+	}
+}
@@ -0,0 +1,198 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Bulkhead, timeout and circuit breaker of each upstream service, bound from the
+ * {@code tourguide.resilience.*} properties.
+ *
+ * @see UpstreamGuard
+ */
+@ConfigurationProperties(prefix = "tourguide.resilience")
+public class ResilienceProperties {
+
+	private boolean enabled = true;
+
+	// NOTE : each bulkhead is at least as large as the threads calling it, so that it only ever turns away
+	// calls above the pools feeding it: GpsUtil is called by the tracking pool (256) and the request threads (200),
+	// RewardCentral by the upstream pool (512), TripPricer by the upstream pool and the request threads
+	private Policy gps = new Policy(512, Duration.ofSeconds(5));
+
+	private Policy rewards = new Policy(512, Duration.ofSeconds(5));
+
+	private Policy tripPricer = new Policy(768, Duration.ofSeconds(10));
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Policy getGps() {
+		return gps;
+	}
+
+	public void setGps(Policy gps) {
+		this.gps = gps;
+	}
+
+	public Policy getRewards() {
+		return rewards;
+	}
+
+	public void setRewards(Policy rewards) {
+		this.rewards = rewards;
+	}
+
+	public Policy getTripPricer() {
+		return tripPricer;
+	}
+
+	public void setTripPricer(Policy tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+
+	public static class Policy {
+
+		/** Calls running at once; the following ones wait up to {@code maxWait}, then are rejected. */
+		private int maxConcurrentCalls;
+
+		/** Defaults to {@code maxTimeout}, the longest a call in flight holds its permit before its caller gives up. */
+		private Duration maxWait;
+
+		/** Percentile of the latencies of the latest successful calls the timeout is derived from. */
+		private double timeoutPercentile = 0.99;
+
+		/** The timeout is this many times the percentile, within {@code minTimeout} and {@code maxTimeout}. */
+		private double timeoutMultiplier = 3;
+
+		private Duration minTimeout = Duration.ofSeconds(1);
+
+		/** Also the timeout until {@code latencyWindow / 5} calls succeeded. */
+		private Duration maxTimeout;
+
+		/** Latest successful calls whose latency is kept. */
+		private int latencyWindow = 200;
+
+		/** The circuit opens when this share of the latest {@code slidingWindow} calls, at least {@code minimumCalls}, failed or timed out. */
+		private double failureRateThreshold = 0.5;
+
+		private int slidingWindow = 100;
+
+		private int minimumCalls = 20;
+
+		/** Time the circuit stays open, before {@code halfOpenCalls} trial calls tell whether it closes. */
+		private Duration openDuration = Duration.ofSeconds(30);
+
+		private int halfOpenCalls = 5;
+
+		public Policy() {
+		}
+
+		public Policy(int maxConcurrentCalls, Duration maxTimeout) {
+			this.maxConcurrentCalls = maxConcurrentCalls;
+			this.maxTimeout = maxTimeout;
+			this.maxWait = maxTimeout;
+		}
+
+		public int getMaxConcurrentCalls() {
+			return maxConcurrentCalls;
+		}
+
+		public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+			this.maxConcurrentCalls = maxConcurrentCalls;
+		}
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+		public double getTimeoutPercentile() {
+			return timeoutPercentile;
+		}
+
+		public void setTimeoutPercentile(double timeoutPercentile) {
+			this.timeoutPercentile = timeoutPercentile;
+		}
+
+		public double getTimeoutMultiplier() {
+			return timeoutMultiplier;
+		}
+
+		public void setTimeoutMultiplier(double timeoutMultiplier) {
+			this.timeoutMultiplier = timeoutMultiplier;
+		}
+
+		public Duration getMinTimeout() {
+			return minTimeout;
+		}
+
+		public void setMinTimeout(Duration minTimeout) {
+			this.minTimeout = minTimeout;
+		}
+
+		public Duration getMaxTimeout() {
+			return maxTimeout;
+		}
+
+		public void setMaxTimeout(Duration maxTimeout) {
+			this.maxTimeout = maxTimeout;
+		}
+
+		public int getLatencyWindow() {
+			return latencyWindow;
+		}
+
+		public void setLatencyWindow(int latencyWindow) {
+			this.latencyWindow = latencyWindow;
+		}
+
+		public double getFailureRateThreshold() {
+			return failureRateThreshold;
+		}
+
+		public void setFailureRateThreshold(double failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+		}
+
+		public int getSlidingWindow() {
+			return slidingWindow;
+		}
+
+		public void setSlidingWindow(int slidingWindow) {
+			this.slidingWindow = slidingWindow;
+		}
+
+		public int getMinimumCalls() {
+			return minimumCalls;
+		}
+
+		public void setMinimumCalls(int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+		}
+
+		public Duration getOpenDuration() {
+			return openDuration;
+		}
+
+		public void setOpenDuration(Duration openDuration) {
+			this.openDuration = openDuration;
+		}
+
+		public int getHalfOpenCalls() {
+			return halfOpenCalls;
+		}
+
+		public void setHalfOpenCalls(int halfOpenCalls) {
+			this.halfOpenCalls = halfOpenCalls;
+		}
+	}
+}
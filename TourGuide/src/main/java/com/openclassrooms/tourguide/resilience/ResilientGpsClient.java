@@ -0,0 +1,40 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.GpsClient;
+
+/** {@link GpsClient} decorator calling GpsUtil through its {@link UpstreamGuard}.
+ *
+ * <p>A call which is refused, times out or fails throws an {@link com.openclassrooms.tourguide.client.UpstreamException}
+ * at once. The fallback on the last known location of a user is left to
+ * {@link com.openclassrooms.tourguide.service.TourGuideService#trackUser(com.openclassrooms.tourguide.user.User)},
+ * which has it in the user's history; the attraction catalogue has no fallback, since the
+ * {@link com.openclassrooms.tourguide.geo.AttractionCatalog} keeps its snapshot when a refresh fails.</p>
+ */
+public class ResilientGpsClient implements GpsClient {
+
+	private final GpsClient delegate;
+	private final UpstreamGuard guard;
+
+
+	public ResilientGpsClient(GpsClient delegate, UpstreamGuard guard) {
+		this.delegate = delegate;
+		this.guard = guard;
+	}
+
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return guard.call(() -> delegate.getUserLocation(userId), () -> null);
+	}
+
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return guard.call(delegate::getAttractions, () -> null);
+	}
+}
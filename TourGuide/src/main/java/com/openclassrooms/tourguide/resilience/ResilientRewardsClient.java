@@ -0,0 +1,41 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+import com.openclassrooms.tourguide.client.RewardsClient;
+
+/** {@link RewardsClient} decorator calling RewardCentral through its {@link UpstreamGuard}.
+ *
+ * <p>When RewardCentral does not answer in time, or its circuit is open, the points last known for the
+ * attraction and the user are answered, such as an expired entry of the reward points cache; a lookup
+ * without known points fails, and its location is checked again by the next rewards calculation.</p>
+ *
+ * @see com.openclassrooms.tourguide.cache.ExpiringCache#peek(Object)
+ */
+public class ResilientRewardsClient implements RewardsClient {
+
+	private final RewardsClient delegate;
+	private final UpstreamGuard guard;
+	private final BiFunction<UUID, UUID, Integer> knownPoints;
+
+
+	/** Creates a client.
+	 *
+	 * @param delegate the client of RewardCentral
+	 * @param guard the guard of RewardCentral
+	 * @param knownPoints gives the points last known for an attraction and a user, or {@code null}, without blocking
+	 */
+	public ResilientRewardsClient(RewardsClient delegate, UpstreamGuard guard, BiFunction<UUID, UUID, Integer> knownPoints) {
+		this.delegate = delegate;
+		this.guard = guard;
+		this.knownPoints = knownPoints;
+	}
+
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return guard.call(() -> delegate.getAttractionRewardPoints(attractionId, userId),
+				() -> knownPoints.apply(attractionId, userId));
+	}
+}
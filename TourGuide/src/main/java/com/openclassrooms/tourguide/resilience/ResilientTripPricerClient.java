@@ -0,0 +1,30 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.client.TripPricerClient;
+
+/** {@link TripPricerClient} decorator calling TripPricer through its {@link UpstreamGuard}.
+ *
+ * <p>There is no fallback here: the deals last priced for a user are already served while they are fresh,
+ * see {@link com.openclassrooms.tourguide.service.TourGuideService#getTripDeals(com.openclassrooms.tourguide.user.User)}.</p>
+ */
+public class ResilientTripPricerClient implements TripPricerClient {
+
+	private final TripPricerClient delegate;
+	private final UpstreamGuard guard;
+
+
+	public ResilientTripPricerClient(TripPricerClient delegate, UpstreamGuard guard) {
+		this.delegate = delegate;
+		this.guard = guard;
+	}
+
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+		return guard.call(() -> delegate.getPrice(apiKey, userId, adults, children, nightsStay, rewardsPoints), () -> null);
+	}
+}
@@ -0,0 +1,179 @@
+package com.openclassrooms.tourguide.resilience;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.openclassrooms.tourguide.client.UpstreamException;
+
+/** Bulkhead, adaptive timeout and circuit breaker of one upstream service.
+ *
+ * <p>A call takes a permit of the {@link Bulkhead}, then asks the {@link CircuitBreaker}, runs on the
+ * threads of the bulkhead and is waited for up to the {@link AdaptiveTimeout}. A call refused by the
+ * bulkhead or by the open circuit, a call which timed out and a call which failed all end the same
+ * way, at once: with the fallback value when there is one, or else with an {@link UpstreamException}.
+ * Only the timeouts and the failures count against the circuit.</p>
+ *
+ * <p>The latency of every call answering successfully is a sample of the timeout, also when its caller
+ * has stopped waiting for it, so that the timeout follows a service getting slower.</p>
+ *
+ * @see ResilienceProperties.Policy
+ */
+public class UpstreamGuard implements AutoCloseable {
+
+	private final String name;
+	private final Bulkhead bulkhead;
+	private final AdaptiveTimeout timeout;
+	private final CircuitBreaker circuitBreaker;
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder shortCircuited = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+
+	/** Creates the guard of a service.
+	 *
+	 * @param name name of the service, in the exception messages and the thread names
+	 * @param policy sizes of the bulkhead, the timeout and the circuit breaker
+	 * @param nanoClock times the open circuit
+	 */
+	public UpstreamGuard(String name, ResilienceProperties.Policy policy, LongSupplier nanoClock) {
+		this(name, new Bulkhead(name, policy.getMaxConcurrentCalls(), policy.getMaxWait()), new AdaptiveTimeout(policy),
+				new CircuitBreaker(policy, nanoClock));
+	}
+
+
+	public UpstreamGuard(String name, Bulkhead bulkhead, AdaptiveTimeout timeout, CircuitBreaker circuitBreaker) {
+		this.name = name;
+		this.bulkhead = bulkhead;
+		this.timeout = timeout;
+		this.circuitBreaker = circuitBreaker;
+	}
+
+
+	/** Calls the service, or answers the fallback value.
+	 *
+	 * @param call the upstream call
+	 * @param fallback gives the fallback value, or {@code null} if there is none; called only when
+	 *                 the call was refused, timed out or failed, and must not block
+	 * @return the answer of the service, or the fallback value
+	 * @throws UpstreamException if the call was refused, timed out or failed without a fallback value;
+	 *         the exception of a failed call is rethrown as is
+	 */
+	public <T> T call(Supplier<T> call, Supplier<T> fallback) {
+		try {
+			if (!bulkhead.tryAcquire()) {
+				rejected.increment();
+				return fallback(fallback, new UpstreamException(name + " has too many calls in flight"));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UpstreamException(name + " call interrupted", e);
+		}
+		if (!circuitBreaker.tryAcquire()) {
+			bulkhead.release();
+			shortCircuited.increment();
+			return fallback(fallback, new UpstreamException(name + " circuit is open"));
+		}
+
+		FutureTask<T> task = bulkhead.submit(timed(call));
+		long timeoutNanos = timeout.getNanos();
+		try {
+			T answer = task.get(timeoutNanos, TimeUnit.NANOSECONDS);
+			circuitBreaker.onSuccess();
+			return answer;
+		} catch (TimeoutException e) {
+			circuitBreaker.onFailure();
+			timedOut.increment();
+			return fallback(fallback, new UpstreamException(name + " did not answer within "
+					+ TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms"));
+		} catch (ExecutionException e) {
+			circuitBreaker.onFailure();
+			failed.increment();
+			RuntimeException failure = e.getCause() instanceof RuntimeException runtimeException
+					? runtimeException : new UpstreamException(name + " call failed", e.getCause());
+			return fallback(fallback, failure);
+		} catch (InterruptedException e) {
+			circuitBreaker.onIgnored();
+			Thread.currentThread().interrupt();
+			throw new UpstreamException(name + " call interrupted", e);
+		}
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+
+	public CircuitBreaker.State getCircuitState() {
+		return circuitBreaker.getState();
+	}
+
+
+	public Bulkhead getBulkhead() {
+		return bulkhead;
+	}
+
+
+	public AdaptiveTimeout getTimeout() {
+		return timeout;
+	}
+
+
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+
+	public long getShortCircuitedCount() {
+		return shortCircuited.sum();
+	}
+
+
+	public long getTimedOutCount() {
+		return timedOut.sum();
+	}
+
+
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+
+	public long getFallbackCount() {
+		return fallbacks.sum();
+	}
+
+
+	@Override
+	public void close() {
+		bulkhead.close();
+	}
+
+
+	private <T> Callable<T> timed(Supplier<T> call) {
+		return () -> {
+			long start = System.nanoTime();
+			T answer = call.get();
+			timeout.record(System.nanoTime() - start);
+			return answer;
+		};
+	}
+
+
+	private <T> T fallback(Supplier<T> fallback, RuntimeException failure) {
+		T value = fallback.get();
+		if (value == null) {
+			throw failure;
+		}
+		fallbacks.increment();
+		return value;
+	}
+}
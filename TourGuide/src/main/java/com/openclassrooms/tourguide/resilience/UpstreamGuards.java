@@ -0,0 +1,44 @@
+package com.openclassrooms.tourguide.resilience;
+
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+
+/** Guards of GpsUtil, RewardCentral and TripPricer, each with its own bulkhead threads.
+ *
+ * @see ResilienceProperties
+ */
+public class UpstreamGuards implements AutoCloseable {
+
+	private final UpstreamGuard gps;
+	private final UpstreamGuard rewards;
+	private final UpstreamGuard tripPricer;
+
+
+	public UpstreamGuards(ResilienceProperties properties) {
+		this.gps = new UpstreamGuard(TourGuideMetrics.GPS_UTIL, properties.getGps(), System::nanoTime);
+		this.rewards = new UpstreamGuard(TourGuideMetrics.REWARD_CENTRAL, properties.getRewards(), System::nanoTime);
+		this.tripPricer = new UpstreamGuard(TourGuideMetrics.TRIP_PRICER, properties.getTripPricer(), System::nanoTime);
+	}
+
+
+	public UpstreamGuard gps() {
+		return gps;
+	}
+
+
+	public UpstreamGuard rewards() {
+		return rewards;
+	}
+
+
+	public UpstreamGuard tripPricer() {
+		return tripPricer;
+	}
+
+
+	@Override
+	public void close() {
+		gps.close();
+		rewards.close();
+		tripPricer.close();
+	}
+}
@@ -0,0 +1,144 @@
+package com.openclassrooms.tourguide.retention;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.User;
+
+/** Keeps the location history of each user bounded, whatever the uptime.
+ *
+ * <p>A compaction drops, in this order, the locations older than the time to live, the locations
+ * closer than {@code minDistanceMeters} to the previous location kept, and then the oldest locations
+ * beyond {@code maxLocations}. Only locations already checked for rewards are candidates, and the
+ * last visited location is always kept, so rewards and {@link User#getLastVisitedLocation()} are
+ * not affected. A compaction runs under the user's rewards lock, once every {@code compactEvery}
+ * new locations.</p>
+ *
+ * @see RetentionProperties
+ * @see LocationHistory#retain(long, BitSet)
+ */
+public class LocationRetention {
+
+	private final Logger logger = LoggerFactory.getLogger(LocationRetention.class);
+	private final RetentionProperties properties;
+	private final LongSupplier clock;
+	private final LongAdder compactions = new LongAdder();
+	private final LongAdder locationsDropped = new LongAdder();
+	private final LongAdder bytesReclaimed = new LongAdder();
+
+
+	public LocationRetention(RetentionProperties properties) {
+		this(properties, System::currentTimeMillis);
+	}
+
+
+	/** Creates a retention engine reading the time from the given clock.
+	 *
+	 * @param properties the retention policy
+	 * @param clock source of the current epoch millis, replaceable in tests
+	 */
+	public LocationRetention(RetentionProperties properties, LongSupplier clock) {
+		this.properties = properties;
+		this.clock = clock;
+	}
+
+
+	/** Compacts the history of a user if enough locations were added since its last compaction.
+	 *
+	 * @param user the user
+	 * @return the number of locations dropped
+	 */
+	public int compactIfDue(User user) {
+		LocationHistory history = user.getLocationHistory();
+		if (!properties.isEnabled() || history.endIndex() - history.retainedUpTo() < properties.getCompactEvery()) {
+			return 0;
+		}
+		return compact(user);
+	}
+
+
+	/** Compacts the history of a user.
+	 *
+	 * @param user the user
+	 * @return the number of locations dropped
+	 */
+	public int compact(User user) {
+		LocationHistory history = user.getLocationHistory();
+		user.getRewardsLock().lock();
+		try {
+			long end = history.endIndex();
+			long from = history.firstIndex();
+			long upTo = Math.min(user.getRewardWatermark(), end - 1);
+			if (upTo <= from) {
+				return 0;
+			}
+
+			BitSet keep = selectKept(history, from, upTo);
+			long excess = keep.cardinality() + (end - upTo) - properties.getMaxLocations();
+			for (int i = keep.nextSetBit(0); excess > 0 && i >= 0; i = keep.nextSetBit(i + 1)) {
+				keep.clear(i);
+				excess--;
+			}
+
+			long footprint = history.footprintBytes();
+			int dropped = history.retain(upTo, keep);
+			long reclaimed = Math.max(0, footprint - history.footprintBytes());
+			compactions.increment();
+			locationsDropped.add(dropped);
+			bytesReclaimed.add(reclaimed);
+			if (dropped > 0) {
+				logger.debug("Dropped {} locations of {}, {} bytes reclaimed", dropped, user.getUserName(), reclaimed);
+			}
+			return dropped;
+		} finally {
+			user.getRewardsLock().unlock();
+		}
+	}
+
+
+	public long getCompactions() {
+		return compactions.sum();
+	}
+
+
+	public long getLocationsDropped() {
+		return locationsDropped.sum();
+	}
+
+
+	/** Returns the estimated heap reclaimed by the chunks freed so far, see {@link LocationHistory#CHUNK_BYTES}. */
+	public long getBytesReclaimed() {
+		return bytesReclaimed.sum();
+	}
+
+
+	private BitSet selectKept(LocationHistory history, long from, long upTo) {
+		BitSet keep = new BitSet((int) (upTo - from));
+		long oldestTime = clock.getAsLong() - properties.getTimeToLive().toMillis();
+		double minDistance = properties.getMinDistanceMeters() / GeoDistance.METERS_PER_STATUTE_MILE;
+		double previousLatitude = Double.NaN;
+		double previousLongitude = Double.NaN;
+		for (long index = from; index < upTo; index++) {
+			long time = history.timeMillis(index);
+			if (time != Long.MIN_VALUE && time < oldestTime) {
+				continue;
+			}
+			double latitude = history.latitude(index);
+			double longitude = history.longitude(index);
+			if (minDistance > 0 && !Double.isNaN(previousLatitude)
+					&& GeoDistance.isWithin(GeoDistance.statuteMiles(previousLatitude, previousLongitude, latitude, longitude), minDistance)) {
+				continue;
+			}
+			keep.set((int) (index - from));
+			previousLatitude = latitude;
+			previousLongitude = longitude;
+		}
+		return keep;
+	}
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.tourguide.retention;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Retention of the visited locations, bound from the {@code tourguide.location-retention.*} properties.
+ *
+ * @see LocationRetention
+ */
+@ConfigurationProperties(prefix = "tourguide.location-retention")
+public class RetentionProperties {
+
+	private boolean enabled = true;
+
+	/** Locations older than this are dropped. */
+	private Duration timeToLive = Duration.ofDays(30);
+
+	/** Maximum number of locations kept per user. */
+	private int maxLocations = 2_000;
+
+	/** A location closer than this to the previous location kept is dropped; 0 keeps every location. */
+	private double minDistanceMeters = 50;
+
+	/** Number of locations appended to a history between two compactions. */
+	private int compactEvery = 32;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public int getMaxLocations() {
+		return maxLocations;
+	}
+
+	public void setMaxLocations(int maxLocations) {
+		this.maxLocations = maxLocations;
+	}
+
+	public double getMinDistanceMeters() {
+		return minDistanceMeters;
+	}
+
+	public void setMinDistanceMeters(double minDistanceMeters) {
+		this.minDistanceMeters = minDistanceMeters;
+	}
+
+	public int getCompactEvery() {
+		return compactEvery;
+	}
+
+	public void setCompactEvery(int compactEvery) {
+		this.compactEvery = compactEvery;
+	}
+}
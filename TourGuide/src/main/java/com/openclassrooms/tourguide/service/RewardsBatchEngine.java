@@ -0,0 +1,19 @@
+package com.openclassrooms.tourguide.service;
+
+/** How {@link RewardsService#calculateAllUsersRewards(java.util.Collection)} matches the visited
+ * locations against the attractions. Every engine finds the same rewards.
+ */
+public enum RewardsBatchEngine {
+
+	/** Each user is matched on its own, by looking its locations up in the attraction index. */
+	PER_USER,
+
+	/** The unchecked locations of every user are indexed once, in a throwaway grid, and looked up
+	 * around each attraction in parallel: cheaper when there are many more locations than attractions. */
+	ATTRACTION_CENTRIC,
+
+	/** Each user is matched on its own, on a {@link java.util.concurrent.ForkJoinPool}: the users are
+	 * split into chunks, down to a size adapted to the idle workers, which steal each other's chunks,
+	 * and the progress is reported per chunk. */
+	FORK_JOIN
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.service;
+
+/** Progress of {@link RewardsService#calculateAllUsersRewards(java.util.Collection, java.util.function.Consumer)},
+ * reported each time a chunk of users is done.
+ *
+ * @param chunkUsers users of the chunk
+ * @param chunkRewards rewards added to the users of the chunk
+ * @param chunkFailures failed calculations of the chunk
+ * @param usersDone users of the batch done so far, this chunk included
+ * @param totalUsers users of the batch
+ */
+public record RewardsBatchProgress(int chunkUsers, int chunkRewards, int chunkFailures, int usersDone, int totalUsers) {
+}
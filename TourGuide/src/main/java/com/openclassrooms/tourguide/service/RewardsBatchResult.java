@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+
+/** Outcome of {@link RewardsService#calculateAllUsersRewards(java.util.Collection)}.
+ *
+ * @param usersProcessed users whose calculation completed, successfully or not, before the time limit
+ * @param rewardsGranted rewards added to the users
+ * @param failures calculations which failed, their locations being checked again by the next one
+ * @param elapsed time from the call to the completion of the last calculation, or to the time limit
+ */
+public record RewardsBatchResult(int usersProcessed, int rewardsGranted, int failures, Duration elapsed) {
+}
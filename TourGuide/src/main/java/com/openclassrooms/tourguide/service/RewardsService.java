@@ -1,8 +1,17 @@
 package com.openclassrooms.tourguide.service;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
@@ -10,26 +19,126 @@ import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.client.GpsClient;
+import com.openclassrooms.tourguide.client.RewardPointsGateway;
+import com.openclassrooms.tourguide.client.RewardsClient;
+import com.openclassrooms.tourguide.client.VendorGpsClient;
+import com.openclassrooms.tourguide.client.VendorRewardsClient;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+import com.openclassrooms.tourguide.geo.AttractionCatalog;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.geo.LocationGrid;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.user.LocationHistory;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
 @Service
 public class RewardsService {
-    private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+
+	private final Logger logger = LoggerFactory.getLogger(RewardsService.class);
+
+	static final int MIN_FORK_JOIN_CHUNK = 32;
 
 	// NOTE : proximity in miles
     private int defaultProximityBuffer = 10;
 	private int proximityBuffer = defaultProximityBuffer;
 	private int attractionProximityRange = 200;
-	private final GpsUtil gpsUtil;
-	private final RewardCentral rewardsCentral;
-	private final ExecutorService executorService = Executors.newFixedThreadPool(512);
+	private final RewardPointsGateway rewardPointsGateway;
+	private final AttractionCatalog attractionCatalog;
+	private final Executor matchExecutor;
+	private final Executor commitExecutor;
+	private final ForkJoinPool forkJoinPool;
+	private TourGuideMetrics metrics = TourGuideMetrics.noop();
+	private volatile RewardsBatchEngine batchEngine = RewardsBatchEngine.PER_USER;
+	private volatile Duration batchTimeout = Duration.ofMinutes(20);
 
 
 	
 	public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral) {
-		this.gpsUtil = gpsUtil;
-		this.rewardsCentral = rewardCentral;
+		this(new VendorGpsClient(gpsUtil), new VendorRewardsClient(rewardCentral));
+	}
+
+
+	public RewardsService(GpsClient gpsClient, RewardsClient rewardsClient) {
+		this(gpsClient, new RewardPointsGateway(rewardsClient,
+						TourGuideExecutors.newPool(TourGuideExecutors.UPSTREAM, new ExecutorProperties().getUpstream())),
+				TourGuideExecutors.newPool(TourGuideExecutors.REWARDS, new ExecutorProperties().getRewards()),
+				TourGuideExecutors.newPool(TourGuideExecutors.COMMIT, new ExecutorProperties().getCommit()));
+	}
+
+
+	public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral, TourGuideExecutors executors) {
+		this(new VendorGpsClient(gpsUtil), new VendorRewardsClient(rewardCentral), executors);
+	}
+
+
+	public RewardsService(GpsClient gpsClient, RewardsClient rewardsClient, TourGuideExecutors executors) {
+		this(gpsClient, new RewardPointsGateway(rewardsClient, executors.upstream()), executors);
+	}
+
+
+	public RewardsService(GpsClient gpsClient, RewardPointsGateway rewardPointsGateway, TourGuideExecutors executors) {
+		this(new AttractionCatalog(gpsClient), rewardPointsGateway, executors);
+	}
+
+
+	@Autowired
+	public RewardsService(AttractionCatalog attractionCatalog, RewardPointsGateway rewardPointsGateway,
+			TourGuideExecutors executors) {
+		this(attractionCatalog, rewardPointsGateway, executors.rewards(), executors.commit(), executors.forkJoin());
+	}
+
+
+	/** Creates a service running the match and commit stages of its pipeline on the same executor.
+	 *
+	 * @see #RewardsService(GpsClient, RewardPointsGateway, Executor, Executor)
+	 */
+	public RewardsService(GpsClient gpsClient, RewardPointsGateway rewardPointsGateway, Executor executor) {
+		this(gpsClient, rewardPointsGateway, executor, executor);
+	}
+
+
+	/** Creates a service over an attraction catalogue loaded once from the GPS client, and not refreshed.
+	 *
+	 * @see #RewardsService(AttractionCatalog, RewardPointsGateway, Executor, Executor)
+	 */
+	public RewardsService(GpsClient gpsClient, RewardPointsGateway rewardPointsGateway, Executor matchExecutor,
+			Executor commitExecutor) {
+		this(new AttractionCatalog(gpsClient), rewardPointsGateway, matchExecutor, commitExecutor);
+	}
+
+
+	/** Creates a service splitting its {@link RewardsBatchEngine#FORK_JOIN} batches on a fork/join pool of its own.
+	 *
+	 * @see #RewardsService(AttractionCatalog, RewardPointsGateway, Executor, Executor, ForkJoinPool)
+	 */
+	public RewardsService(AttractionCatalog attractionCatalog, RewardPointsGateway rewardPointsGateway,
+			Executor matchExecutor, Executor commitExecutor) {
+		this(attractionCatalog, rewardPointsGateway, matchExecutor, commitExecutor,
+				TourGuideExecutors.newForkJoinPool(new ExecutorProperties().getForkJoinParallelism()));
+	}
+
+
+	/** Creates a service.
+	 *
+	 * @param attractionCatalog the attraction catalogue, whose current snapshot is taken by each proximity match
+	 * @param rewardPointsGateway the gateway looking the reward points up, on its own upstream executor
+	 * @param matchExecutor runs the proximity match of the users' locations against the attractions
+	 * @param commitExecutor adds the rewards to the users once their points are known
+	 * @param forkJoinPool splits the batches of the {@link RewardsBatchEngine#FORK_JOIN} engine
+	 *
+	 * @see #calculateRewardsAsync(User)
+	 */
+	public RewardsService(AttractionCatalog attractionCatalog, RewardPointsGateway rewardPointsGateway,
+			Executor matchExecutor, Executor commitExecutor, ForkJoinPool forkJoinPool) {
+		this.attractionCatalog = attractionCatalog;
+		this.rewardPointsGateway = rewardPointsGateway;
+		this.matchExecutor = matchExecutor;
+		this.commitExecutor = commitExecutor;
+		this.forkJoinPool = forkJoinPool;
 	}
 
 
@@ -43,98 +152,618 @@ public class RewardsService {
 	}
 
 
-	/** Calculates rewards for a user based on their visited locations and nearby attractions.
-	 * This method checks each visited location of the user against a list of attractions
-	 * to determine if the user qualifies for a reward. If a user is near an attraction
-	 * and has not already received a reward for it, a new reward is created and added
-	 * to the user's rewards list.
+	@Autowired(required = false)
+	public void setMetrics(TourGuideMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+
+	/** Selects the engine of {@link #calculateAllUsersRewards(Collection)}; {@link RewardsBatchEngine#PER_USER}
+	 * by default.
 	 *
-	 * <p>This method uses a thread-safe copy of the user's visited locations to avoid
-	 * {@link java.util.ConcurrentModificationException}. It also checks for existing rewards
-	 * to prevent duplicate rewards for the same attraction.</p>
+	 * @param batchEngine the engine
+	 */
+	@Value("${tourguide.rewards.batch-engine:PER_USER}")
+	public void setBatchEngine(RewardsBatchEngine batchEngine) {
+		this.batchEngine = batchEngine;
+	}
+
+
+	public RewardsBatchEngine getBatchEngine() {
+		return batchEngine;
+	}
+
+
+	/** Sets how long {@link #calculateAllUsersRewards(Collection)} waits for its users; 20 minutes by default.
+	 *
+	 * @param batchTimeout the wait, after which the users not done yet are left running and the batch returns
+	 *
+	 * @see com.openclassrooms.tourguide.job.BatchJobProperties#getBatchTimeout()
+	 */
+	public void setBatchTimeout(Duration batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
+
+	/** Returns the index of the current snapshot of the attraction catalogue. */
+	public AttractionIndex getAttractionIndex() {
+		return attractionCatalog.current();
+	}
+
+
+	public AttractionCatalog getAttractionCatalog() {
+		return attractionCatalog;
+	}
+
+
+	/** Calculates rewards for a user based on the locations visited since the last calculation,
+	 * and waits for them.
 	 *
 	 * <p><b>Note:</b> This method is designed to be used in a multi-threaded environment.
-	 * Each user's rewards are calculated independently, and the method handles thread
-	 * interruptions gracefully.</p>
+	 * Calculations for the same user are serialized, so that when the method returns, every location
+	 * visited before the call has been checked, whichever thread did it.</p>
 	 *
 	 * @param user The user for whom rewards are to be calculated.
+	 * @throws RuntimeException the exception of a failed reward points lookup, whose location is
+	 *         checked again by the next calculation
 	 *
-	 * @see User
-	 * @see VisitedLocation
-	 * @see Attraction
-	 * @see UserReward
+	 * @see #calculateRewardsAsync(User)
 	 */
 	public void calculateRewards(User user) {
-		CopyOnWriteArrayList<VisitedLocation> userLocations = new CopyOnWriteArrayList<>(user.getVisitedLocations());
-		List<Attraction> attractions = gpsUtil.getAttractions();
-
-		for (VisitedLocation visitedLocation : userLocations) {
-			for (Attraction attraction : attractions) {
-				if (user.getUserRewards().stream().noneMatch(r -> r.attraction.attractionName.equals(attraction.attractionName))) {
-					if (nearAttraction(visitedLocation, attraction)) {
-						UserReward reward = new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user));
-						user.addUserReward(reward);
-					}
-				}
+		try {
+			calculateRewardsAsync(user).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
 			}
+			throw e;
 		}
 	}
 
 
+	/** Calculates rewards for a user based on the locations visited since the last calculation,
+	 * without blocking the calling thread. The calculation is a pipeline of three stages, each on
+	 * its own bounded executor:
+	 * <ol>
+	 * <li>proximity match, on the rewards executor: the visited locations that have not been checked
+	 * yet are read straight from the columns of the user's {@link LocationHistory}, and the
+	 * {@link AttractionIndex} gives the attractions within {@code proximityBuffer} miles of each of
+	 * them which the user has not been rewarded for;</li>
+	 * <li>points lookup, on the upstream executor of the {@link RewardPointsGateway}, which asks for
+	 * the reward points of every match of the user, and of the other users matched meanwhile, in one batch;</li>
+	 * <li>reward commit, on the commit executor, once every lookup has been answered: the new
+	 * rewards are added to the user and the locations are marked as checked.</li>
+	 * </ol>
+	 * No stage waits for another: each one is started by the completion of the previous, and a full
+	 * executor queue makes the thread completing the previous stage run the next itself, which slows
+	 * the upstream stages down.
+	 *
+	 * <p>Attractions already rewarded are left out, with a constant-time lookup by catalogue position
+	 * ({@link User#hasRewardForAttraction(int)}), before any distance is computed, and once the user
+	 * has been rewarded for every attraction, the remaining locations are simply discarded.
+	 * If a lookup fails, the rewards found before it are kept and its location is checked again by
+	 * the next calculation.</p>
+	 *
+	 * <p>Calculations for the same user are queued one after the other, see
+	 * {@link User#queueRewardsCalculation(java.util.function.Supplier)}.</p>
+	 *
+	 * @param user The user for whom rewards are to be calculated.
+	 * @return a future completed with the rewards added by this calculation, or exceptionally with
+	 *         the exception of a failed reward points lookup
+	 *
+	 * @see User#getRewardWatermark()
+	 * @see User#getRewardsLock()
+	 * @see VisitedLocation
+	 * @see Attraction
+	 * @see UserReward
+	 * @see AttractionIndex
+	 */
+	public CompletableFuture<List<UserReward>> calculateRewardsAsync(User user) {
+		return user.queueRewardsCalculation(() -> {
+			long start = System.nanoTime();
+			return CompletableFuture
+					.supplyAsync(() -> matchRewards(user), matchExecutor)
+					.thenCompose(RewardMatch::lookedUp)
+					.thenApplyAsync(match -> commitRewards(user, match), commitExecutor)
+					.whenComplete((added, e) -> metrics.recordRewardsCalculation(System.nanoTime() - start, e == null));
+		});
+	}
+
+
 	/**
-	 * Calculates rewards for all users in the provided list by submitting each user's
-	 * reward calculation task to an {@link java.util.concurrent.ExecutorService}.
-	 * This method initiates the reward calculation process for each user in parallel
-	 * and waits for the completion of all tasks within a specified time limit.
+	 * Calculates rewards for all users in the provided list, through the pipeline of
+	 * {@link #calculateRewardsAsync(User)}, and waits for the completion of all of them within
+	 * a specified time limit.
+	 *
+	 * @param users The users for whom rewards are to be calculated.
+	 * @return the users processed, the rewards granted, the failures and the elapsed time
+	 *
+	 * @see #calculateAllUsersRewards(Collection, Consumer)
+	 */
+	public RewardsBatchResult calculateAllUsersRewards(Collection<User> users) {
+		return calculateAllUsersRewards(users, progress -> { });
+	}
+
+
+	/**
+	 * Calculates rewards for all users in the provided list, through the pipeline of
+	 * {@link #calculateRewardsAsync(User)}, and waits for the completion of all of them within
+	 * a specified time limit.
+	 *
+	 * <p>The proximity match is made by the {@link #setBatchEngine(RewardsBatchEngine) selected engine}.
+	 * With {@link RewardsBatchEngine#ATTRACTION_CENTRIC}, the locations not checked yet of every user
+	 * are first gathered into a throwaway {@link LocationGrid}, which is queried around each attraction
+	 * in parallel on the rewards executor; each user's matches are then replayed, in the order of its
+	 * locations, with the same exclusions as the per-user match, so both engines find the same rewards.
+	 * The locations visited meanwhile are left to the next calculation, and a user whose rewards were
+	 * calculated meanwhile is matched on its own.</p>
+	 *
+	 * <p>With {@link RewardsBatchEngine#FORK_JOIN}, the matches are made by a {@link RecursiveAction}
+	 * on a dedicated {@link ForkJoinPool}, instead of one task per user on the rewards executor: the
+	 * user list is split in halves as long as the workers have no surplus of queued chunks, and
+	 * down to {@value #MIN_FORK_JOIN_CHUNK} users, so that idle workers steal large chunks and busy
+	 * ones run small ones. A chunk only matches its users and starts their lookups, it never waits
+	 * for them, and its progress is reported once its last user is committed. The other engines
+	 * report a single progress, for the whole batch.</p>
+	 *
+	 * <p>The executors are bounded: once a queue is full, its backpressure policy slows the
+	 * submission down. They are not shut down, so the method can be called any number of times.</p>
 	 *
 	 * <p>If the tasks do not complete within the specified time, a warning message is printed.
 	 * In case of thread interruption, the method restores the interrupt status of the thread
 	 * and prints an error message.</p>
 	 *
-	 * @param users The list of users for whom rewards are to be calculated.
+	 * @param users The users for whom rewards are to be calculated.
+	 * @param progressListener called with the progress of each chunk of users, from the thread
+	 *                         committing its last user
+	 * @return the users processed, the rewards granted, the failures and the elapsed time
 	 *
 	 * @see User
-	 * @see java.util.concurrent.ExecutorService
+	 * @see TourGuideExecutors
 	 */
-	public void calculateAllUsersRewards(List<User> users) {
-		users.forEach(user -> executorService.submit(new Thread(() -> calculateRewards(user))));
-		executorService.shutdown();
-		try {
-			boolean terminated = executorService.awaitTermination(20, TimeUnit.MINUTES);
-			if (!terminated) {
-				System.err.println("Warning: The executor did not terminate within the specified time.");
+	public RewardsBatchResult calculateAllUsersRewards(Collection<User> users, Consumer<RewardsBatchProgress> progressListener) {
+		long start = System.nanoTime();
+		RewardsBatchEngine engine = batchEngine;
+		BatchProgress progress = new BatchProgress(users.size(), progressListener);
+		List<CompletableFuture<List<UserReward>>> futures = new ArrayList<>(users.size());
+		// NOTE : only the engines indexing the users by position copy them, the per-user one iterates the collection
+		if (engine == RewardsBatchEngine.PER_USER) {
+			for (User user : users) {
+				futures.add(track(user, calculateRewardsAsync(user), progress));
+			}
+		} else {
+			List<User> userList = List.copyOf(users);
+			List<CompletableFuture<List<UserReward>>> calculations = engine == RewardsBatchEngine.FORK_JOIN
+					? calculateRewardsForkJoin(userList, progress)
+					: calculateRewardsByAttraction(userList);
+			for (int i = 0; i < userList.size(); i++) {
+				futures.add(track(userList.get(i), calculations.get(i), progress));
 			}
+		}
+		CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+		if (engine != RewardsBatchEngine.FORK_JOIN) {
+			all = all.thenRun(() -> progress.chunkDone(futures.size(), progress.rewardsGranted(), progress.failures()));
+		}
+		Duration timeout = batchTimeout;
+		try {
+			all.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			logger.error("The rewards calculation of {} users did not complete within {}", futures.size(), timeout, e);
+		} catch (ExecutionException e) {
+			logger.error("The rewards calculation failed", e.getCause());
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
-			System.err.println("Thread was interrupted while waiting for termination: " + e.getMessage());
+			logger.warn("Interrupted while waiting for the rewards calculation", e);
 		}
+		return progress.result(Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	// NOTE : counts the user's calculation in the batch progress, and logs its failure instead of failing the batch
+	private CompletableFuture<List<UserReward>> track(User user, CompletableFuture<List<UserReward>> calculation,
+			BatchProgress progress) {
+		return calculation
+				.whenComplete(progress::userDone)
+				.exceptionally(ex -> {
+					logger.warn("Failed to calculate rewards for user {}", user.getUserName(),
+							ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+					return null;
+				});
 	}
 
 	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
 		return getDistance(attraction, location) > attractionProximityRange ? false : true;
 	}
 	
-	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) > proximityBuffer ? false : true;
+	public int getRewardPoints(Attraction attraction, UUID userId) {
+		return RewardPointsGateway.await(getRewardPointsAsync(attraction, userId));
 	}
 
-	private int getRewardPoints(Attraction attraction, User user) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+	/** Looks the reward points of an attraction up for a user, in the current batch of the {@link RewardPointsGateway}.
+	 *
+	 * @param attraction the attraction
+	 * @param userId the user
+	 * @return a future completed with the reward points
+	 */
+	public CompletableFuture<Integer> getRewardPointsAsync(Attraction attraction, UUID userId) {
+		return rewardPointsGateway.getRewardPoints(attraction.attractionId, userId);
 	}
 
-	public int getRewardPoints(Attraction attraction, UUID userId) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, userId);
+	public RewardPointsGateway getRewardPointsGateway() {
+		return rewardPointsGateway;
 	}
 
 	public double getDistance(Location loc1, Location loc2) {
-        double lat1 = Math.toRadians(loc1.latitude);
-        double lon1 = Math.toRadians(loc1.longitude);
-        double lat2 = Math.toRadians(loc2.latitude);
-        double lon2 = Math.toRadians(loc2.longitude);
-        double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-                               + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
-        double nauticalMiles = 60 * Math.toDegrees(angle);
-        double statuteMiles = STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
-        return statuteMiles;
+		return GeoDistance.statuteMiles(loc1, loc2);
+	}
+
+
+	// NOTE : a match takes the user's rewards lock, and a lookup filling its batch fans the batch out from the
+	// worker, which runs an upstream call itself when the upstream pool is saturated: workers may block, so
+	// they belong to a pool of their own rather than to the common pool shared with the rest of the JVM
+	private List<CompletableFuture<List<UserReward>>> calculateRewardsForkJoin(List<User> users, BatchProgress progress) {
+		@SuppressWarnings("unchecked")
+		CompletableFuture<List<UserReward>>[] calculations = new CompletableFuture[users.size()];
+		int threshold = Math.max(MIN_FORK_JOIN_CHUNK, users.size() / (forkJoinPool.getParallelism() * 8));
+		forkJoinPool.invoke(new UserChunk(users, 0, users.size(), threshold, calculations, progress));
+		return Arrays.asList(calculations);
+	}
+
+
+	// NOTE : the per-user pipeline, but matched on the calling thread, or on the one ending the previous calculation
+	private CompletableFuture<List<UserReward>> calculateRewardsHere(User user) {
+		return user.queueRewardsCalculation(() -> {
+			long start = System.nanoTime();
+			return matchRewards(user).lookedUp()
+					.thenApplyAsync(match -> commitRewards(user, match), commitExecutor)
+					.whenComplete((added, e) -> metrics.recordRewardsCalculation(System.nanoTime() - start, e == null));
+		});
+	}
+
+
+	// NOTE : the attraction-centric engine, its calculations go through the same lookup and commit stages
+	private List<CompletableFuture<List<UserReward>>> calculateRewardsByAttraction(List<User> users) {
+		AttractionIndex attractionIndex = attractionCatalog.current();
+		int radius = proximityBuffer;
+		LocationBatch batch = LocationBatch.collect(users);
+		CompletableFuture<int[][]> joined = batch.joinAsync(attractionIndex, radius, matchExecutor);
+		List<CompletableFuture<List<UserReward>>> calculations = new ArrayList<>(users.size());
+		for (int u = 0; u < users.size(); u++) {
+			User user = users.get(u);
+			int slot = u;
+			calculations.add(user.queueRewardsCalculation(() -> {
+				long start = System.nanoTime();
+				return joined
+						.thenApplyAsync(matches -> batch.isCurrent(slot, user)
+								? matchRewards(user, attractionIndex, batch.endOf(slot), batch.finder(slot, matches))
+								: matchRewards(user), matchExecutor)
+						.thenCompose(RewardMatch::lookedUp)
+						.thenApplyAsync(match -> commitRewards(user, match), commitExecutor)
+						.whenComplete((added, e) -> metrics.recordRewardsCalculation(System.nanoTime() - start, e == null));
+			}));
+		}
+		return calculations;
+	}
+
+
+	private RewardMatch matchRewards(User user) {
+		AttractionIndex attractionIndex = attractionCatalog.current();
+		int radius = proximityBuffer;
+		return matchRewards(user, attractionIndex, Long.MAX_VALUE,
+				(cursor, excluded) -> attractionIndex.findWithin(cursor.latitude(), cursor.longitude(), radius, excluded));
+	}
+
+
+	// NOTE : first stage, only the lookups are started here, nothing waits for them
+	private RewardMatch matchRewards(User user, AttractionIndex attractionIndex, long until, AttractionFinder finder) {
+		BitSet requested = new BitSet(attractionIndex.size());
+		IntPredicate alreadyRewarded = i -> requested.get(i) || user.hasRewardForAttraction(i);
+		List<PendingReward> pendingRewards = new ArrayList<>();
+		user.getRewardsLock().lock();
+		try {
+			LocationHistory.Cursor cursor = user.getLocationHistory().cursor(user.getRewardWatermark());
+			long checkedUpTo = user.getRewardWatermark();
+			while (cursor.next() && cursor.index() < until) {
+				// NOTE : retired attractions are counted, so that the locations are only dropped once every position is rewarded
+				if (user.getRewardedAttractionCount() + pendingRewards.size() >= attractionIndex.size()) {
+					return new RewardMatch(pendingRewards, checkedUpTo, true);
+				}
+				VisitedLocation visitedLocation = null;
+				for (int i : finder.find(cursor, alreadyRewarded)) {
+					if (visitedLocation == null) {
+						visitedLocation = cursor.visitedLocation();
+					}
+					requested.set(i);
+					Attraction attraction = attractionIndex.get(i);
+					pendingRewards.add(new PendingReward(cursor.index(), visitedLocation, attraction, i,
+							getRewardPointsAsync(attraction, user.getUserId())));
+				}
+				checkedUpTo = cursor.index() + 1;
+			}
+			return new RewardMatch(pendingRewards, checkedUpTo, false);
+		} finally {
+			user.getRewardsLock().unlock();
+		}
+	}
+
+
+	// NOTE : last stage, every lookup of the match has completed, successfully or not
+	private List<UserReward> commitRewards(User user, RewardMatch match) {
+		List<UserReward> added = new ArrayList<>(match.pendingRewards().size());
+		user.getRewardsLock().lock();
+		try {
+			for (PendingReward pending : match.pendingRewards()) {
+				int rewardPoints;
+				try {
+					rewardPoints = RewardPointsGateway.await(pending.rewardPoints());
+				} catch (RuntimeException e) {
+					user.advanceRewardWatermark(pending.locationIndex());
+					throw e;
+				}
+				UserReward userReward = new UserReward(pending.visitedLocation(), pending.attraction(), rewardPoints);
+				user.addUserReward(userReward, pending.attractionIndex());
+				added.add(userReward);
+				metrics.incrementRewardsGranted();
+			}
+			if (match.allRewarded()) {
+				user.clearUnrewardedLocations();
+			} else {
+				user.advanceRewardWatermark(match.checkedUpTo());
+			}
+			return added;
+		} finally {
+			user.getRewardsLock().unlock();
+		}
+	}
+
+
+	/** Users {@code from .. to - 1} of a fork/join batch, split while the pool has no surplus of queued chunks. */
+	private final class UserChunk extends RecursiveAction {
+
+		private final List<User> users;
+		private final int from;
+		private final int to;
+		private final int threshold;
+		private final CompletableFuture<List<UserReward>>[] calculations;
+		private final BatchProgress progress;
+
+		UserChunk(List<User> users, int from, int to, int threshold, CompletableFuture<List<UserReward>>[] calculations,
+				BatchProgress progress) {
+			this.users = users;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+			this.calculations = calculations;
+			this.progress = progress;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > threshold && getSurplusQueuedTaskCount() <= 3) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new UserChunk(users, from, middle, threshold, calculations, progress),
+						new UserChunk(users, middle, to, threshold, calculations, progress));
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				calculations[i] = calculateRewardsHere(users.get(i));
+			}
+			CompletableFuture<?>[] chunk = Arrays.copyOfRange(calculations, from, to);
+			CompletableFuture.allOf(chunk).whenComplete((ignored, e) -> {
+				int rewards = 0;
+				int failures = 0;
+				for (CompletableFuture<?> calculation : chunk) {
+					if (calculation.isCompletedExceptionally()) {
+						failures++;
+					} else {
+						rewards += ((List<?>) calculation.join()).size();
+					}
+				}
+				progress.chunkDone(to - from, rewards, failures);
+			});
+		}
+	}
+
+
+	/** Counters of a batch, updated as its calculations complete. */
+	private static final class BatchProgress {
+
+		private final int totalUsers;
+		private final Consumer<RewardsBatchProgress> listener;
+		private final LongAdder usersProcessed = new LongAdder();
+		private final LongAdder rewardsGranted = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final AtomicInteger usersReported = new AtomicInteger();
+
+		BatchProgress(int totalUsers, Consumer<RewardsBatchProgress> listener) {
+			this.totalUsers = totalUsers;
+			this.listener = listener;
+		}
+
+		void userDone(List<UserReward> added, Throwable failure) {
+			usersProcessed.increment();
+			if (failure == null) {
+				rewardsGranted.add(added.size());
+			} else {
+				failures.increment();
+			}
+		}
+
+		void chunkDone(int users, int rewards, int chunkFailures) {
+			listener.accept(new RewardsBatchProgress(users, rewards, chunkFailures, usersReported.addAndGet(users), totalUsers));
+		}
+
+		int rewardsGranted() {
+			return rewardsGranted.intValue();
+		}
+
+		int failures() {
+			return failures.intValue();
+		}
+
+		RewardsBatchResult result(Duration elapsed) {
+			return new RewardsBatchResult(usersProcessed.intValue(), rewardsGranted.intValue(), failures.intValue(), elapsed);
+		}
+	}
+
+
+	/** Finds the attractions near the location of a cursor, in ascending order, leaving out the excluded ones. */
+	@FunctionalInterface
+	private interface AttractionFinder {
+		int[] find(LocationHistory.Cursor cursor, IntPredicate excluded);
+	}
+
+
+	/** Locations not checked yet of the users of a batch, for the attraction-centric engine.
+	 * The points of user {@code u} are {@code firstPoint[u] .. firstPoint[u + 1] - 1}, in the order of its locations.
+	 */
+	private static final class LocationBatch {
+
+		private static final int[] NO_MATCH = new int[0];
+		private static final int ATTRACTIONS_PER_TASK = 16;
+
+		private final long[] watermarks;
+		private final long[] ends;
+		private final int[] firstPoint;
+		private long[] locationIndexes = new long[64];
+		private double[] latitudes = new double[64];
+		private double[] longitudes = new double[64];
+		private int size;
+
+		private LocationBatch(int users) {
+			watermarks = new long[users];
+			ends = new long[users];
+			firstPoint = new int[users + 1];
+		}
+
+		static LocationBatch collect(List<User> users) {
+			LocationBatch batch = new LocationBatch(users.size());
+			for (int u = 0; u < users.size(); u++) {
+				User user = users.get(u);
+				user.getRewardsLock().lock();
+				try {
+					long watermark = user.getRewardWatermark();
+					batch.watermarks[u] = watermark;
+					batch.ends[u] = watermark;
+					LocationHistory.Cursor cursor = user.getLocationHistory().cursor(watermark);
+					while (cursor.next()) {
+						batch.add(cursor.index(), cursor.latitude(), cursor.longitude());
+						batch.ends[u] = cursor.index() + 1;
+					}
+				} finally {
+					user.getRewardsLock().unlock();
+				}
+				batch.firstPoint[u + 1] = batch.size;
+			}
+			return batch;
+		}
+
+		/** Looks the points up around each attraction, a few attractions per task.
+		 *
+		 * @return a future completed with the attractions found near each point, in ascending order
+		 */
+		CompletableFuture<int[][]> joinAsync(AttractionIndex attractionIndex, double radius, Executor executor) {
+			LocationGrid grid = LocationGrid.of(Arrays.copyOf(latitudes, size), Arrays.copyOf(longitudes, size));
+			List<CompletableFuture<long[]>> tasks = new ArrayList<>();
+			for (int from = 0; from < attractionIndex.size(); from += ATTRACTIONS_PER_TASK) {
+				int first = from;
+				int last = Math.min(from + ATTRACTIONS_PER_TASK, attractionIndex.size());
+				tasks.add(CompletableFuture.supplyAsync(() -> pairs(grid, attractionIndex, first, last, radius), executor));
+			}
+			return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+					.thenApply(ignored -> matchesByPoint(tasks.stream().map(CompletableFuture::join).toList()));
+		}
+
+		boolean isCurrent(int u, User user) {
+			return user.getRewardWatermark() == watermarks[u];
+		}
+
+		long endOf(int u) {
+			return ends[u];
+		}
+
+		AttractionFinder finder(int u, int[][] matches) {
+			return (cursor, excluded) -> {
+				int point = Arrays.binarySearch(locationIndexes, firstPoint[u], firstPoint[u + 1], cursor.index());
+				if (point < 0) {
+					throw new IllegalStateException("Location " + cursor.index() + " is not in the batch");
+				}
+				return Arrays.stream(matches[point]).filter(excluded.negate()).toArray();
+			};
+		}
+
+		private void add(long locationIndex, double latitude, double longitude) {
+			if (size == locationIndexes.length) {
+				locationIndexes = Arrays.copyOf(locationIndexes, size * 2);
+				latitudes = Arrays.copyOf(latitudes, size * 2);
+				longitudes = Arrays.copyOf(longitudes, size * 2);
+			}
+			locationIndexes[size] = locationIndex;
+			latitudes[size] = latitude;
+			longitudes[size] = longitude;
+			size++;
+		}
+
+		// NOTE : a pair is (point << 32 | attraction), so that sorting the pairs groups them by point
+		private static long[] pairs(LocationGrid grid, AttractionIndex attractionIndex, int first, int last, double radius) {
+			long[] pairs = new long[8];
+			int count = 0;
+			for (int a = first; a < last; a++) {
+				if (attractionIndex.isRetired(a)) {
+					continue;
+				}
+				Attraction attraction = attractionIndex.get(a);
+				for (int point : grid.findWithin(attraction.latitude, attraction.longitude, radius)) {
+					if (count == pairs.length) {
+						pairs = Arrays.copyOf(pairs, count * 2);
+					}
+					pairs[count++] = (long) point << 32 | a;
+				}
+			}
+			return Arrays.copyOf(pairs, count);
+		}
+
+		private int[][] matchesByPoint(List<long[]> pairsByTask) {
+			long[] pairs = pairsByTask.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+			int[][] matches = new int[size][];
+			Arrays.fill(matches, NO_MATCH);
+			for (int from = 0; from < pairs.length;) {
+				int point = (int) (pairs[from] >>> 32);
+				int to = from;
+				while (to < pairs.length && (int) (pairs[to] >>> 32) == point) {
+					to++;
+				}
+				int[] attractions = new int[to - from];
+				for (int i = from; i < to; i++) {
+					attractions[i - from] = (int) pairs[i];
+				}
+				matches[point] = attractions;
+				from = to;
+			}
+			return matches;
+		}
+	}
+
+
+	/** Reward found for a location, waiting for its points, with the attraction of the snapshot it was matched in. */
+	private record PendingReward(long locationIndex, VisitedLocation visitedLocation, Attraction attraction,
+			int attractionIndex, CompletableFuture<Integer> rewardPoints) {
+	}
+
+
+	/** Outcome of the proximity match of a user.
+	 *
+	 * @param pendingRewards the rewards found, in the order of their locations
+	 * @param checkedUpTo index of the first location not checked
+	 * @param allRewarded whether the user has been rewarded for every attraction, the remaining locations being irrelevant
+	 */
+	private record RewardMatch(List<PendingReward> pendingRewards, long checkedUpTo, boolean allRewarded) {
+
+		CompletableFuture<RewardMatch> lookedUp() {
+			if (pendingRewards.isEmpty()) {
+				return CompletableFuture.completedFuture(this);
+			}
+			return CompletableFuture.allOf(pendingRewards.stream().map(PendingReward::rewardPoints).toArray(CompletableFuture[]::new))
+					.handle((ignored, failure) -> this);
+		}
 	}
 }
@@ -1,23 +1,46 @@
 package com.openclassrooms.tourguide.service;
 
+import com.openclassrooms.tourguide.client.GpsClient;
+import com.openclassrooms.tourguide.client.RewardPointsGateway;
+import com.openclassrooms.tourguide.client.TripPricerClient;
+import com.openclassrooms.tourguide.client.UpstreamException;
+import com.openclassrooms.tourguide.client.VendorGpsClient;
+import com.openclassrooms.tourguide.client.VendorTripPricerClient;
 import com.openclassrooms.tourguide.dto.AttractionDTO;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.NearestAttractionSearch;
+import com.openclassrooms.tourguide.geo.NearestAttractions;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.repository.InMemoryUserRepository;
+import com.openclassrooms.tourguide.repository.UserRepository;
+import com.openclassrooms.tourguide.retention.LocationRetention;
+import com.openclassrooms.tourguide.retention.RetentionProperties;
 import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.tracker.TrackerProperties;
+import com.openclassrooms.tourguide.user.PricedTripDeals;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
 import com.openclassrooms.tourguide.user.UserReward;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 
 import gpsUtil.location.Attraction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
@@ -30,17 +53,67 @@ import tripPricer.TripPricer;
 @Service
 public class TourGuideService {
 	private Logger logger = LoggerFactory.getLogger(TourGuideService.class);
-	private static final Executor executor = Executors.newFixedThreadPool(256);
-	private final GpsUtil gpsUtil;
+	private final Executor executor;
+	private final Executor upstreamExecutor;
+	public static final int DEFAULT_NEARBY_ATTRACTIONS_LIMIT = 5;
+	private final GpsClient gpsClient;
+	private final TripPricerClient tripPricerClient;
 	private final RewardsService rewardsService;
-	private final TripPricer tripPricer = new TripPricer();
+	private final UserRepository userRepository;
+	private final LocationRetention locationRetention;
+	private TourGuideMetrics metrics = TourGuideMetrics.noop();
+	private volatile Duration tripDealsMaxStaleness = Duration.ZERO;
 	public final Tracker tracker;
 	boolean testMode = true;
 
 
 	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService) {
-		this.gpsUtil = gpsUtil;
+		this(gpsUtil, rewardsService,
+				TourGuideExecutors.newPool(TourGuideExecutors.TRACKING, new ExecutorProperties().getTracking()));
+	}
+
+
+	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, TourGuideExecutors executors) {
+		this(gpsUtil, rewardsService, executors.tracking());
+	}
+
+
+	@Autowired
+	public TourGuideService(GpsClient gpsClient, TripPricerClient tripPricerClient, RewardsService rewardsService,
+			TourGuideExecutors executors, TrackerProperties trackerProperties, UserRepository userRepository,
+			LocationRetention locationRetention) {
+		this(gpsClient, tripPricerClient, rewardsService, executors.tracking(), executors.upstream(), trackerProperties,
+				userRepository, locationRetention);
+	}
+
+
+	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, Executor executor) {
+		this(new VendorGpsClient(gpsUtil), new VendorTripPricerClient(new TripPricer()), rewardsService, executor);
+	}
+
+
+	public TourGuideService(GpsClient gpsClient, TripPricerClient tripPricerClient, RewardsService rewardsService,
+			Executor executor) {
+		this(gpsClient, tripPricerClient, rewardsService, executor, executor, new TrackerProperties(),
+				new InMemoryUserRepository(), new LocationRetention(new RetentionProperties()));
+	}
+
+
+	/** Creates a service.
+	 *
+	 * @param executor runs the location tracking tasks
+	 * @param upstreamExecutor runs the upstream calls of the asynchronous methods, such as {@link #getTripDealsAsync(User)}
+	 */
+	public TourGuideService(GpsClient gpsClient, TripPricerClient tripPricerClient, RewardsService rewardsService,
+			Executor executor, Executor upstreamExecutor, TrackerProperties trackerProperties, UserRepository userRepository,
+			LocationRetention locationRetention) {
+		this.gpsClient = gpsClient;
+		this.tripPricerClient = tripPricerClient;
 		this.rewardsService = rewardsService;
+		this.executor = executor;
+		this.upstreamExecutor = upstreamExecutor;
+		this.userRepository = userRepository;
+		this.locationRetention = locationRetention;
 		
 		Locale.setDefault(Locale.US);
 
@@ -50,16 +123,41 @@ public class TourGuideService {
 			initializeInternalUsers();
 			logger.debug("Finished initializing users");
 		}
-		tracker = new Tracker(this);
+		tracker = new Tracker(this, trackerProperties);
 		addShutDownHook();
 	}
 
 
+	@Autowired(required = false)
+	public void setMetrics(TourGuideMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+
+	public TourGuideMetrics getMetrics() {
+		return metrics;
+	}
+
+
 	public List<UserReward> getUserRewards(User user) {
 		return user.getUserRewards();
 	}
 
 
+	/** Returns the rewards of a user once the rewards calculations already queued for them are
+	 * committed, so that the locations tracked before the call are accounted for. No thread waits
+	 * meanwhile.
+	 *
+	 * @param user The user
+	 * @return a future completed with the user's rewards
+	 *
+	 * @see User#queueRewardsCalculation(java.util.function.Supplier)
+	 */
+	public CompletableFuture<List<UserReward>> getUserRewardsAsync(User user) {
+		return user.queueRewardsCalculation(() -> CompletableFuture.completedFuture(user.getUserRewards()));
+	}
+
+
 	/** Public method used to find either the last location visited by a user,
 	 * or their current location if no location has been visited.
 	 *
@@ -74,49 +172,140 @@ public class TourGuideService {
 	}
 
 
+	/** Asynchronous variant of {@link #getUserLocation(User)}: the location of a user never located
+	 * is fetched on the tracking pool.
+	 *
+	 * @param user {@link User} sent
+	 * @return a future completed with the {@link VisitedLocation} of the User requested, before their rewards are calculated
+	 */
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
+		if (!user.getVisitedLocations().isEmpty()) {
+			return CompletableFuture.completedFuture(user.getLastVisitedLocation());
+		}
+		return CompletableFuture.supplyAsync(() -> trackUserLocation(user), executor);
+	}
+
+
 	public User getUser(String userName) {
-		return internalUserMap.get(userName);
+		return userRepository.findByUserName(userName);
 	}
 
 
+	/** Returns a snapshot of the users. Prefer {@link #getUsers()} to iterate over them.
+	 *
+	 * @return a new list holding every registered user
+	 */
 	public List<User> getAllUsers() {
-		return internalUserMap.values().stream().collect(Collectors.toList());
+		return new ArrayList<>(userRepository.findAll());
+	}
+
+
+	/** Returns a live, weakly consistent view of the users, which iterating does not copy.
+	 *
+	 * @return the registered users
+	 *
+	 * @see UserRepository#findAll()
+	 */
+	public Collection<User> getUsers() {
+		return userRepository.findAll();
 	}
 
 
 	public void addUser(User user) {
-		if (!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
-		}
+		userRepository.addIfAbsent(user);
 	}
 
 
 	/** Retrieves a list of trip deals for a given user based on their preferences and reward points.
-	 * This method calculates the cumulative reward points of the user and uses them along with
-	 * other user preferences to fetch trip deals from a trip pricing service. The fetched trip deals
-	 * are then associated with the user.
+	 * The deals last priced for the user, for instance by the
+	 * {@link com.openclassrooms.tourguide.deals.TripDealsPrecomputer off-peak precomputation}, are
+	 * served as long as they are at most {@code tourguide.trip-deals.max-staleness} old and were priced
+	 * for the user's current preferences and reward points. Otherwise the deals are priced live, see
+	 * {@link #priceTripDeals(User)}.
 	 *
 	 * @param user The user for whom trip deals are to be retrieved. This user object should contain
 	 *             necessary information such as user ID, preferences, and reward points.
 	 * @return A list of {@link Provider} objects representing the trip deals available for the user.
 	 *         The list is also set to the user object.
 	 *
-	 * @see User
-	 * @see UserReward
+	 * @see User#getPricedTripDeals()
 	 * @see Provider
 	 */
 	public List<Provider> getTripDeals(User user) {
-		int cumulatativeRewardPoints = user.getUserRewards().stream().mapToInt(UserReward::getRewardPoints).sum();
-		List<Provider> providers = tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(), user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints);
-		user.setTripDeals(providers);
-		return providers;
+		PricedTripDeals precomputed = freshTripDeals(user);
+		return precomputed != null ? precomputed.providers() : priceTripDeals(user).providers();
+	}
+
+
+	/** Prices trip deals for a user and associates them with the user.
+	 * This method uses the cumulative reward points of the user, a running total kept by the user,
+	 * along with other user preferences to fetch trip deals from a trip pricing service, whose quotes
+	 * may come from a cache, see {@link com.openclassrooms.tourguide.cache.CachingTripPricerClient}.
+	 *
+	 * @param user The user for whom trip deals are to be priced.
+	 * @return the deals, with the time and the inputs of their pricing
+	 *
+	 * @see User#getCumulativeRewardPoints()
+	 * @see UserReward
+	 */
+	public PricedTripDeals priceTripDeals(User user) {
+		UserPreferences preferences = user.getUserPreferences();
+		int adults = preferences.getNumberOfAdults();
+		int children = preferences.getNumberOfChildren();
+		int nightsStay = preferences.getTripDuration();
+		int rewardPoints = user.getCumulativeRewardPoints();
+		List<Provider> providers = tripPricerClient.getPrice(tripPricerApiKey, user.getUserId(), adults, children,
+				nightsStay, rewardPoints);
+		PricedTripDeals pricedTripDeals = new PricedTripDeals(providers, Instant.now(), adults, children, nightsStay,
+				rewardPoints);
+		user.setPricedTripDeals(pricedTripDeals);
+		return pricedTripDeals;
+	}
+
+
+	/** Sets how old the trip deals last priced for a user can be and still be served by
+	 * {@link #getTripDeals(User)}; zero, the default outside of Spring, always prices them live.
+	 *
+	 * @param tripDealsMaxStaleness the staleness bound
+	 */
+	@Value("${tourguide.trip-deals.max-staleness:0s}")
+	public void setTripDealsMaxStaleness(Duration tripDealsMaxStaleness) {
+		this.tripDealsMaxStaleness = tripDealsMaxStaleness;
+	}
+
+
+	public Duration getTripDealsMaxStaleness() {
+		return tripDealsMaxStaleness;
+	}
+
+
+	/** Asynchronous variant of {@link #getTripDeals(User)}: once the rewards calculations already
+	 * queued for the user are committed, so that the price accounts for the rewards of the locations
+	 * tracked before the call, the deals are served as they are if they are fresh, or priced on the upstream pool.
+	 *
+	 * @param user The user for whom trip deals are to be retrieved.
+	 * @return a future completed with the trip deals, also set to the user
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		return getUserRewardsAsync(user).thenCompose(rewards -> {
+			PricedTripDeals precomputed = freshTripDeals(user);
+			return precomputed != null
+					? CompletableFuture.completedFuture(precomputed.providers())
+					: CompletableFuture.supplyAsync(() -> priceTripDeals(user).providers(), upstreamExecutor);
+		});
+	}
+
+
+	private PricedTripDeals freshTripDeals(User user) {
+		PricedTripDeals pricedTripDeals = user.getPricedTripDeals();
+		return pricedTripDeals != null && pricedTripDeals.isValidFor(user, Instant.now(), tripDealsMaxStaleness)
+				? pricedTripDeals : null;
 	}
 
 
 	/** Tracks the current location of a user and updates their visited locations list.
-	 * This method also triggers the calculation of rewards for the user based on their location.
+	 * This method returns as soon as the location is recorded: the rewards calculation it triggers
+	 * runs in the background, see {@link #trackUser(User)}, and a failure of it is only logged.
 	 *
 	 * @param user The user whose location needs to be tracked.
 	 * @return The {@link VisitedLocation} object representing the user's current location.
@@ -125,18 +314,81 @@ public class TourGuideService {
 	 * @see VisitedLocation
 	 */
 	public VisitedLocation trackUserLocation(User user) {
-		VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
+		TrackedLocation trackedLocation = trackUser(user);
+		trackedLocation.rewards().whenComplete((rewards, e) -> {
+			if (e != null) {
+				logger.warn("Failed to calculate rewards for user: " + user.getUserName(), e);
+			}
+		});
+		return trackedLocation.visitedLocation();
+	}
+
+
+	/** Tracks the current location of a user, and starts the calculation of their rewards.
+	 * The location is fetched and added to the user's visited locations on the calling thread; the
+	 * rewards go through the pipeline of {@link RewardsService#calculateRewardsAsync(User)}, then the
+	 * {@link LocationRetention} compacts the locations checked for rewards.
+	 *
+	 * <p>When GpsUtil cannot locate a user already located before, the user is where they were last located:
+	 * that location is returned as is, without being added to the history again, and no rewards are calculated.</p>
+	 *
+	 * @param user The user whose location needs to be tracked.
+	 * @return the user's current location, and the future of the rewards it earned
+	 * @throws UpstreamException if GpsUtil cannot locate a user never located before
+	 *
+	 * @see TrackedLocation
+	 */
+	public TrackedLocation trackUser(User user) {
+		long start = System.nanoTime();
+		VisitedLocation visitedLocation;
+		try {
+			visitedLocation = gpsClient.getUserLocation(user.getUserId());
+		} catch (UpstreamException e) {
+			if (user.getVisitedLocations().isEmpty()) {
+				throw e;
+			}
+			logger.debug("User {} kept at their last known location: {}", user.getUserName(), e.getMessage());
+			return new TrackedLocation(user.getLastVisitedLocation(), CompletableFuture.completedFuture(List.of()));
+		}
 		user.addToVisitedLocations(visitedLocation);
-		rewardsService.calculateRewards(user);
-		return visitedLocation;
+		metrics.recordTrackUserLocation(System.nanoTime() - start);
+		CompletableFuture<List<UserReward>> rewards = rewardsService.calculateRewardsAsync(user)
+				.whenComplete((added, e) -> locationRetention.compactIfDue(user));
+		return new TrackedLocation(visitedLocation, rewards);
+	}
+
+
+	/** Tracks the current location of a user on the tracking pool.
+	 *
+	 * @param user The user whose location needs to be tracked.
+	 * @return a future completed with the user's current location once their rewards are calculated
+	 *
+	 * @see #trackUser(User)
+	 */
+	public CompletableFuture<VisitedLocation> trackUserLocationAsync(User user) {
+		return CompletableFuture.supplyAsync(() -> trackUser(user), executor)
+				.thenCompose(trackedLocation -> trackedLocation.rewards().thenApply(rewards -> trackedLocation.visitedLocation()));
+	}
+
+
+	/** Tells how long ago a user was last located, which the tracker keeps under its polling interval.
+	 *
+	 * @param user The user
+	 * @return the time elapsed since the user's latest location, or {@code null} if the user was never located
+	 *
+	 * @see Tracker#getRefreshLag(User)
+	 */
+	public Duration getLocationRefreshLag(User user) {
+		return tracker.getRefreshLag(user);
 	}
 
 
 	/** Tracks the current locations of all users in the provided list concurrently.
 	 * This method uses asynchronous processing to handle each user's location tracking
-	 * and collects the results in a thread-safe manner.
+	 * and collects the results in a thread-safe manner. A tracking thread is released as soon as
+	 * its user's location is recorded; the method returns once every user's rewards are calculated too.
 	 *
-	 * @param users The list of users whose locations need to be tracked.
+	 * @param users The users whose locations need to be tracked.
 	 * @return A list of {@link VisitedLocation} objects representing the current locations of all users.
 	 * @throws RuntimeException if there is an error tracking the location for any user.
 	 *
@@ -144,22 +396,23 @@ public class TourGuideService {
 	 * @see VisitedLocation
 	 * @see CompletableFuture
 	 */
-	public List<VisitedLocation> trackAllUsersLocation(List<User> users) {
+	public List<VisitedLocation> trackAllUsersLocation(Collection<User> users) {
 		List<VisitedLocation> visitedLocations = Collections.synchronizedList(new ArrayList<>());
 		List<CompletableFuture<Void>> futures = new ArrayList<>();
 
 		for (User user : users) {
 			CompletableFuture<Void> future = CompletableFuture.supplyAsync(() -> {
 				try {
-					VisitedLocation visitedLocation = trackUserLocation(user);
-					visitedLocations.add(visitedLocation);
-					return visitedLocation;
+					TrackedLocation trackedLocation = trackUser(user);
+					visitedLocations.add(trackedLocation.visitedLocation());
+					return trackedLocation;
 				} catch (Exception e) {
 					throw new RuntimeException("Failed to track location for user: " + user.getUserName(), e);
 				}
-			}, executor).thenAccept(result -> {
+			}, executor).thenCompose(TrackedLocation::rewards).thenAccept(result -> {
 			}).exceptionally(ex -> {
-				System.err.println("An error occurred in thread " + Thread.currentThread().getName() + ": " + ex.getMessage());
+				logger.warn("Failed to track the location of user {}", user.getUserName(),
+						ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
 				return null;
 			});
 
@@ -174,61 +427,86 @@ public class TourGuideService {
 	/** Get the closest five tourist attractions to the user - no matter how far away they are.
 	 *
 	 * @param visitedLocation The location visited by the user, containing the user ID and location coordinates.
-	 * @return A list of {@link AttractionDTO} objects representing the top five nearest attractions,
+	 * @return A list of {@link AttractionDTO} objects representing the top five nearest attractions.
+	 *
+	 * @see #getNearByAttractions(VisitedLocation, int)
+	 */
+	public List<AttractionDTO> getNearByAttractions(VisitedLocation visitedLocation) {
+		return getNearByAttractions(visitedLocation, DEFAULT_NEARBY_ATTRACTIONS_LIMIT);
+	}
+
+
+	/** Get the closest tourist attractions to the user - no matter how far away they are.
+	 * The attractions are found by the {@link NearestAttractionSearch} engine, in the current snapshot
+	 * of the attraction catalogue, which computes the distance to each examined attraction only once,
+	 * and their reward points are looked up together, in one batch of the {@link RewardPointsGateway}.
+	 *
+	 * @param visitedLocation The location visited by the user, containing the user ID and location coordinates.
+	 * @param limit The maximum number of attractions to return.
+	 * @return A list of {@link AttractionDTO} objects representing the nearest attractions, nearest first,
 	 *         each containing the attraction name, latitude, longitude, user's latitude and longitude,
 	 *         distance from the user's location, and reward points.
 	 *
 	 * @see VisitedLocation
-	 * @see AttractionWithDistance
+	 * @see NearestAttractionSearch
 	 * @see AttractionDTO
 	 */
-	public List<AttractionDTO> getNearByAttractions(VisitedLocation visitedLocation) {
-		List<Attraction> attractions = gpsUtil.getAttractions();
-
-		List<Attraction> topFiveAttractionsNear = attractions.stream()
-				.map(attraction -> {
-					Location attractionLocation = new Location(attraction.latitude, attraction.longitude);
-					double distance = rewardsService.getDistance(visitedLocation.location, attractionLocation);
-					return new AttractionWithDistance(attraction, distance);
-				})
-				.sorted(Comparator.comparingDouble(AttractionWithDistance::distance))
-				.limit(5)
-				.map(AttractionWithDistance::attraction)
-				.toList();
-
-		List<AttractionDTO> attractionInfoList = topFiveAttractionsNear.stream()
-				.map(att -> {
-					Location attractionLocation = new Location(att.latitude, att.longitude);
-					double distance = rewardsService.getDistance(visitedLocation.location, attractionLocation);
-					int rewardPoints = rewardsService.getRewardPoints(att, visitedLocation.userId);
-					return new AttractionDTO(
-							att.attractionName,
-							att.latitude,
-							att.longitude,
-							visitedLocation.location.latitude,
-							visitedLocation.location.longitude,
-							distance,
-							rewardPoints
-					);
-				})
-				.toList();
-
-		return attractionInfoList;
+	public List<AttractionDTO> getNearByAttractions(VisitedLocation visitedLocation, int limit) {
+		Location location = visitedLocation.location;
+		AttractionIndex attractionIndex = rewardsService.getAttractionIndex();
+		NearestAttractions nearest = new NearestAttractionSearch(attractionIndex).nearest(location.latitude, location.longitude, limit);
+		List<CompletableFuture<Integer>> rewardPoints = lookUpRewardPoints(attractionIndex, nearest, visitedLocation.userId);
+		return toAttractionDTOs(attractionIndex, location, nearest, i -> RewardPointsGateway.await(rewardPoints.get(i)));
 	}
 
 
-	/**
-	 * Represents an attraction along with its distance.
-	 *
-	 * <p>This record encapsulates an {@link Attraction} object and a distance value,
-	 * providing a convenient way to associate an attraction with its respective distance.
-	 * The components of this record are automatically private and final, and it includes
-	 * built-in methods such as {@code equals()}, {@code hashCode()}, and {@code toString()}.</p>
+	/** Asynchronous variant of {@link #getNearByAttractions(VisitedLocation, int)}, completed by the
+	 * reward points lookups without any thread waiting for them.
 	 *
-	 * @param attraction the attraction object
-	 * @param distance the distance associated with the attraction
+	 * @param visitedLocation The location visited by the user, containing the user ID and location coordinates.
+	 * @param limit The maximum number of attractions to return.
+	 * @return a future completed with the nearest attractions, nearest first, or exceptionally if a
+	 *         reward points lookup failed
 	 */
-	record AttractionWithDistance(Attraction attraction, double distance) {
+	public CompletableFuture<List<AttractionDTO>> getNearByAttractionsAsync(VisitedLocation visitedLocation, int limit) {
+		Location location = visitedLocation.location;
+		AttractionIndex attractionIndex = rewardsService.getAttractionIndex();
+		NearestAttractions nearest = new NearestAttractionSearch(attractionIndex).nearest(location.latitude, location.longitude, limit);
+		List<CompletableFuture<Integer>> rewardPoints = lookUpRewardPoints(attractionIndex, nearest, visitedLocation.userId);
+		return CompletableFuture.allOf(rewardPoints.toArray(new CompletableFuture[0]))
+				.thenApply(ignored -> toAttractionDTOs(attractionIndex, location, nearest, i -> rewardPoints.get(i).join()));
+	}
+
+
+	// NOTE : every lookup is made before waiting for any, so that they share one batch upstream
+	private List<CompletableFuture<Integer>> lookUpRewardPoints(AttractionIndex attractionIndex, NearestAttractions nearest,
+			UUID userId) {
+		List<CompletableFuture<Integer>> rewardPoints = new ArrayList<>(nearest.size());
+		for (int i = 0; i < nearest.size(); i++) {
+			rewardPoints.add(rewardsService.getRewardPointsAsync(
+					attractionIndex.get(nearest.attractionIndex(i)), userId));
+		}
+		return rewardPoints;
+	}
+
+
+	// NOTE : the positions of the nearest attractions are those of the snapshot they were searched in
+	private List<AttractionDTO> toAttractionDTOs(AttractionIndex attractionIndex, Location location, NearestAttractions nearest,
+			IntUnaryOperator rewardPoints) {
+		List<AttractionDTO> attractionInfoList = new ArrayList<>(nearest.size());
+		for (int i = 0; i < nearest.size(); i++) {
+			Attraction att = attractionIndex.get(nearest.attractionIndex(i));
+			attractionInfoList.add(new AttractionDTO(
+					att.attractionName,
+					att.latitude,
+					att.longitude,
+					location.latitude,
+					location.longitude,
+					nearest.distance(i),
+					rewardPoints.applyAsInt(i)
+			));
+		}
+		return attractionInfoList;
 	}
 
 
@@ -247,8 +525,7 @@ public class TourGuideService {
 	 **********************************************************************************/
 	private static final String tripPricerApiKey = "test-server-api-key";
 	// Database connection will be used for external users, but for testing purposes
-	// internal users are provided and stored in memory
-	private final Map<String, User> internalUserMap = new HashMap<>();
+	// internal users are provided and stored in memory, in the user repository
 
 	private void initializeInternalUsers() {
 		IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
@@ -258,7 +535,7 @@ public class TourGuideService {
 			User user = new User(UUID.randomUUID(), userName, phone, email);
 			generateUserLocationHistory(user);
 
-			internalUserMap.put(userName, user);
+			userRepository.addIfAbsent(user);
 		});
         logger.debug("Created {} internal test users.", InternalTestHelper.getInternalUserNumber());
 	}
@@ -0,0 +1,18 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/** Location of a user, recorded as soon as it was fetched, and the rewards calculation it started.
+ *
+ * @param visitedLocation the location added to the user's visited locations
+ * @param rewards future completed with the rewards added to the user, once they are committed and
+ *                the history has been compacted, or exceptionally if a reward points lookup failed
+ *
+ * @see TourGuideService#trackUser(com.openclassrooms.tourguide.user.User)
+ */
+public record TrackedLocation(VisitedLocation visitedLocation, CompletableFuture<List<UserReward>> rewards) {
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.tourguide.simulation;
+
+/** Shapes of {@link LatencyProfile} which can be configured. */
+public enum LatencyDistribution {
+
+	/** No latency at all. */
+	NONE,
+
+	/** Always {@code latency}. */
+	FIXED,
+
+	/** Between {@code latency} and {@code max-latency}, like the vendored libraries. */
+	UNIFORM,
+
+	/** Log-normal around a median of {@code latency}, spread by {@code sigma}. */
+	LOG_NORMAL
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.tourguide.simulation;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/** Distribution of the latency of a simulated upstream call.
+ *
+ * <p>Profiles are sampled with the random generator of the call, so that a seeded simulation
+ * waits exactly as long on every run.</p>
+ */
+@FunctionalInterface
+public interface LatencyProfile {
+
+	/** Draws the latency of a call.
+	 *
+	 * @param random the random generator of the call
+	 * @return the latency in nanoseconds, never negative
+	 */
+	long sampleNanos(RandomGenerator random);
+
+
+	/** Answers at once: measures TourGuide's own overhead only. */
+	static LatencyProfile none() {
+		return random -> 0;
+	}
+
+
+	static LatencyProfile fixed(Duration latency) {
+		long nanos = latency.toNanos();
+		return random -> nanos;
+	}
+
+
+	/** Uniform latency, like the vendored libraries which sleep a random number of milliseconds.
+	 *
+	 * @param min shortest latency
+	 * @param max longest latency
+	 * @return the profile
+	 */
+	static LatencyProfile uniform(Duration min, Duration max) {
+		long minNanos = min.toNanos();
+		long maxNanos = max.toNanos();
+		if (maxNanos <= minNanos) {
+			return random -> minNanos;
+		}
+		return random -> random.nextLong(minNanos, maxNanos + 1);
+	}
+
+
+	/** Log-normal latency, the usual shape of a remote service: most calls close to the median,
+	 * and a long right tail.
+	 *
+	 * @param median median latency
+	 * @param sigma standard deviation of the latency's logarithm, 0.5 giving a 99th percentile
+	 *              about 3.2 times the median
+	 * @return the profile
+	 */
+	static LatencyProfile logNormal(Duration median, double sigma) {
+		double mu = Math.log(Math.max(1, median.toNanos()));
+		return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+	}
+
+
+	/** Adds a latency spike to some calls, as a garbage collection or a retry would upstream.
+	 *
+	 * @param probability probability of a spike on each call
+	 * @param spike latency added by a spike
+	 * @return a new profile
+	 */
+	default LatencyProfile withTailSpikes(double probability, Duration spike) {
+		long spikeNanos = spike.toNanos();
+		return random -> sampleNanos(random) + (random.nextDouble() < probability ? spikeNanos : 0);
+	}
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.simulation;
+
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.GpsClient;
+
+/** {@link GpsClient} locating users at seeded random positions, after a simulated latency.
+ *
+ * <p>Positions are drawn like GpsUtil does, uniformly over the Web Mercator latitudes and rounded
+ * to six decimals. The attraction catalogue is read once, and served at once with the same
+ * identifiers on every call.</p>
+ */
+public class SimulatedGpsClient implements GpsClient {
+
+	private static final double MAX_LATITUDE = 85.05112878;
+
+	private final SimulatedUpstream upstream;
+	private final List<Attraction> attractions;
+
+
+	/** Creates a client serving the GpsUtil attraction catalogue.
+	 *
+	 * @param upstream latency and failures of the calls
+	 */
+	public SimulatedGpsClient(SimulatedUpstream upstream) {
+		this(upstream, new GpsUtil().getAttractions());
+	}
+
+
+	public SimulatedGpsClient(SimulatedUpstream upstream, List<Attraction> attractions) {
+		this.upstream = upstream;
+		this.attractions = List.copyOf(attractions);
+	}
+
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		SplittableRandom random = upstream.call();
+		double latitude = roundToMicroDegrees(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE));
+		double longitude = roundToMicroDegrees(random.nextDouble(-180, 180));
+		return new VisitedLocation(userId, new Location(latitude, longitude), new Date());
+	}
+
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+
+	public SimulatedUpstream getUpstream() {
+		return upstream;
+	}
+
+
+	private static double roundToMicroDegrees(double degrees) {
+		return Math.round(degrees * 1e6) / 1e6;
+	}
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.tourguide.simulation;
+
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.client.RewardsClient;
+
+/** {@link RewardsClient} answering after a simulated latency.
+ *
+ * <p>Like RewardCentral, the points are between 1 and 999; unlike it, they are derived from the seed,
+ * the attraction and the user only, so the same question always gets the same answer.</p>
+ */
+public class SimulatedRewardsClient implements RewardsClient {
+
+	private final SimulatedUpstream upstream;
+
+
+	public SimulatedRewardsClient(SimulatedUpstream upstream) {
+		this.upstream = upstream;
+	}
+
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		upstream.call();
+		long key = attractionId.getMostSignificantBits() ^ Long.rotateLeft(attractionId.getLeastSignificantBits(), 17)
+				^ Long.rotateLeft(userId.getMostSignificantBits(), 31) ^ Long.rotateLeft(userId.getLeastSignificantBits(), 47);
+		return 1 + (int) Math.floorMod(upstream.valueOf(key), 999L);
+	}
+
+
+	public SimulatedUpstream getUpstream() {
+		return upstream;
+	}
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.tourguide.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.client.TripPricerClient;
+
+/** {@link TripPricerClient} pricing trips with seeded random providers, after a simulated latency.
+ *
+ * <p>Like TripPricer, it returns five deals from five distinct providers, priced per adult, per
+ * child and per night, minus the reward points.</p>
+ */
+public class SimulatedTripPricerClient implements TripPricerClient {
+
+	static final int DEALS = 5;
+	private static final List<String> PROVIDERS = List.of("Holiday Travels", "Enterprize Ventures Limited",
+			"Sunny Days", "FlyAway Trips", "United Partners Vacations", "Dream Trips", "Live Free",
+			"Dancing Waves Cruselines and Partners", "AdventureCo", "Cure-Your-Blues");
+
+	private final SimulatedUpstream upstream;
+
+
+	public SimulatedTripPricerClient(SimulatedUpstream upstream) {
+		this.upstream = upstream;
+	}
+
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+		SplittableRandom random = upstream.call();
+		List<String> names = new ArrayList<>(PROVIDERS);
+		List<Provider> providers = new ArrayList<>(DEALS);
+		for (int i = 0; i < DEALS; i++) {
+			String name = names.remove(random.nextInt(names.size()));
+			int adultPrice = random.nextInt(100, 700);
+			double price = (adultPrice * adults + adultPrice / 3 * children) * nightsStay + 0.99 - rewardsPoints;
+			providers.add(new Provider(new UUID(random.nextLong(), random.nextLong()), name, Math.max(0, price)));
+		}
+		return providers;
+	}
+
+
+	public SimulatedUpstream getUpstream() {
+		return upstream;
+	}
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.tourguide.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openclassrooms.tourguide.client.UpstreamException;
+
+/** Latency and failures of a simulated upstream service, reproducible from a seed.
+ *
+ * <p>Calls are numbered, and the n-th call draws its latency, its failure and its data from a
+ * random generator seeded by the seed and n only. However the threads interleave, a run makes the
+ * same draws as any other run with the same seed: the same latencies, the same failures, the same
+ * answers, in the order of the calls.</p>
+ */
+public class SimulatedUpstream {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final String name;
+	private final long seed;
+	private final LatencyProfile latency;
+	private final double errorRate;
+	private final AtomicLong calls = new AtomicLong();
+
+
+	/** Creates a simulated service.
+	 *
+	 * @param name name of the service, in the failure messages; also mixed into the seed, so that
+	 *             services sharing a seed draw independent values
+	 * @param seed the seed of the simulation
+	 * @param latency latency of each call
+	 * @param errorRate probability that a call fails with an {@link UpstreamException}, between 0 and 1
+	 */
+	public SimulatedUpstream(String name, long seed, LatencyProfile latency, double errorRate) {
+		if (errorRate < 0 || errorRate > 1) {
+			throw new IllegalArgumentException("Error rate must be between 0 and 1: " + errorRate);
+		}
+		this.name = name;
+		this.seed = mix(seed ^ mix(name.hashCode()));
+		this.latency = latency;
+		this.errorRate = errorRate;
+	}
+
+
+	/** Simulates a call: waits for its latency, then fails or returns the generator of its answer.
+	 *
+	 * @return the random generator of this call, for the data of the answer
+	 * @throws UpstreamException if the call fails, or if the thread is interrupted while waiting
+	 */
+	public SplittableRandom call() {
+		long call = calls.getAndIncrement();
+		SplittableRandom random = new SplittableRandom(mix(seed + call * GOLDEN_GAMMA));
+		long nanos = latency.sampleNanos(random);
+		boolean failed = random.nextDouble() < errorRate;
+		if (nanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UpstreamException(name + " call " + call + " interrupted", e);
+			}
+		}
+		if (failed) {
+			throw new UpstreamException(name + " call " + call + " failed (simulated)");
+		}
+		return random;
+	}
+
+
+	/** Derives a value from the seed and a key, the same on every call: for the answers a real
+	 * service would give consistently, like the reward points of an attraction for a user.
+	 *
+	 * @param key the key
+	 * @return a well mixed 64-bit value
+	 */
+	public long valueOf(long key) {
+		return mix(seed ^ mix(key));
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+
+	public long getCallCount() {
+		return calls.get();
+	}
+
+
+	// NOTE : MurmurHash3 64-bit finalizer, so that close seeds and call numbers give unrelated generators
+	static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return z ^ (z >>> 33);
+	}
+}
@@ -1,9 +1,18 @@
 package com.openclassrooms.tourguide.tracker;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
@@ -12,17 +21,66 @@ import org.slf4j.LoggerFactory;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 
-public class Tracker extends Thread {
+/** Periodically tracks the location of every user.
+ *
+ * <p>In {@link TrackingMode#BATCH} mode, a cycle splits the users into shards of
+ * {@link TrackerProperties#getShardSize()} users, and hands each shard to
+ * {@link TourGuideService#trackAllUsersLocation(Collection)}, which tracks its users in parallel on the
+ * tracking pool.</p>
+ *
+ * <p>In {@link TrackingMode#CONTINUOUS} mode, a cycle is a round over the users, spread across the
+ * polling interval: on every tick, a token bucket filled at a rate of users / interval tells how many
+ * users are due, and the next ones are tracked asynchronously. GpsUtil then sees a steady request
+ * rate instead of a burst every interval. A user whose previous refresh is still running is skipped,
+ * and a round skipping any user is reported as an overrun, since that refresh took longer than the
+ * polling interval.</p>
+ *
+ * <p>Either way, cycles run on a single scheduler thread, so they never overlap: a cycle taking
+ * longer than the polling interval is reported as an overrun, and the next one starts as soon as it
+ * ends. {@link #getRefreshLag(User)} tells how long ago each user was last located.</p>
+ *
+ * @see TrackerProperties
+ */
+public class Tracker {
 	private Logger logger = LoggerFactory.getLogger(Tracker.class);
-	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
-	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "tourguide-tracker");
+		thread.setDaemon(true);
+		return thread;
+	});
 	private final TourGuideService tourGuideService;
-	private boolean stop = false;
+	private final Duration pollingInterval;
+	private final int shardSize;
+	private final Duration tick;
+	private final Set<UUID> refreshesInFlight = ConcurrentHashMap.newKeySet();
+	private Iterator<User> round;
+	private int roundSize;
+	private int roundDispatched;
+	private int roundSkipped;
+	private double roundTokens;
+	private long roundStartNanos;
+	private final AtomicLong cycleCount = new AtomicLong();
+	private final AtomicLong overrunCount = new AtomicLong();
+	private volatile Duration lastCycleDuration = Duration.ZERO;
+	private volatile boolean stop = false;
 
 	public Tracker(TourGuideService tourGuideService) {
+		this(tourGuideService, new TrackerProperties());
+	}
+
+	public Tracker(TourGuideService tourGuideService, TrackerProperties properties) {
 		this.tourGuideService = tourGuideService;
+		this.pollingInterval = properties.getPollingInterval();
+		this.shardSize = properties.getShardSize();
+		this.tick = properties.getTick();
 
-		executorService.submit(this);
+		if (properties.getMode() == TrackingMode.CONTINUOUS) {
+			scheduler.scheduleAtFixedRate(this::runTick, properties.getInitialDelay().toMillis(),
+					tick.toMillis(), TimeUnit.MILLISECONDS);
+		} else {
+			scheduler.scheduleAtFixedRate(this::runCycle, properties.getInitialDelay().toMillis(),
+					pollingInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
 	}
 
 	/**
@@ -30,34 +88,128 @@ public class Tracker extends Thread {
 	 */
 	public void stopTracking() {
 		stop = true;
-		executorService.shutdownNow();
+		scheduler.shutdownNow();
 	}
 
-	@Override
-	public void run() {
-		StopWatch stopWatch = new StopWatch();
-		while (true) {
-			if (Thread.currentThread().isInterrupted() || stop) {
-				logger.debug("Tracker stopping");
-				break;
-			}
+	public long getCycleCount() {
+		return cycleCount.get();
+	}
+
+	public long getOverrunCount() {
+		return overrunCount.get();
+	}
 
-			List<User> users = tourGuideService.getAllUsers();
+	public Duration getLastCycleDuration() {
+		return lastCycleDuration;
+	}
+
+	/** Tells how long ago a user was last located.
+	 *
+	 * @param user the user
+	 * @return the time elapsed since the user's latest location, or {@code null} if the user was never located
+	 */
+	public Duration getRefreshLag(User user) {
+		Date latest = user.getLatestLocationTimestamp();
+		return latest == null ? null : Duration.ofMillis(Math.max(0, System.currentTimeMillis() - latest.getTime()));
+	}
+
+	/** Tracks every user once, shard after shard, and reports the cycle if it overran the polling interval.
+	 * Exceptions are logged rather than thrown, since they would cancel the following cycles.
+	 */
+	void runCycle() {
+		StopWatch stopWatch = StopWatch.createStarted();
+		int tracked = 0;
+		try {
+			Collection<User> users = tourGuideService.getUsers();
 			logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
-			stopWatch.start();
-
-			users.forEach(tourGuideService::trackUserLocation);
-
-			stopWatch.stop();
-			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
-			stopWatch.reset();
-			try {
-				logger.debug("Tracker sleeping");
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
-			} catch (InterruptedException e) {
-				break;
+
+			// NOTE : the users are not copied, only the shard being tracked is buffered
+			List<User> shard = new ArrayList<>(Math.min(shardSize, users.size()));
+			Iterator<User> iterator = users.iterator();
+			while (iterator.hasNext() && !stop) {
+				shard.add(iterator.next());
+				if (shard.size() == shardSize || !iterator.hasNext()) {
+					tourGuideService.trackAllUsersLocation(shard);
+					tracked += shard.size();
+					shard.clear();
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.error("Tracker cycle failed after " + tracked + " users", e);
+		}
+		stopWatch.stop();
+
+		endCycle(Duration.ofMillis(stopWatch.getTime()), tracked, 0);
+	}
+
+	/** Dispatches the users due on this tick, starting a new round once every user has been dispatched.
+	 * Only the scheduler thread touches the round, so it needs no synchronization.
+	 */
+	void runTick() {
+		try {
+			if (round == null) {
+				Collection<User> users = tourGuideService.getUsers();
+				if (users.isEmpty()) {
+					return;
+				}
+				round = users.iterator();
+				roundSize = users.size();
+				roundDispatched = 0;
+				roundSkipped = 0;
+				roundTokens = 0;
+				roundStartNanos = System.nanoTime();
+			}
+
+			// NOTE : the round is fully dispatched on its last tick, one tick before the next round starts
+			roundTokens += (double) roundSize * tick.toNanos() / pollingInterval.toNanos();
+			for (; roundTokens + 1e-9 >= 1 && round.hasNext() && !stop; roundTokens--) {
+				if (refresh(round.next())) {
+					roundDispatched++;
+				} else {
+					roundSkipped++;
+				}
+			}
+			if (!round.hasNext()) {
+				round = null;
+				endCycle(Duration.ofNanos(System.nanoTime() - roundStartNanos), roundDispatched, roundSkipped);
 			}
+		} catch (RuntimeException e) {
+			logger.error("Tracker tick failed", e);
 		}
+	}
 
+	/** Starts refreshing a user's location, unless its previous refresh is still running.
+	 *
+	 * @param user the user
+	 * @return {@code false} if the user was skipped
+	 */
+	private boolean refresh(User user) {
+		UUID userId = user.getUserId();
+		if (!refreshesInFlight.add(userId)) {
+			logger.debug("Skipping " + user.getUserName() + ", whose previous refresh is still running");
+			return false;
+		}
+		tourGuideService.trackUserLocationAsync(user).whenComplete((visitedLocation, e) -> {
+			refreshesInFlight.remove(userId);
+			if (e != null) {
+				logger.error("Failed to track location for user: " + user.getUserName(), e);
+			}
+		});
+		return true;
+	}
+
+	// NOTE : a continuous round only times the dispatch, a user skipped because its refresh outlived the round overruns it
+	private void endCycle(Duration elapsed, int tracked, int skipped) {
+		lastCycleDuration = elapsed;
+		cycleCount.incrementAndGet();
+		boolean overrun = elapsed.compareTo(pollingInterval) > 0 || skipped > 0;
+		tourGuideService.getMetrics().recordTrackerCycle(elapsed, overrun);
+		if (overrun) {
+			overrunCount.incrementAndGet();
+			logger.warn("Tracker cycle overran: {} users tracked in {} ms, {} still being refreshed, polling interval is {} ms",
+					tracked, elapsed.toMillis(), skipped, pollingInterval.toMillis());
+		} else {
+			logger.debug("Tracker Time Elapsed: " + elapsed.toSeconds() + " seconds.");
+		}
 	}
 }
@@ -0,0 +1,68 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Scheduling of the {@link Tracker}, bound from the {@code tourguide.tracker.*} properties.
+ *
+ * @see Tracker
+ */
+@ConfigurationProperties(prefix = "tourguide.tracker")
+public class TrackerProperties {
+
+	/** All users at once every interval, or a steady flow of users spread across the interval. */
+	private TrackingMode mode = TrackingMode.BATCH;
+
+	/** Time between the starts of two tracking cycles. */
+	private Duration pollingInterval = Duration.ofMinutes(5);
+
+	/** Delay before the first cycle; users already have a location history at startup. */
+	private Duration initialDelay = Duration.ofMinutes(5);
+
+	/** Number of users tracked together by one call to the batch path. */
+	private int shardSize = 10_000;
+
+	/** In {@link TrackingMode#CONTINUOUS} mode, time between two dispatches of users. */
+	private Duration tick = Duration.ofSeconds(1);
+
+	public TrackingMode getMode() {
+		return mode;
+	}
+
+	public void setMode(TrackingMode mode) {
+		this.mode = mode;
+	}
+
+	public Duration getPollingInterval() {
+		return pollingInterval;
+	}
+
+	public void setPollingInterval(Duration pollingInterval) {
+		this.pollingInterval = pollingInterval;
+	}
+
+	public Duration getInitialDelay() {
+		return initialDelay;
+	}
+
+	public void setInitialDelay(Duration initialDelay) {
+		this.initialDelay = initialDelay;
+	}
+
+	public int getShardSize() {
+		return shardSize;
+	}
+
+	public void setShardSize(int shardSize) {
+		this.shardSize = shardSize;
+	}
+
+	public Duration getTick() {
+		return tick;
+	}
+
+	public void setTick(Duration tick) {
+		this.tick = tick;
+	}
+}
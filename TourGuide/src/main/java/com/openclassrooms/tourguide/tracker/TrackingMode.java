@@ -0,0 +1,12 @@
+package com.openclassrooms.tourguide.tracker;
+
+/** How the {@link Tracker} spreads the location requests over the polling interval. */
+public enum TrackingMode {
+
+	/** Every user is tracked at the start of each interval, shard after shard. */
+	BATCH,
+
+	/** Users are tracked a few at a time on every tick, at a steady rate of users / polling interval,
+	 * so that each one is refreshed about once per interval. */
+	CONTINUOUS
+}
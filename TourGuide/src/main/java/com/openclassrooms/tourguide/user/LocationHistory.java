@@ -0,0 +1,374 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/** Append-only history of the locations visited by a user, stored as primitive columns.
+ *
+ * <p>Each location costs 24 bytes (latitude, longitude, epoch millis) in chunks of {@value #CHUNK_SIZE}
+ * entries, instead of a {@link VisitedLocation}, a {@link Location} and a {@link Date} per entry.
+ * Every location keeps the index it was appended at: indices only grow, even when the oldest chunks
+ * are dropped to respect the capacity, so that a reader can resume from an index without a snapshot.
+ * The capacity never drops a location from the {@code keepFrom} index on, such as the locations not
+ * checked for rewards yet: the history grows beyond its capacity until they are.</p>
+ *
+ * <p>Appends take a lock, held for the stores of a single location, then publish it by moving the end
+ * of the history, so readers never see a partially written entry. Reads take no lock.</p>
+ */
+public class LocationHistory {
+
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+	static final int CHUNK_SHIFT = 5;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	/** Estimated heap size of a chunk: three arrays of {@value #CHUNK_SIZE} 8-byte values, their headers and the chunk. */
+	public static final long CHUNK_BYTES = 3 * (16 + CHUNK_SIZE * 8L) + 24;
+	private static final long NO_TIME = Long.MIN_VALUE;
+
+	private final UUID userId;
+	private final int capacity;
+	private final LongSupplier keepFrom;
+	private final Lock appendLock = new ReentrantLock();
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicReference<Directory> directory = new AtomicReference<>(new Directory(0, 0, new Chunk[0]));
+	private volatile long retainedUpTo;
+
+
+	/** Creates an empty history.
+	 *
+	 * @param userId the user whose locations are stored, reported by the {@link VisitedLocation} read back
+	 * @param capacity number of locations kept at least, the oldest chunks beyond it being dropped;
+	 *                 {@link #UNBOUNDED} to keep everything
+	 */
+	public LocationHistory(UUID userId, int capacity) {
+		this(userId, capacity, () -> Long.MAX_VALUE);
+	}
+
+
+	/** Creates an empty history, whose capacity keeps the locations from an index on.
+	 *
+	 * @param userId the user whose locations are stored, reported by the {@link VisitedLocation} read back
+	 * @param capacity number of locations kept at least, the oldest chunks beyond it being dropped;
+	 *                 {@link #UNBOUNDED} to keep everything
+	 * @param keepFrom gives the index of the oldest location the capacity must not drop, read on each append
+	 */
+	public LocationHistory(UUID userId, int capacity, LongSupplier keepFrom) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.userId = userId;
+		this.capacity = capacity;
+		this.keepFrom = keepFrom;
+	}
+
+
+	/** Appends a location.
+	 *
+	 * @param latitude latitude of the location
+	 * @param longitude longitude of the location
+	 * @param timeMillis epoch millis of the visit
+	 * @return the index of the new location
+	 */
+	public long append(double latitude, double longitude, long timeMillis) {
+		long index;
+		appendLock.lock();
+		try {
+			index = published.get();
+			Chunk chunk = chunkForAppend(index);
+			int offset = (int) (index & (CHUNK_SIZE - 1));
+			chunk.latitudes[offset] = latitude;
+			chunk.longitudes[offset] = longitude;
+			chunk.times[offset] = timeMillis;
+			published.set(index + 1);
+		} finally {
+			appendLock.unlock();
+		}
+
+		if (capacity != UNBOUNDED && index + 1 - capacity >= CHUNK_SIZE) {
+			// whole chunks only: between capacity and capacity + CHUNK_SIZE - 1 locations are kept, or more from keepFrom
+			dropBefore(Math.min((index + 1 - capacity) & -CHUNK_SIZE, keepFrom.getAsLong()));
+		}
+		return index;
+	}
+
+
+	/** Appends a visited location.
+	 *
+	 * @param visitedLocation the location visited
+	 * @return the index of the new location
+	 */
+	public long append(VisitedLocation visitedLocation) {
+		Date timeVisited = visitedLocation.timeVisited;
+		return append(visitedLocation.location.latitude, visitedLocation.location.longitude,
+				timeVisited == null ? NO_TIME : timeVisited.getTime());
+	}
+
+
+	/** Returns the index the next location will be appended at, the end of the history. */
+	public long endIndex() {
+		return published.get();
+	}
+
+
+	/** Returns the index of the oldest location still stored. */
+	public long firstIndex() {
+		return Math.min(directory.get().firstIndex, published.get());
+	}
+
+
+	/** Returns the number of locations stored. */
+	public int size() {
+		long end = published.get();
+		return (int) (end - Math.min(directory.get().firstIndex, end));
+	}
+
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+
+	public double latitude(long index) {
+		return chunk(index).latitudes[offset(index)];
+	}
+
+
+	public double longitude(long index) {
+		return chunk(index).longitudes[offset(index)];
+	}
+
+
+	/** Returns the epoch millis of the visit at an index, or {@link Long#MIN_VALUE} if it was unknown. */
+	public long timeMillis(long index) {
+		return chunk(index).times[offset(index)];
+	}
+
+
+	/** Reads a location back as a {@link VisitedLocation}, allocated on each call.
+	 *
+	 * @param index the index of the location
+	 * @return the location visited
+	 * @throws IndexOutOfBoundsException if the location was dropped or not appended yet
+	 */
+	public VisitedLocation get(long index) {
+		Chunk chunk = chunk(index);
+		int offset = offset(index);
+		long time = chunk.times[offset];
+		return new VisitedLocation(userId, new Location(chunk.latitudes[offset], chunk.longitudes[offset]),
+				time == NO_TIME ? null : new Date(time));
+	}
+
+
+	/** Returns the most recent location.
+	 *
+	 * @throws IndexOutOfBoundsException if the history is empty
+	 */
+	public VisitedLocation last() {
+		return get(published.get() - 1);
+	}
+
+
+	/** Returns a cursor over the locations, from an index to the end of the history.
+	 * The cursor copies nothing and sees the locations appended while it is used.
+	 *
+	 * @param fromIndex index of the first location, moved forward to {@link #firstIndex()} if it was dropped
+	 * @return a new cursor, positioned before its first location
+	 */
+	public Cursor cursor(long fromIndex) {
+		return new Cursor(Math.max(fromIndex, firstIndex()));
+	}
+
+
+	/** Returns a live, read-only view of the stored locations, oldest first, each read back on access.
+	 * Positions in the view start at {@link #firstIndex()}, so they shift when old locations are dropped.
+	 *
+	 * @return the stored locations
+	 */
+	public List<VisitedLocation> asList() {
+		return new AbstractList<>() {
+			@Override
+			public VisitedLocation get(int position) {
+				return LocationHistory.this.get(firstIndex() + position);
+			}
+
+			@Override
+			public int size() {
+				return LocationHistory.this.size();
+			}
+		};
+	}
+
+
+	/** Returns the estimated heap size of the chunks currently stored. */
+	public long footprintBytes() {
+		return directory.get().chunks.length * CHUNK_BYTES;
+	}
+
+
+	/** Returns the end of the range passed to the last {@link #retain(long, BitSet)}, 0 if it was never called. */
+	public long retainedUpTo() {
+		return retainedUpTo;
+	}
+
+
+	/** Drops some of the oldest locations, up to an index, and packs the others against that index.
+	 * The locations from {@code upTo} on, and their indices, are left untouched; the kept locations
+	 * below it get new, higher indices, in the same order, so the history stays contiguous.
+	 *
+	 * <p>Meant for locations nobody will resume a cursor from any more: a reader of one of the moved
+	 * indices may read a location which has just been moved there.</p>
+	 *
+	 * @param upTo end of the range to compact, at most {@link #endIndex()}
+	 * @param keep bit {@code i} set to keep the location at {@code firstIndex() + i}
+	 * @return the number of locations dropped
+	 */
+	public synchronized int retain(long upTo, BitSet keep) {
+		long from = firstIndex();
+		if (upTo < from || upTo > published.get()) {
+			throw new IndexOutOfBoundsException("Range [" + from + ", " + upTo + ") out of [" + from + ", " + published.get() + ")");
+		}
+		// NOTE : moves from the top down, every location going to an index above or at its own, never over one still to move
+		long target = upTo;
+		for (int i = keep.previousSetBit((int) (upTo - from) - 1); i >= 0; i = keep.previousSetBit(i - 1)) {
+			long source = from + i;
+			target--;
+			if (source != target) {
+				Chunk sourceChunk = chunk(source);
+				Chunk targetChunk = chunk(target);
+				targetChunk.latitudes[offset(target)] = sourceChunk.latitudes[offset(source)];
+				targetChunk.longitudes[offset(target)] = sourceChunk.longitudes[offset(source)];
+				targetChunk.times[offset(target)] = sourceChunk.times[offset(source)];
+			}
+		}
+		dropBefore(target);
+		retainedUpTo = upTo;
+		return (int) (target - from);
+	}
+
+
+	/** Drops every stored location. Indices keep growing from where they were. */
+	public void clear() {
+		dropBefore(published.get());
+	}
+
+
+	private Chunk chunkForAppend(long index) {
+		long chunkNumber = index >>> CHUNK_SHIFT;
+		while (true) {
+			Directory current = directory.get();
+			int position = (int) (chunkNumber - current.firstChunk);
+			if (position < current.chunks.length) {
+				return current.chunks[position];
+			}
+			Chunk[] chunks = Arrays.copyOf(current.chunks, position + 1);
+			for (int i = current.chunks.length; i < chunks.length; i++) {
+				chunks[i] = new Chunk();
+			}
+			directory.compareAndSet(current, new Directory(current.firstIndex, current.firstChunk, chunks));
+		}
+	}
+
+
+	// NOTE : the chunk holding the new first index is kept, so the chunk being filled is never dropped
+	private void dropBefore(long index) {
+		while (true) {
+			Directory current = directory.get();
+			if (index <= current.firstIndex) {
+				return;
+			}
+			int dropped = (int) Math.min((index >>> CHUNK_SHIFT) - current.firstChunk, current.chunks.length);
+			Directory next = new Directory(index, current.firstChunk + dropped,
+					Arrays.copyOfRange(current.chunks, dropped, current.chunks.length));
+			if (directory.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+
+	// NOTE : reads the end before the directory, which already holds the chunks of every published index
+	private Chunk chunk(long index) {
+		long end = published.get();
+		Directory current = directory.get();
+		if (index < current.firstIndex || index >= end) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of [" + current.firstIndex + ", " + end + ")");
+		}
+		return current.chunks[(int) ((index >>> CHUNK_SHIFT) - current.firstChunk)];
+	}
+
+
+	private static int offset(long index) {
+		return (int) (index & (CHUNK_SIZE - 1));
+	}
+
+
+	/** Forward-only reader of a {@link LocationHistory}, reading the columns of one location at a time. */
+	public class Cursor {
+
+		private long index;
+
+		private Cursor(long fromIndex) {
+			this.index = fromIndex - 1;
+		}
+
+		/** Moves to the next location.
+		 *
+		 * @return {@code false} if the end of the history has been reached
+		 */
+		public boolean next() {
+			if (index + 1 >= published.get()) {
+				return false;
+			}
+			index = Math.max(index + 1, firstIndex());
+			return true;
+		}
+
+		public long index() {
+			return index;
+		}
+
+		public double latitude() {
+			return LocationHistory.this.latitude(index);
+		}
+
+		public double longitude() {
+			return LocationHistory.this.longitude(index);
+		}
+
+		public VisitedLocation visitedLocation() {
+			return get(index);
+		}
+	}
+
+
+	private static final class Chunk {
+		final double[] latitudes = new double[CHUNK_SIZE];
+		final double[] longitudes = new double[CHUNK_SIZE];
+		final long[] times = new long[CHUNK_SIZE];
+	}
+
+
+	/** Immutable list of the chunks stored, replaced as a whole when a chunk is added or dropped. */
+	private static final class Directory {
+		final long firstIndex;
+		final long firstChunk;
+		final Chunk[] chunks;
+
+		Directory(long firstIndex, long firstChunk, Chunk[] chunks) {
+			this.firstIndex = firstIndex;
+			this.firstChunk = firstChunk;
+			this.chunks = chunks;
+		}
+	}
+}
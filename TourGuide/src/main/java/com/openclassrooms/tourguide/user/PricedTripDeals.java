@@ -0,0 +1,38 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import tripPricer.Provider;
+
+/** Trip deals of a user, with when and for which pricing inputs they were priced.
+ *
+ * @param providers the deals, one per provider
+ * @param pricedAt when TripPricer was called
+ * @param adults number of adults priced
+ * @param children number of children priced
+ * @param nightsStay trip duration priced, in nights
+ * @param rewardPoints cumulative reward points deducted from the prices
+ */
+public record PricedTripDeals(List<Provider> providers, Instant pricedAt, int adults, int children, int nightsStay,
+		int rewardPoints) {
+
+	/** Tells whether the deals can still be served to a user: priced at most {@code maxStaleness} ago,
+	 * for the user's current preferences and reward points.
+	 *
+	 * @param user the user
+	 * @param now the current time
+	 * @param maxStaleness the staleness bound; the deals are never valid if it is zero
+	 * @return {@code true} if the deals are fresh and priced for the same inputs
+	 */
+	public boolean isValidFor(User user, Instant now, Duration maxStaleness) {
+		UserPreferences preferences = user.getUserPreferences();
+		return !maxStaleness.isZero() && !maxStaleness.isNegative()
+				&& !now.isAfter(pricedAt.plus(maxStaleness))
+				&& adults == preferences.getNumberOfAdults()
+				&& children == preferences.getNumberOfChildren()
+				&& nightsStay == preferences.getTripDuration()
+				&& rewardPoints == user.getCumulativeRewardPoints();
+	}
+}
@@ -1,30 +1,67 @@
 package com.openclassrooms.tourguide.user;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
 
 public class User {
+	private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
 	private final UUID userId;
 	private final String userName;
 	private String phoneNumber;
 	private String emailAddress;
-	private Date latestLocationTimestamp;
+	// Epoch millis of the latest location, NO_TIMESTAMP until the user is located
+	private final AtomicLong latestLocationTimestamp = new AtomicLong(NO_TIMESTAMP);
 
-	private List<VisitedLocation> visitedLocations = new ArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
+	private final LocationHistory locationHistory;
+	// Index in locationHistory of the first location not yet checked for rewards, see RewardsService.calculateRewards
+	private final AtomicLong rewardWatermark = new AtomicLong();
+	private final Lock rewardsLock = new ReentrantLock();
+	// Last rewards calculation queued, see queueRewardsCalculation
+	private final AtomicReference<CompletableFuture<?>> lastRewardsCalculation =
+			new AtomicReference<>(CompletableFuture.completedFuture(null));
+	private final List<UserReward> userRewards = new CopyOnWriteArrayList<>();
+	// Kept in sync with userRewards: names and catalogue positions (one bit each) of the rewarded attractions
+	private final Set<String> rewardedAttractionNames = ConcurrentHashMap.newKeySet();
+	private volatile long[] rewardedAttractionBits = new long[1];
+	private volatile int rewardedAttractionCount;
+	// Running total of the points of userRewards, see getCumulativeRewardPoints
+	private volatile int cumulativeRewardPoints;
 	private UserPreferences userPreferences = new UserPreferences();
 	private List<Provider> tripDeals = new ArrayList<>();
+	private volatile PricedTripDeals pricedTripDeals;
 
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
+		this(userId, userName, phoneNumber, emailAddress, LocationHistory.UNBOUNDED);
+	}
+
+	/** Creates a user whose location history is capped. The locations not checked for rewards yet are
+	 * kept beyond the capacity, until they are.
+	 *
+	 * @param locationHistoryCapacity number of visited locations kept at least, see {@link LocationHistory}
+	 */
+	public User(UUID userId, String userName, String phoneNumber, String emailAddress, int locationHistoryCapacity) {
 		this.userId = userId;
 		this.userName = userName;
 		this.phoneNumber = phoneNumber;
 		this.emailAddress = emailAddress;
+		this.locationHistory = new LocationHistory(userId, locationHistoryCapacity, rewardWatermark::get);
 	}
 	
 	public UUID getUserId() {
@@ -52,33 +89,167 @@ public class User {
 	}
 	
 	public void setLatestLocationTimestamp(Date latestLocationTimestamp) {
-		this.latestLocationTimestamp = latestLocationTimestamp;
+		this.latestLocationTimestamp.set(latestLocationTimestamp == null ? NO_TIMESTAMP : latestLocationTimestamp.getTime());
 	}
 	
 	public Date getLatestLocationTimestamp() {
-		return latestLocationTimestamp;
+		long latest = latestLocationTimestamp.get();
+		return latest == NO_TIMESTAMP ? null : new Date(latest);
 	}
 	
+	/** Adds a visited location, and moves the latest location timestamp forward if the location is newer.
+	 *
+	 * @param visitedLocation the location visited
+	 */
 	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		locationHistory.append(visitedLocation);
+		Date timeVisited = visitedLocation.timeVisited;
+		if (timeVisited != null) {
+			latestLocationTimestamp.accumulateAndGet(timeVisited.getTime(), Math::max);
+		}
 	}
 
+	/** Returns a live, read-only view of the visited locations, oldest first.
+	 *
+	 * @see LocationHistory#asList()
+	 */
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return locationHistory.asList();
+	}
+
+	public LocationHistory getLocationHistory() {
+		return locationHistory;
 	}
 	
 	public void clearVisitedLocations() {
-		visitedLocations.clear();
+		locationHistory.clear();
+		clearUnrewardedLocations();
+	}
+
+	/** Returns the index in the {@link #getLocationHistory() location history} of the first location
+	 * not yet checked for rewards. */
+	public long getRewardWatermark() {
+		return rewardWatermark.get();
+	}
+
+	/** Marks the locations before an index as checked for rewards.
+	 *
+	 * @param index index of the first location still to check; a lower watermark is left unchanged
+	 */
+	public void advanceRewardWatermark(long index) {
+		rewardWatermark.accumulateAndGet(index, Math::max);
+	}
+
+	public void clearUnrewardedLocations() {
+		advanceRewardWatermark(locationHistory.endIndex());
+	}
+
+	/** Lock guarding the reward watermark and the locations below it, held while a rewards
+	 * calculation reads or moves the watermark and while the history is compacted.
+	 * A {@link Lock} rather than a monitor, so that a virtual thread holding it does not pin its carrier thread.
+	 *
+	 * @return the lock of this user's reward calculations
+	 */
+	public Lock getRewardsLock() {
+		return rewardsLock;
+	}
+
+	/** Starts a rewards calculation of this user once those queued before it have completed,
+	 * successfully or not. The calculations of a user are chained rather than locked, so that no
+	 * thread waits for the previous one while its stages run on other threads.
+	 *
+	 * @param calculation starts the calculation and returns its future
+	 * @return a future completed like the calculation's; cancelling it does not affect the chain
+	 */
+	public <T> CompletableFuture<T> queueRewardsCalculation(Supplier<CompletableFuture<T>> calculation) {
+		CompletableFuture<T> done = new CompletableFuture<>();
+		CompletableFuture<?> previous = lastRewardsCalculation.getAndSet(done);
+		previous.whenComplete((ignored, previousFailure) -> {
+			try {
+				calculation.get().whenComplete((result, failure) -> {
+					if (failure == null) {
+						done.complete(result);
+					} else {
+						done.completeExceptionally(failure);
+					}
+				});
+			} catch (RuntimeException | Error e) {
+				done.completeExceptionally(e);
+			}
+		});
+		return done.copy();
 	}
 	
+	/** Adds a reward, unless the user has already been rewarded for the same attraction.
+	 *
+	 * @param userReward the reward to add
+	 * @deprecated a reward added this way is only known by its attraction name, and
+	 *             {@link #hasRewardForAttraction(int)} stays {@code false} for it: use
+	 *             {@link #addUserReward(UserReward, int)} with the attraction's catalogue position
+	 */
+	@Deprecated
 	public void addUserReward(UserReward userReward) {
-		if (userRewards.stream().noneMatch(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName))) {
-			userRewards.add(userReward);
+		addUserReward(userReward, -1);
+	}
+
+	/** Adds a reward, unless the user has already been rewarded for the same attraction,
+	 * records the attraction's position for {@link #hasRewardForAttraction(int)} and adds its points
+	 * to {@link #getCumulativeRewardPoints()}.
+	 *
+	 * @param userReward the reward to add
+	 * @param attractionIndex position of the rewarded attraction in the catalogue, or -1 if unknown
+	 */
+	public void addUserReward(UserReward userReward, int attractionIndex) {
+		synchronized (rewardedAttractionNames) {
+			if (attractionIndex >= 0) {
+				markAttractionRewarded(attractionIndex);
+			}
+			if (rewardedAttractionNames.add(userReward.attraction.attractionName)) {
+				userRewards.add(userReward);
+				cumulativeRewardPoints += userReward.getRewardPoints();
+			}
+		}
+	}
+
+	/** Tells, in constant time and without allocating, whether the user has been rewarded for an attraction.
+	 *
+	 * @param attractionIndex position of the attraction in the catalogue
+	 * @return {@code true} if a reward was added for that position
+	 */
+	public boolean hasRewardForAttraction(int attractionIndex) {
+		long[] bits = rewardedAttractionBits;
+		int word = attractionIndex >>> 6;
+		return word < bits.length && (bits[word] & (1L << attractionIndex)) != 0;
+	}
+
+	/** Returns the number of distinct catalogue positions passed to {@link #addUserReward(UserReward, int)}. */
+	public int getRewardedAttractionCount() {
+		return rewardedAttractionCount;
+	}
+
+	// NOTE : copy on write, rewards are rare (at most one per attraction) while lookups are constant
+	private void markAttractionRewarded(int attractionIndex) {
+		int word = attractionIndex >>> 6;
+		long[] bits = Arrays.copyOf(rewardedAttractionBits, Math.max(rewardedAttractionBits.length, word + 1));
+		if ((bits[word] & (1L << attractionIndex)) == 0) {
+			bits[word] |= 1L << attractionIndex;
+			rewardedAttractionCount++;
+			rewardedAttractionBits = bits;
 		}
 	}
 	
+	/** Returns the sum of the points of the user's rewards, kept up to date by {@link #addUserReward(UserReward, int)}
+	 * rather than summed over the rewards on each call. The points of a reward count as they were when it was added.
+	 */
+	public int getCumulativeRewardPoints() {
+		return cumulativeRewardPoints;
+	}
+
+	/** Returns a live, read-only view of the user's rewards: they are only added through
+	 * {@link #addUserReward(UserReward, int)}, which keeps the rewarded attractions and the points in sync.
+	 */
 	public List<UserReward> getUserRewards() {
-		return userRewards;
+		return Collections.unmodifiableList(userRewards);
 	}
 	
 	public UserPreferences getUserPreferences() {
@@ -90,7 +261,7 @@ public class User {
 	}
 
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return locationHistory.last();
 	}
 	
 	public void setTripDeals(List<Provider> tripDeals) {
@@ -101,4 +272,18 @@ public class User {
 		return tripDeals;
 	}
 
+	/** Returns the trip deals last priced for this user with their pricing inputs, or {@code null} if none were. */
+	public PricedTripDeals getPricedTripDeals() {
+		return pricedTripDeals;
+	}
+
+	/** Records trip deals just priced, which also become the user's {@link #getTripDeals() trip deals}.
+	 *
+	 * @param pricedTripDeals the deals and their pricing inputs
+	 */
+	public void setPricedTripDeals(PricedTripDeals pricedTripDeals) {
+		this.pricedTripDeals = pricedTripDeals;
+		this.tripDeals = pricedTripDeals.providers();
+	}
+
 }
@@ -0,0 +1,59 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/** The /async/* endpoints hand the request back to the container before the upstream service answers. */
+@SpringBootTest(properties = {
+		"tourguide.upstream.mode=SIMULATED",
+		"tourguide.upstream.simulation.trip-pricer.distribution=FIXED",
+		"tourguide.upstream.simulation.trip-pricer.latency=2s",
+		"tourguide.trip-deals.cache.enabled=false",
+		"logging.level.com.openclassrooms.tourguide=INFO" })
+@AutoConfigureMockMvc
+public class TestAsyncEndpoints {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	@Test
+	public void asyncTripDealsReleaseTheRequestThreadDuringTheTripPricerCall() throws Exception {
+		tourGuideService.tracker.stopTracking();
+		User user = new User(UUID.randomUUID(), "asyncUser", "000", "asyncUser@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()));
+		tourGuideService.addUser(user);
+
+		long start = System.nanoTime();
+		MvcResult result = mockMvc.perform(get("/async/getTripDeals").param("userName", "asyncUser"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		long released = System.nanoTime() - start;
+
+		assertTrue(released < TimeUnit.SECONDS.toNanos(1), "the request thread waited " + released / 1_000_000 + " ms");
+		assertNotNull(result.getAsyncResult(10_000));
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+	}
+}
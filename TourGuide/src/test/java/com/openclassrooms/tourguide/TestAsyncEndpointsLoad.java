@@ -0,0 +1,105 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/** Sustained throughput of the blocking and asynchronous endpoints, with the default Tomcat thread count (200).
+ * Tagged {@code load}: it takes about a minute, and only runs with {@code mvn test -Pload}.
+ *
+ * <p>TripPricer is simulated with a fixed latency, and more requests are kept in flight than Tomcat
+ * has threads: the blocking endpoint holds a request thread for each TripPricer call, so its
+ * throughput is capped at about 200 / latency, while the asynchronous one hands the call over to
+ * the upstream pool and keeps accepting requests.</p>
+ *
+ * <p>The latency is long so that both caps, 50 and 100 requests/s, stay below what the HTTP stack
+ * of a small CI machine serves: the difference measured is the request threads, not the CPU.</p>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"tourguide.upstream.mode=SIMULATED",
+		"tourguide.upstream.simulation.trip-pricer.distribution=FIXED",
+		"tourguide.upstream.simulation.trip-pricer.latency=4s",
+		"tourguide.trip-deals.cache.enabled=false",
+		"logging.level.com.openclassrooms.tourguide=INFO" })
+public class TestAsyncEndpointsLoad {
+
+	private static final int IN_FLIGHT = 400;
+	private static final Duration WARM_UP = Duration.ofSeconds(4);
+	private static final Duration MEASURE = Duration.ofSeconds(12);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	@Test
+	public void asyncEndpointSustainsHigherThroughput() throws Exception {
+		tourGuideService.tracker.stopTracking();
+		User user = new User(UUID.randomUUID(), "loadTestUser", "000", "loadTestUser@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()));
+		tourGuideService.addUser(user);
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+		double blockingRps = sustainedRps(client, "/getTripDeals?userName=loadTestUser");
+		double asyncRps = sustainedRps(client, "/async/getTripDeals?userName=loadTestUser");
+
+		System.out.printf("getTripDeals: %.0f requests/s blocking, %.0f requests/s async%n", blockingRps, asyncRps);
+		assertTrue(asyncRps > 1.5 * blockingRps, "async " + asyncRps + " requests/s, blocking " + blockingRps);
+	}
+
+	/** Keeps {@value #IN_FLIGHT} requests in flight, and counts the successful ones completed
+	 * during the measurement, after a warm up. */
+	private double sustainedRps(HttpClient client, String path) throws InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.timeout(Duration.ofSeconds(30)).build();
+		Semaphore inFlight = new Semaphore(IN_FLIGHT);
+		AtomicLong completed = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		long start = System.nanoTime();
+		long measureFrom = start + WARM_UP.toNanos();
+		long measureTo = measureFrom + MEASURE.toNanos();
+		while (System.nanoTime() < measureTo) {
+			if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+				continue;
+			}
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+				long now = System.nanoTime();
+				if (now >= measureFrom && now < measureTo) {
+					if (e == null && response.statusCode() == 200) {
+						completed.incrementAndGet();
+					} else {
+						failed.incrementAndGet();
+					}
+				}
+				inFlight.release();
+			});
+		}
+		// drains the requests still in flight before the next measurement
+		inFlight.acquire(IN_FLIGHT);
+		assertEquals(0, failed.get(), path + " failed");
+		return completed.get() / (MEASURE.toNanos() / 1e9);
+	}
+}
@@ -0,0 +1,126 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.GpsClient;
+import com.openclassrooms.tourguide.geo.AttractionCatalog;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.NearestAttractionSearch;
+import com.openclassrooms.tourguide.geo.NearestAttractions;
+
+public class TestAttractionCatalog {
+
+	private final AtomicReference<List<Attraction>> upstream = new AtomicReference<>();
+
+	private final GpsClient gpsClient = new GpsClient() {
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Attraction> getAttractions() {
+			List<Attraction> attractions = upstream.get();
+			if (attractions == null) {
+				throw new IllegalStateException("GpsUtil is down");
+			}
+			return attractions;
+		}
+	};
+
+	@Test
+	public void identifiersAreKeptAcrossRefreshesByName() {
+		upstream.set(List.of(attraction("a", 10, 10), attraction("b", 20, 20), attraction("c", 30, 30)));
+		AttractionCatalog catalog = new AttractionCatalog(gpsClient);
+		AttractionIndex first = catalog.current();
+		assertEquals(1, catalog.snapshot().version());
+
+		// GpsUtil answers new instances, with new ids, for the same attractions
+		upstream.set(List.of(attraction("a", 10, 10), attraction("b", 20, 20), attraction("c", 30, 30)));
+		assertFalse(catalog.refresh());
+		assertSame(first, catalog.current());
+
+		upstream.set(List.of(attraction("c", 30, 30), attraction("d", 40, 40), attraction("b", 25, 25)));
+		assertTrue(catalog.refresh());
+		AttractionIndex second = catalog.current();
+
+		assertEquals(2, catalog.snapshot().version());
+		assertEquals(4, second.size());
+		assertEquals(3, second.activeCount());
+		assertEquals("a", second.get(0).attractionName);
+		assertTrue(second.isRetired(0));
+		assertEquals(25, second.get(1).latitude);
+		assertSame(first.get(2), second.get(2));
+		assertEquals("d", second.get(3).attractionName);
+
+		// the retired attraction is never found, and the previous snapshot is left as it was
+		assertArrayEquals(new int[0], second.findWithin(10, 10, 1));
+		NearestAttractions nearest = new NearestAttractionSearch(second).nearest(10, 10, 5);
+		assertEquals(3, nearest.size());
+		assertEquals(1, nearest.attractionIndex(0));
+		assertArrayEquals(new int[] { 0 }, first.findWithin(10, 10, 1));
+	}
+
+	@Test
+	public void failedOrEmptyRefreshKeepsTheSnapshot() {
+		upstream.set(List.of(attraction("a", 10, 10)));
+		AttractionCatalog catalog = new AttractionCatalog(gpsClient);
+		AttractionIndex index = catalog.current();
+
+		upstream.set(null);
+		assertThrows(IllegalStateException.class, catalog::refresh);
+		upstream.set(List.of());
+		assertFalse(catalog.refresh());
+
+		assertSame(index, catalog.current());
+		assertEquals(1, catalog.snapshot().version());
+	}
+
+	@Test
+	public void readersOnlySeeCompleteSnapshots() throws InterruptedException {
+		List<Attraction> three = List.of(attraction("a", 10, 10), attraction("b", 20, 20), attraction("c", 30, 30));
+		List<Attraction> four = List.of(attraction("a", 10, 10), attraction("b", 20, 20), attraction("c", 30, 30),
+				attraction("d", 40, 40));
+		upstream.set(three);
+		AttractionCatalog catalog = new AttractionCatalog(gpsClient);
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<String> inconsistency = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while (!done.get()) {
+				AttractionIndex index = catalog.current();
+				int found = new NearestAttractionSearch(index).nearest(0, 0, 10).size();
+				if (found != index.activeCount() || (found != 3 && found != 4)) {
+					inconsistency.set(found + " attractions found in a snapshot of " + index.activeCount());
+				}
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 500; i++) {
+			upstream.set(i % 2 == 0 ? four : three);
+			catalog.refresh();
+		}
+		done.set(true);
+		reader.join();
+
+		assertEquals(null, inconsistency.get());
+		assertEquals(501, catalog.snapshot().version());
+	}
+
+	private static Attraction attraction(String name, double latitude, double longitude) {
+		return new Attraction(name, "city", "state", latitude, longitude);
+	}
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.geo.NearestAttractionSearch;
+import com.openclassrooms.tourguide.geo.NearestAttractions;
+
+public class TestAttractionIndex {
+
+	private static final double[] RADII = { 0, 1, 10, 200, 1_000, 6_000, 12_500, Integer.MAX_VALUE };
+
+	@Test
+	public void sameResultsAsBruteForceOnGpsUtilCatalogue() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		AttractionIndex index = AttractionIndex.of(attractions);
+		Random random = new Random(42);
+
+		for (int i = 0; i < 2_000; i++) {
+			Location location = new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+			for (double radius : RADII) {
+				assertArrayEquals(bruteForce(attractions, location, radius),
+						index.findWithin(location.latitude, location.longitude, radius));
+			}
+		}
+		for (Attraction attraction : attractions) {
+			assertEquals(attraction.attractionName, index.getAttractionsWithin(attraction, 0.001).get(0).attractionName);
+		}
+	}
+
+	@Test
+	public void sameResultsAsBruteForceNearPolesAndAntimeridian() {
+		Random random = new Random(7);
+		List<Attraction> attractions = new ArrayList<>();
+		IntStream.range(0, 5_000).forEach(i -> attractions.add(new Attraction("a" + i, "city", "state",
+				-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360)));
+		attractions.add(new Attraction("north", "city", "state", 90, 0));
+		attractions.add(new Attraction("dateline", "city", "state", 10, 180));
+		AttractionIndex index = AttractionIndex.of(attractions);
+
+		double[][] points = { { 89.99, 0 }, { -89.5, 120 }, { 10, -179.999 }, { 10, 179.999 }, { 0, 0 }, { 60, -179.5 } };
+		for (double[] point : points) {
+			Location location = new Location(point[0], point[1]);
+			for (double radius : RADII) {
+				assertArrayEquals(bruteForce(attractions, location, radius),
+						index.findWithin(location.latitude, location.longitude, radius));
+			}
+		}
+	}
+
+	@Test
+	public void distanceKernelMatchesGeoDistanceWithinTolerance() {
+		Random random = new Random(11);
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			attractions.add(new Attraction("a" + i, "city", "state", -90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360));
+		}
+		DistanceKernel kernel = AttractionIndex.of(attractions).getDistanceKernel();
+		double[] distances = new double[kernel.size()];
+
+		for (int q = 0; q < 200; q++) {
+			Attraction near = attractions.get(random.nextInt(attractions.size()));
+			double latitude = q % 2 == 0 ? -90 + random.nextDouble() * 180 : near.latitude + random.nextGaussian() * 1e-3;
+			double longitude = q % 2 == 0 ? -180 + random.nextDouble() * 360 : near.longitude + random.nextGaussian() * 1e-3;
+			kernel.statuteMiles(latitude, longitude, distances);
+			for (int i = 0; i < attractions.size(); i++) {
+				Attraction attraction = attractions.get(i);
+				double exact = GeoDistance.statuteMiles(attraction.latitude, attraction.longitude, latitude, longitude);
+				if (!Double.isNaN(exact)) {
+					assertEquals(exact, distances[i], DistanceKernel.TOLERANCE_MILES);
+					assertEquals(exact, kernel.statuteMiles(i, latitude, longitude), DistanceKernel.TOLERANCE_MILES);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void nearestMatchesFullSort() {
+		Random random = new Random(3);
+		List<Attraction> attractions = new ArrayList<>(new GpsUtil().getAttractions());
+		IntStream.range(0, 500).forEach(i -> attractions.add(new Attraction("a" + i, "city", "state",
+				-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360)));
+		NearestAttractionSearch search = new NearestAttractionSearch(AttractionIndex.of(attractions));
+
+		for (int i = 0; i < 1_000; i++) {
+			Location location = new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+			for (int k : new int[] { 0, 1, 5, 40, attractions.size() + 1 }) {
+				int[] expected = IntStream.range(0, attractions.size()).boxed()
+						.sorted(Comparator.comparingDouble(a -> GeoDistance.statuteMiles(attractions.get(a), location)))
+						.limit(k)
+						.mapToInt(Integer::intValue)
+						.toArray();
+				NearestAttractions nearest = search.nearest(location.latitude, location.longitude, k);
+				int[] actual = IntStream.range(0, nearest.size()).map(nearest::attractionIndex).toArray();
+				assertArrayEquals(expected, actual);
+			}
+		}
+	}
+
+	private static int[] bruteForce(List<Attraction> attractions, Location location, double radius) {
+		return IntStream.range(0, attractions.size())
+				.filter(i -> GeoDistance.isWithin(GeoDistance.statuteMiles(attractions.get(i), location), radius))
+				.toArray();
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.RewardsClient;
+import com.openclassrooms.tourguide.client.UpstreamException;
+import com.openclassrooms.tourguide.client.VendorGpsClient;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.job.BatchJob;
+import com.openclassrooms.tourguide.job.BatchJobKind;
+import com.openclassrooms.tourguide.job.BatchJobProperties;
+import com.openclassrooms.tourguide.job.BatchJobService;
+import com.openclassrooms.tourguide.job.BatchJobState;
+import com.openclassrooms.tourguide.job.BatchJobStatus;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestBatchJobs {
+
+	private final GpsUtil gpsUtil = new GpsUtil();
+	private final Attraction attraction = gpsUtil.getAttractions().get(0);
+
+	@Test
+	public void rewardsJobReportsProgressAndFailures() throws Exception {
+		BatchJobService batchJobService = batchJobService((attractionId, userId) -> {
+			if (userId.getLeastSignificantBits() % 10 == 3) {
+				throw new UpstreamException("RewardCentral down");
+			}
+			return 1;
+		}, 20);
+		List<User> users = users(200);
+
+		BatchJob job = batchJobService.start(BatchJobKind.REWARDS, users);
+		BatchJobStatus status = job.getCompletion().get(1, TimeUnit.MINUTES);
+
+		assertEquals(BatchJobState.COMPLETED, status.state());
+		assertEquals(200, status.totalUsers());
+		assertEquals(200, status.usersDone());
+		assertEquals(20, status.failureCount());
+		assertEquals(20, status.failures().size());
+		assertEquals("RewardCentral down", status.failures().get(0).message());
+		assertNull(status.eta());
+		assertEquals(180, users.stream().mapToInt(user -> user.getUserRewards().size()).sum());
+		assertEquals(List.of(job), batchJobService.getJobs());
+		batchJobService.close();
+	}
+
+	@Test
+	public void cancelledJobStopsDispatchingUsers() throws Exception {
+		CountDownLatch released = new CountDownLatch(1);
+		BatchJobService batchJobService = batchJobService((attractionId, userId) -> {
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 1;
+		}, 10);
+		BatchJob running = batchJobService.start(BatchJobKind.REWARDS, users(100));
+		BatchJob queued = batchJobService.start(BatchJobKind.REWARDS, users(100));
+
+		long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+		while (running.getState() == BatchJobState.QUEUED && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+
+		assertTrue(queued.cancel());
+		assertEquals(BatchJobState.CANCELLED, queued.getCompletion().get(1, TimeUnit.MINUTES).state());
+		assertTrue(running.cancel());
+		released.countDown();
+		BatchJobStatus status = running.getCompletion().get(1, TimeUnit.MINUTES);
+
+		assertEquals(BatchJobState.CANCELLED, status.state());
+		// NOTE : no user was dispatched after the cancellation, at most parallelism were in flight and were waited for
+		assertTrue(status.usersDone() > 0 && status.usersDone() <= 10, status.usersDone() + " users done");
+		assertEquals(0, status.failureCount());
+		assertEquals(0, queued.status().usersDone());
+		assertFalse(running.cancel());
+		batchJobService.close();
+	}
+
+	private BatchJobService batchJobService(RewardsClient rewardsClient, int parallelism) {
+		RewardsService rewardsService = new RewardsService(new VendorGpsClient(gpsUtil), rewardsClient);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		BatchJobProperties properties = new BatchJobProperties();
+		properties.setParallelism(parallelism);
+		return new BatchJobService(tourGuideService, rewardsService, properties, Clock.systemUTC());
+	}
+
+	private List<User> users(int count) {
+		return IntStream.range(0, count).mapToObj(i -> {
+			User user = new User(new UUID(0, i), "user" + i, "000", "user" + i + "@tourGuide.com");
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			return user;
+		}).toList();
+	}
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.openclassrooms.tourguide.job.BatchJobService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/** The batch jobs are started, watched and cancelled on /actuator/batchjobs. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"tourguide.upstream.mode=SIMULATED",
+		"logging.level.com.openclassrooms.tourguide=INFO" })
+public class TestBatchJobsEndpoint {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	@Autowired
+	private BatchJobService batchJobService;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	public void jobsAreExposedOnActuator() throws Exception {
+		tourGuideService.tracker.stopTracking();
+
+		HttpResponse<String> started = send(HttpRequest.newBuilder(uri("/actuator/batchjobs"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"kind\": \"REWARDS\"}")));
+		assertEquals(200, started.statusCode(), started.body());
+		assertTrue(started.body().contains("\"kind\":\"REWARDS\""), started.body());
+		batchJobService.getJobs().get(0).getCompletion().get(1, TimeUnit.MINUTES);
+
+		HttpResponse<String> job = send(HttpRequest.newBuilder(uri("/actuator/batchjobs/1")));
+		assertEquals(200, job.statusCode());
+		assertTrue(job.body().contains("\"state\":\"COMPLETED\""), job.body());
+		int users = tourGuideService.getAllUsers().size();
+		assertTrue(job.body().contains("\"totalUsers\":" + users + ",\"usersDone\":" + users), job.body());
+		assertTrue(job.body().contains("\"usersPerSecond\""), job.body());
+		assertTrue(send(HttpRequest.newBuilder(uri("/actuator/batchjobs"))).body().startsWith("[{\"id\":1"));
+
+		assertEquals(200, send(HttpRequest.newBuilder(uri("/actuator/batchjobs/1")).DELETE()).statusCode());
+		assertEquals(404, send(HttpRequest.newBuilder(uri("/actuator/batchjobs/42"))).statusCode());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
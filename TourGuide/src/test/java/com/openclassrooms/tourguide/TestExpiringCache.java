@@ -0,0 +1,188 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import rewardCentral.RewardCentral;
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.cache.CachingRewardsClient;
+import com.openclassrooms.tourguide.cache.CachingTripPricerClient;
+import com.openclassrooms.tourguide.cache.ExpiringCache;
+import com.openclassrooms.tourguide.client.VendorRewardsClient;
+
+public class TestExpiringCache {
+
+	@Test
+	public void expiresAfterTimeToLive() {
+		AtomicLong clock = new AtomicLong();
+		ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofSeconds(60), clock::get);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals(1, cache.get("a", k -> loads.incrementAndGet()));
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		assertEquals(1, cache.get("a", k -> loads.incrementAndGet()));
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(2, cache.get("a", k -> loads.incrementAndGet()));
+
+		assertEquals(1, cache.hitCount());
+		assertEquals(2, cache.missCount());
+		assertEquals(1, cache.evictionCount());
+	}
+
+	@Test
+	public void peekKeepsTheLastValueThroughAFailedReload() {
+		AtomicLong clock = new AtomicLong();
+		ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofSeconds(60), clock::get);
+		assertEquals(null, cache.peek("a"));
+		cache.get("a", k -> 1);
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+		assertEquals(1, cache.peek("a"));
+		assertThrows(IllegalStateException.class, () -> cache.get("a", k -> {
+			assertEquals(1, cache.peek("a"));
+			throw new IllegalStateException("RewardCentral down");
+		}));
+		assertEquals(1, cache.peek("a"));
+		assertEquals(2, cache.get("a", k -> 2));
+		assertEquals(2, cache.peek("a"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void evictsOldestBeyondMaximumSize() {
+		ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(3, Duration.ofHours(1));
+		for (int i = 0; i < 5; i++) {
+			cache.get(i, k -> k * 10);
+		}
+
+		assertEquals(3, cache.size());
+		assertEquals(2, cache.evictionCount());
+		assertEquals(-1, cache.get(0, k -> -1));
+		assertEquals(40, cache.get(4, k -> -1));
+	}
+
+	@Test
+	public void entryBeingReloadedIsNotEvicted() throws Exception {
+		AtomicLong clock = new AtomicLong();
+		ExpiringCache<String, Integer> cache = new ExpiringCache<>(1, Duration.ofSeconds(60), clock::get);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch reloading = new CountDownLatch(1);
+		CountDownLatch released = new CountDownLatch(1);
+		cache.get("a", k -> loads.incrementAndGet());
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+		CompletableFuture<Integer> reload = CompletableFuture.supplyAsync(() -> cache.get("a", k -> {
+			reloading.countDown();
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return loads.incrementAndGet();
+		}));
+		reloading.await(5, TimeUnit.SECONDS);
+		assertEquals(10, cache.get("b", k -> 10));
+		CompletableFuture<Integer> shared = CompletableFuture.supplyAsync(() -> cache.get("a", k -> loads.incrementAndGet()));
+		released.countDown();
+
+		assertEquals(2, reload.get(5, TimeUnit.SECONDS));
+		assertEquals(2, shared.get(5, TimeUnit.SECONDS));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void failedLoadIsNotCached() {
+		ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofHours(1));
+
+		assertThrows(IllegalStateException.class, () -> cache.get("a", k -> {
+			throw new IllegalStateException("upstream down");
+		}));
+		assertEquals(7, cache.get("a", k -> 7));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void concurrentMissesShareOneUpstreamCall() throws Exception {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		RewardCentral slowRewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				upstreamCalls.incrementAndGet();
+				try {
+					TimeUnit.MILLISECONDS.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 42;
+			}
+		};
+		CachingRewardsClient rewardCentral = new CachingRewardsClient(new VendorRewardsClient(slowRewardCentral),
+				new ExpiringCache<>(100, Duration.ofHours(1)));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return rewardCentral.getAttractionRewardPoints(attractionId, userId);
+			}, executor));
+		}
+		start.countDown();
+		for (CompletableFuture<Integer> future : futures) {
+			assertEquals(42, future.get());
+		}
+		executor.shutdown();
+
+		assertEquals(1, upstreamCalls.get());
+		assertEquals(1, rewardCentral.getCache().missCount());
+		assertEquals(7, rewardCentral.getCache().hitCount());
+	}
+
+	@Test
+	public void tripQuotesAreCachedPerPricingTuple() {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		CachingTripPricerClient tripPricer = new CachingTripPricerClient(
+				(apiKey, userId, adults, children, nightsStay, rewardsPoints) -> {
+					upstreamCalls.incrementAndGet();
+					return List.of(new Provider(userId, "Holiday Travels", 100.0 * adults - rewardsPoints));
+				},
+				new ExpiringCache<>(100, Duration.ofHours(1)));
+		UUID userId = UUID.randomUUID();
+
+		List<Provider> quote = tripPricer.getPrice("key", userId, 2, 1, 3, 10);
+		assertSame(quote, tripPricer.getPrice("key", userId, 2, 1, 3, 10));
+		assertEquals(1, upstreamCalls.get());
+		assertThrows(UnsupportedOperationException.class, () -> quote.clear());
+
+		assertEquals(190.0, tripPricer.getPrice("key", userId, 2, 1, 3, 10).get(0).price);
+		assertEquals(170.0, tripPricer.getPrice("key", userId, 2, 1, 3, 30).get(0).price);
+		tripPricer.getPrice("key", userId, 1, 1, 3, 10);
+		tripPricer.getPrice("key", UUID.randomUUID(), 2, 1, 3, 10);
+		assertEquals(4, upstreamCalls.get());
+		assertEquals(4, tripPricer.getCache().size());
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.LocationHistory;
+
+public class TestLocationHistory {
+
+	@Test
+	public void readsBackWhatWasAppended() {
+		UUID userId = UUID.randomUUID();
+		LocationHistory history = new LocationHistory(userId, LocationHistory.UNBOUNDED);
+		Date time = new Date();
+		for (int i = 0; i < 100; i++) {
+			history.append(new VisitedLocation(userId, new Location(i, -i), time));
+		}
+
+		assertEquals(100, history.size());
+		assertEquals(42.0, history.latitude(42));
+		assertEquals(-42.0, history.asList().get(42).location.longitude);
+		assertEquals(time, history.last().timeVisited);
+		assertEquals(userId, history.last().userId);
+	}
+
+	@Test
+	public void capacityDropsWholeChunksAndKeepsIndices() {
+		LocationHistory history = new LocationHistory(UUID.randomUUID(), 50);
+		for (int i = 0; i < 200; i++) {
+			history.append(i, i, i);
+		}
+
+		assertTrue(history.size() >= 50 && history.size() < 50 + 32, "size " + history.size());
+		assertEquals(200, history.endIndex());
+		assertEquals(199.0, history.latitude(199));
+		assertThrows(IndexOutOfBoundsException.class, () -> history.latitude(0));
+
+		LocationHistory.Cursor cursor = history.cursor(0);
+		assertTrue(cursor.next());
+		assertEquals(history.firstIndex(), cursor.index());
+	}
+
+	@Test
+	public void capacityKeepsTheLocationsFromKeepFrom() {
+		AtomicLong rewardWatermark = new AtomicLong();
+		LocationHistory history = new LocationHistory(UUID.randomUUID(), 50, rewardWatermark::get);
+		for (int i = 0; i < 200; i++) {
+			history.append(i, i, i);
+		}
+		assertEquals(200, history.size());
+		assertEquals(0, history.firstIndex());
+
+		rewardWatermark.set(120);
+		history.append(200, 200, 200);
+		assertEquals(120, history.firstIndex());
+		assertEquals(120.0, history.latitude(120));
+
+		rewardWatermark.set(201);
+		history.append(201, 201, 201);
+		assertTrue(history.size() >= 50 && history.size() < 50 + 32, "size " + history.size());
+	}
+
+	@Test
+	public void cursorResumesFromAnIndexAndSeesNewLocations() {
+		LocationHistory history = new LocationHistory(UUID.randomUUID(), LocationHistory.UNBOUNDED);
+		IntStream.range(0, 10).forEach(i -> history.append(i, 0, i));
+
+		LocationHistory.Cursor cursor = history.cursor(8);
+		assertTrue(cursor.next());
+		assertEquals(8.0, cursor.latitude());
+		assertTrue(cursor.next());
+		assertFalse(cursor.next());
+
+		history.append(10, 0, 10);
+		assertTrue(cursor.next());
+		assertEquals(10, cursor.index());
+	}
+
+	@Test
+	public void concurrentAppendsAreAllPublished() {
+		LocationHistory history = new LocationHistory(UUID.randomUUID(), LocationHistory.UNBOUNDED);
+		IntStream.range(0, 10_000).parallel().forEach(i -> history.append(i, i, i));
+
+		assertEquals(10_000, history.size());
+		Set<Double> latitudes = new HashSet<>();
+		LocationHistory.Cursor cursor = history.cursor(0);
+		while (cursor.next()) {
+			assertEquals(cursor.latitude(), cursor.longitude());
+			latitudes.add(cursor.latitude());
+		}
+		assertEquals(10_000, latitudes.size());
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.retention.LocationRetention;
+import com.openclassrooms.tourguide.retention.RetentionProperties;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestLocationRetention {
+
+	private static final long NOW = 1_700_000_000_000L;
+
+	@Test
+	public void dropsOldAndNearbyLocationsAmongThoseCheckedForRewards() {
+		RetentionProperties properties = new RetentionProperties();
+		properties.setTimeToLive(Duration.ofDays(1));
+		properties.setMinDistanceMeters(100);
+		LocationRetention retention = new LocationRetention(properties, () -> NOW);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		visit(user, 10, 10, NOW - Duration.ofDays(2).toMillis());
+		visit(user, 20, 20, NOW - 3_000);
+		visit(user, 20.0001, 20, NOW - 2_000);
+		visit(user, 30, 30, NOW - 1_000);
+		user.advanceRewardWatermark(user.getLocationHistory().endIndex());
+		visit(user, 30.0001, 30, NOW - 500);
+		visit(user, 30.0001, 30, NOW);
+
+		assertEquals(2, retention.compact(user));
+
+		List<Double> latitudes = user.getVisitedLocations().stream()
+				.map(visitedLocation -> visitedLocation.location.latitude).collect(Collectors.toList());
+		assertEquals(List.of(20.0, 30.0, 30.0001, 30.0001), latitudes);
+		assertEquals(new Date(NOW), user.getLastVisitedLocation().timeVisited);
+		assertEquals(user.getLocationHistory().endIndex() - 2, user.getRewardWatermark());
+	}
+
+	@Test
+	public void capsTheHistoryAndReportsReclaimedBytes() {
+		RetentionProperties properties = new RetentionProperties();
+		properties.setMaxLocations(100);
+		properties.setMinDistanceMeters(0);
+		LocationRetention retention = new LocationRetention(properties, () -> NOW);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		for (int i = 0; i < 1_000; i++) {
+			visit(user, i * 0.01, 0, NOW);
+		}
+		user.advanceRewardWatermark(user.getLocationHistory().endIndex());
+
+		assertEquals(900, retention.compact(user));
+		assertEquals(100, user.getVisitedLocations().size());
+		assertEquals(9.99, user.getLastVisitedLocation().location.latitude, 1e-9);
+		assertEquals(9.0, user.getVisitedLocations().get(0).location.latitude, 1e-9);
+		assertTrue(retention.getBytesReclaimed() >= 900 / 32 * LocationHistory.CHUNK_BYTES - LocationHistory.CHUNK_BYTES);
+		assertEquals(900, retention.getLocationsDropped());
+	}
+
+	@Test
+	public void compactsOnlyOnceEnoughLocationsWereAdded() {
+		RetentionProperties properties = new RetentionProperties();
+		properties.setCompactEvery(10);
+		LocationRetention retention = new LocationRetention(properties, () -> NOW);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		for (int i = 0; i < 9; i++) {
+			visit(user, 0, 0, NOW);
+		}
+		user.clearUnrewardedLocations();
+
+		assertEquals(0, retention.compactIfDue(user));
+		visit(user, 0, 0, NOW);
+		user.clearUnrewardedLocations();
+		assertEquals(8, retention.compactIfDue(user));
+		assertEquals(1, retention.getCompactions());
+	}
+
+	private static void visit(User user, double latitude, double longitude, long time) {
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(latitude, longitude), new Date(time)));
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/** The tourguide.* meters are recorded in the application registry and exposed by Actuator. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"tourguide.upstream.mode=SIMULATED",
+		"logging.level.com.openclassrooms.tourguide=INFO" })
+@AutoConfigureObservability
+public class TestMetrics {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	public void metersAreExposedOnActuator() throws Exception {
+		tourGuideService.tracker.stopTracking();
+		User user = new User(UUID.randomUUID(), "metricsTestUser", "000", "metricsTestUser@tourGuide.com");
+		tourGuideService.addUser(user);
+		assertEquals(200, get("/getLocation?userName=metricsTestUser").statusCode());
+
+		HttpResponse<String> trackUserLocation = get("/actuator/metrics/tourguide.track.user.location");
+		assertEquals(200, trackUserLocation.statusCode());
+		assertTrue(trackUserLocation.body().contains("\"COUNT\""), trackUserLocation.body());
+
+		String prometheus = get("/actuator/prometheus").body();
+		assertTrue(prometheus.contains("tourguide_track_user_location_seconds_bucket"));
+		assertTrue(prometheus.contains("tourguide_upstream_calls_seconds_count{outcome=\"success\",service=\"GpsUtil\""));
+		assertTrue(prometheus.contains("tourguide_rewards_calculation_seconds"));
+		assertTrue(prometheus.contains("tourguide_rewards_granted_total"));
+		assertTrue(prometheus.contains("tourguide_tracker_overruns_total"));
+		assertTrue(prometheus.contains("tourguide_executor_queued{pool=\"upstream\""));
+	}
+
+	private HttpResponse<String> get(String path) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+}
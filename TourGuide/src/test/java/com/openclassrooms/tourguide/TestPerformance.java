@@ -2,7 +2,9 @@ package com.openclassrooms.tourguide;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -17,6 +19,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.executor.ExecutionMode;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+import com.openclassrooms.tourguide.executor.VirtualThreads;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
@@ -45,18 +51,23 @@ public class TestPerformance {
 	 * highVolumeGetRewards: 100,000 users within 20 minutes:
 	 * assertTrue(TimeUnit.MINUTES.toSeconds(20) >=
 	 * TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
+	 *
+	 * Each scenario runs once per ExecutionMode, so that platform thread pools and
+	 * virtual threads can be compared. The VIRTUAL runs are skipped before Java 21.
 	 */
 
 
-	@ParameterizedTest(name = "Test with {0} users and a time threshold of {1} seconds")
+	@ParameterizedTest(name = "Test with {0} users and a time threshold of {1} seconds ({2} threads)")
 	@MethodSource("provideUsersForTrackLocation")
-	public void highVolumeTrackLocation(int numUsers, int timeThresholdSeconds) {
+	public void highVolumeTrackLocation(int numUsers, int timeThresholdSeconds, ExecutionMode mode) {
+		assumeTrue(mode != ExecutionMode.VIRTUAL || VirtualThreads.isSupported(), "Virtual threads require Java 21");
 
 		GpsUtil gpsUtil = new GpsUtil();
-		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		TourGuideExecutors executors = newExecutors(mode);
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executors);
 		// Users should be incremented up to 100,000, and test finishes within 15 minutes
 		InternalTestHelper.setInternalUserNumber(numUsers);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executors);
 
 		List<User> allUsers = tourGuideService.getAllUsers();
 
@@ -67,6 +78,7 @@ public class TestPerformance {
 
 		stopWatch.stop();
 		tourGuideService.tracker.stopTracking();
+		executors.close();
 
 		System.out.println("highVolumeTrackLocation: Time Elapsed: "
 				+ TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
@@ -75,7 +87,7 @@ public class TestPerformance {
 	}
 
 	private static Stream<Arguments> provideUsersForTrackLocation() {
-		return Stream.of(
+		return withExecutionModes(
 				Arguments.of(100, 10),
 				Arguments.of(1_000, 50),
 				Arguments.of(5_000, 100),
@@ -87,18 +99,20 @@ public class TestPerformance {
 
 
 
-	@ParameterizedTest(name = "Test with {0} users and a time threshold of {1} seconds")
+	@ParameterizedTest(name = "Test with {0} users and a time threshold of {1} seconds ({2} threads)")
 	@MethodSource("provideUsersForGetsRewards")
-	public void highVolumeGetRewards(int numUsers, int timeThresholdSeconds) {
+	public void highVolumeGetRewards(int numUsers, int timeThresholdSeconds, ExecutionMode mode) {
+		assumeTrue(mode != ExecutionMode.VIRTUAL || VirtualThreads.isSupported(), "Virtual threads require Java 21");
 
 		GpsUtil gpsUtil = new GpsUtil();
-		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		TourGuideExecutors executors = newExecutors(mode);
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executors);
 
 		// Users should be incremented up to 100,000, and test finishes within 20 minutes
 		InternalTestHelper.setInternalUserNumber(numUsers);
 		StopWatch stopWatch = new StopWatch();
 		stopWatch.start();
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executors);
 
 		Attraction attraction = gpsUtil.getAttractions().get(0);
 		List<User> allUsers = tourGuideService.getAllUsers();
@@ -113,13 +127,14 @@ public class TestPerformance {
 
 		stopWatch.stop();
 		tourGuideService.tracker.stopTracking();
+		executors.close();
 
 		System.out.println("highVolumeGetRewards: Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
 		assertTrue(timeThresholdSeconds >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	}
 
 	private static Stream<Arguments> provideUsersForGetsRewards() {
-		return Stream.of(
+		return withExecutionModes(
 				Arguments.of(100, 10),
 				Arguments.of(1_000, 100),
 				Arguments.of(10_000, 400),
@@ -127,4 +142,15 @@ public class TestPerformance {
 		);
 	}
 
+	private static Stream<Arguments> withExecutionModes(Arguments... scenarios) {
+		return Arrays.stream(scenarios).flatMap(scenario -> Arrays.stream(ExecutionMode.values())
+				.map(mode -> Arguments.of(scenario.get()[0], scenario.get()[1], mode)));
+	}
+
+	private static TourGuideExecutors newExecutors(ExecutionMode mode) {
+		ExecutorProperties properties = new ExecutorProperties();
+		properties.setMode(mode);
+		return new TourGuideExecutors(properties);
+	}
+
 }
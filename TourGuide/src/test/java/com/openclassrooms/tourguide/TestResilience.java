@@ -0,0 +1,182 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.VisitedLocation;
+import tripPricer.TripPricer;
+import com.openclassrooms.tourguide.cache.ExpiringCache;
+import com.openclassrooms.tourguide.client.RewardsClient;
+import com.openclassrooms.tourguide.client.UpstreamException;
+import com.openclassrooms.tourguide.client.VendorTripPricerClient;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.resilience.AdaptiveTimeout;
+import com.openclassrooms.tourguide.resilience.CircuitBreaker;
+import com.openclassrooms.tourguide.resilience.ResilienceProperties;
+import com.openclassrooms.tourguide.resilience.ResilientGpsClient;
+import com.openclassrooms.tourguide.resilience.ResilientRewardsClient;
+import com.openclassrooms.tourguide.resilience.UpstreamGuard;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.service.TrackedLocation;
+import com.openclassrooms.tourguide.simulation.LatencyProfile;
+import com.openclassrooms.tourguide.simulation.SimulatedGpsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedRewardsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedUpstream;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestResilience {
+
+	// NOTE : the latency of the stand-ins, changed by the tests while they run
+	private final AtomicLong latencyMillis = new AtomicLong();
+	private final LatencyProfile switchableLatency = random -> TimeUnit.MILLISECONDS.toNanos(latencyMillis.get());
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	public void slowGpsKeepsTheUserAtTheirLastKnownLocation() {
+		UpstreamGuard guard = new UpstreamGuard("GpsUtil", policy(10, Duration.ofMillis(200)), clock::get);
+		ResilientGpsClient gpsClient = new ResilientGpsClient(
+				new SimulatedGpsClient(new SimulatedUpstream("gps", 9, switchableLatency, 0), List.of()), guard);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsClient, new VendorTripPricerClient(new TripPricer()),
+				new RewardsService(gpsClient, (attractionId, userId) -> 1), Runnable::run);
+		tourGuideService.tracker.stopTracking();
+		User located = new User(UUID.randomUUID(), "located", "000", "located@tourGuide.com");
+		VisitedLocation lastKnown = tourGuideService.trackUser(located).visitedLocation();
+
+		latencyMillis.set(2_000);
+		long start = System.nanoTime();
+		TrackedLocation tracked = tourGuideService.trackUser(located);
+		User neverLocated = new User(UUID.randomUUID(), "neverLocated", "000", "neverLocated@tourGuide.com");
+		UpstreamException e = assertThrows(UpstreamException.class, () -> tourGuideService.trackUser(neverLocated));
+
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "the fallback waited for GpsUtil");
+		assertEquals(lastKnown.timeVisited, tracked.visitedLocation().timeVisited);
+		assertEquals(lastKnown.location.latitude, tracked.visitedLocation().location.latitude);
+		assertEquals(List.of(), tracked.rewards().join());
+		assertEquals(1, located.getVisitedLocations().size());
+		assertTrue(neverLocated.getVisitedLocations().isEmpty());
+		assertTrue(e.getMessage().contains("did not answer within 200 ms"), e.getMessage());
+		assertEquals(2, guard.getTimedOutCount());
+		guard.close();
+	}
+
+	@Test
+	public void circuitOpensOnFailuresAndClosesAfterItsTrialCalls() {
+		AtomicBoolean down = new AtomicBoolean(true);
+		SimulatedUpstream upstream = new SimulatedUpstream("rewards", 9, switchableLatency, 0);
+		RewardsClient rewardCentral = (attractionId, userId) -> {
+			if (down.get()) {
+				upstream.call();
+				throw new UpstreamException("RewardCentral down");
+			}
+			return new SimulatedRewardsClient(upstream).getAttractionRewardPoints(attractionId, userId);
+		};
+		UpstreamGuard guard = new UpstreamGuard("RewardCentral", policy(10, Duration.ofSeconds(1)), clock::get);
+		ResilientRewardsClient rewardsClient = new ResilientRewardsClient(rewardCentral, guard, (a, u) -> null);
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		for (int i = 0; i < 5; i++) {
+			assertThrows(UpstreamException.class, () -> rewardsClient.getAttractionRewardPoints(attractionId, userId));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+		UpstreamException open = assertThrows(UpstreamException.class,
+				() -> rewardsClient.getAttractionRewardPoints(attractionId, userId));
+		assertEquals("RewardCentral circuit is open", open.getMessage());
+		assertEquals(5, upstream.getCallCount());
+
+		// the first trial call fails and opens the circuit again, the next trial calls close it
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		assertThrows(UpstreamException.class, () -> rewardsClient.getAttractionRewardPoints(attractionId, userId));
+		assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+		down.set(false);
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		rewardsClient.getAttractionRewardPoints(attractionId, userId);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getCircuitState());
+		rewardsClient.getAttractionRewardPoints(attractionId, userId);
+		assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+		assertEquals(1, guard.getShortCircuitedCount());
+		guard.close();
+	}
+
+	@Test
+	public void slowRewardCentralOnlyFillsItsOwnBulkheadAndServesCachedPoints() throws Exception {
+		UpstreamGuard rewardsGuard = new UpstreamGuard("RewardCentral", policy(2, Duration.ofSeconds(5)), clock::get);
+		UpstreamGuard gpsGuard = new UpstreamGuard("GpsUtil", policy(2, Duration.ofSeconds(5)), clock::get);
+		ExpiringCache<UUID, Integer> cache = new ExpiringCache<>(10, Duration.ofSeconds(1), clock::get);
+		ResilientRewardsClient rewardsClient = new ResilientRewardsClient(
+				new SimulatedRewardsClient(new SimulatedUpstream("rewards", 9, switchableLatency, 0)), rewardsGuard,
+				(attractionId, userId) -> cache.peek(attractionId));
+		ResilientGpsClient gpsClient = new ResilientGpsClient(
+				new SimulatedGpsClient(new SimulatedUpstream("gps", 9, LatencyProfile.none(), 0), List.of()), gpsGuard);
+		UUID cached = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		int points = cache.get(cached, attractionId -> rewardsClient.getAttractionRewardPoints(attractionId, userId));
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+		latencyMillis.set(1_500);
+		CompletableFuture<Integer> first = CompletableFuture.supplyAsync(
+				() -> rewardsClient.getAttractionRewardPoints(UUID.randomUUID(), userId));
+		CompletableFuture<Integer> second = CompletableFuture.supplyAsync(
+				() -> rewardsClient.getAttractionRewardPoints(UUID.randomUUID(), userId));
+		while (rewardsGuard.getBulkhead().getAvailablePermits() > 0) {
+			Thread.sleep(1);
+		}
+
+		long start = System.nanoTime();
+		assertEquals(points, rewardsClient.getAttractionRewardPoints(cached, userId));
+		assertThrows(UpstreamException.class, () -> rewardsClient.getAttractionRewardPoints(UUID.randomUUID(), userId));
+		gpsClient.getUserLocation(userId);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "a call waited for the slow RewardCentral");
+
+		assertEquals(2, rewardsGuard.getRejectedCount());
+		assertEquals(1, rewardsGuard.getFallbackCount());
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+		rewardsGuard.close();
+		gpsGuard.close();
+	}
+
+	@Test
+	public void timeoutFollowsTheObservedLatency() {
+		AdaptiveTimeout timeout = new AdaptiveTimeout(0.99, 3, Duration.ofMillis(50), Duration.ofSeconds(5), 100);
+		assertEquals(Duration.ofSeconds(5), timeout.get());
+
+		for (int i = 1; i <= 100; i++) {
+			timeout.record(TimeUnit.MILLISECONDS.toNanos(i % 10 == 0 ? 100 : 20));
+		}
+		assertEquals(Duration.ofMillis(300), timeout.get());
+
+		for (int i = 0; i < 100; i++) {
+			timeout.record(TimeUnit.MILLISECONDS.toNanos(5));
+		}
+		assertEquals(Duration.ofMillis(50), timeout.get());
+
+		for (int i = 0; i < 100; i++) {
+			timeout.record(TimeUnit.SECONDS.toNanos(3));
+		}
+		assertEquals(Duration.ofSeconds(5), timeout.get());
+	}
+
+	private static ResilienceProperties.Policy policy(int maxConcurrentCalls, Duration maxTimeout) {
+		ResilienceProperties.Policy policy = new ResilienceProperties.Policy(maxConcurrentCalls, maxTimeout);
+		policy.setMaxWait(Duration.ZERO);
+		policy.setMinTimeout(Duration.ofMillis(10));
+		policy.setSlidingWindow(10);
+		policy.setMinimumCalls(5);
+		policy.setHalfOpenCalls(2);
+		return policy;
+	}
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.client.GpsClient;
+import com.openclassrooms.tourguide.resilience.UpstreamGuards;
+import com.openclassrooms.tourguide.service.RewardsBatchResult;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/** The upstream pool calls RewardCentral with many more lookups in flight than its bulkhead has permits:
+ * the lookups above the permits wait for one instead of failing their users. */
+@SpringBootTest(properties = {
+		"tourguide.upstream.mode=SIMULATED",
+		"tourguide.upstream.simulation.rewards.distribution=FIXED",
+		"tourguide.upstream.simulation.rewards.latency=5ms",
+		"tourguide.upstream.simulation.rewards.spike-probability=0",
+		"tourguide.resilience.rewards.max-concurrent-calls=8",
+		"logging.level.com.openclassrooms.tourguide=INFO" })
+public class TestResilienceWiring {
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	@Autowired
+	private RewardsService rewardsService;
+
+	@Autowired
+	private GpsClient gpsClient;
+
+	@Autowired
+	private UpstreamGuards upstreamGuards;
+
+	@Test
+	public void batchAboveTheBulkheadPermitsFailsNoUser() {
+		tourGuideService.tracker.stopTracking();
+		Attraction attraction = gpsClient.getAttractions().get(0);
+		List<User> users = IntStream.range(0, 500).mapToObj(i -> {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			return user;
+		}).toList();
+
+		RewardsBatchResult result = rewardsService.calculateAllUsersRewards(users);
+
+		assertEquals(500, result.usersProcessed());
+		assertEquals(0, result.failures());
+		assertTrue(users.stream().allMatch(user -> !user.getUserRewards().isEmpty()));
+		assertEquals(0, upstreamGuards.rewards().getRejectedCount());
+	}
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.client.RewardPointsGateway;
+import com.openclassrooms.tourguide.client.UpstreamException;
+
+public class TestRewardPointsGateway {
+
+	@Test
+	public void lookupsOfOneWindowShareOneBatch() {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		ExecutorService upstream = Executors.newFixedThreadPool(8);
+		try (RewardPointsGateway gateway = new RewardPointsGateway((attractionId, userId) -> {
+			upstreamCalls.incrementAndGet();
+			return (int) (attractionId.getLeastSignificantBits() % 1000);
+		}, upstream, Duration.ofMillis(50), 100)) {
+			UUID userId = UUID.randomUUID();
+			List<CompletableFuture<Integer>> points = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				points.add(gateway.getRewardPoints(new UUID(0, i), userId));
+			}
+			points.add(gateway.getRewardPoints(new UUID(0, 4), userId));
+
+			for (int i = 0; i < 5; i++) {
+				assertEquals(i, RewardPointsGateway.await(points.get(i)));
+			}
+			assertEquals(4, RewardPointsGateway.await(points.get(5)));
+			assertEquals(1, gateway.getBatchCount());
+			assertEquals(6, gateway.getLookupCount());
+			assertEquals(5, upstreamCalls.get());
+		} finally {
+			upstream.shutdown();
+		}
+	}
+
+	@Test
+	public void fullBatchIsDispatchedWithoutWaitingForItsWindow() throws Exception {
+		ExecutorService upstream = Executors.newFixedThreadPool(3);
+		try (RewardPointsGateway gateway = new RewardPointsGateway((attractionId, userId) -> 7, upstream,
+				Duration.ofHours(1), 3)) {
+			List<CompletableFuture<Integer>> points = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				points.add(gateway.getRewardPoints(UUID.randomUUID(), UUID.randomUUID()));
+			}
+
+			CompletableFuture.allOf(points.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+			assertEquals(1, gateway.getBatchCount());
+		} finally {
+			upstream.shutdown();
+		}
+	}
+
+	@Test
+	public void timerNeverRunsLookupsOfASaturatedUpstreamPool() throws Exception {
+		CountDownLatch released = new CountDownLatch(1);
+		Set<String> callingThreads = ConcurrentHashMap.newKeySet();
+		ThreadPoolExecutor upstream = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.CallerRunsPolicy());
+		try (RewardPointsGateway gateway = new RewardPointsGateway((attractionId, userId) -> {
+			callingThreads.add(Thread.currentThread().getName());
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 5;
+		}, upstream, Duration.ofMillis(2), 100)) {
+			// NOTE : the first lookup holds the only thread, the second fills the queue, the others are handed back
+			List<CompletableFuture<Integer>> points = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				points.add(gateway.getRewardPoints(UUID.randomUUID(), UUID.randomUUID()));
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+				while (gateway.getBatchCount() <= i && System.nanoTime() < deadline) {
+					Thread.sleep(1);
+				}
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (gateway.getRetryCount() < 2 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+
+			assertEquals(4, gateway.getBatchCount());
+			assertTrue(gateway.getRetryCount() >= 2);
+			assertEquals(1, gateway.getUpstreamCallCount());
+			released.countDown();
+			CompletableFuture.allOf(points.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+			assertEquals(4, gateway.getUpstreamCallCount());
+			assertFalse(callingThreads.contains("tourguide-reward-points-batcher"), callingThreads.toString());
+		} finally {
+			released.countDown();
+			upstream.shutdown();
+		}
+	}
+
+	@Test
+	public void failedLookupOnlyFailsItsOwnCallers() {
+		UUID failing = UUID.randomUUID();
+		ExecutorService upstream = Executors.newFixedThreadPool(2);
+		try (RewardPointsGateway gateway = new RewardPointsGateway((attractionId, userId) -> {
+			if (attractionId.equals(failing)) {
+				throw new UpstreamException("RewardCentral down");
+			}
+			return 3;
+		}, upstream)) {
+			CompletableFuture<Integer> failed = gateway.getRewardPoints(failing, UUID.randomUUID());
+			CompletableFuture<Integer> succeeded = gateway.getRewardPoints(UUID.randomUUID(), UUID.randomUUID());
+
+			assertThrows(UpstreamException.class, () -> RewardPointsGateway.await(failed));
+			assertEquals(3, RewardPointsGateway.await(succeeded));
+		} finally {
+			upstream.shutdown();
+		}
+	}
+
+}
@@ -1,21 +1,38 @@
 package com.openclassrooms.tourguide;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.client.UpstreamException;
+import com.openclassrooms.tourguide.client.VendorGpsClient;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsBatchEngine;
+import com.openclassrooms.tourguide.service.RewardsBatchProgress;
+import com.openclassrooms.tourguide.service.RewardsBatchResult;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.service.TrackedLocation;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
@@ -33,13 +50,207 @@ public class TestRewardsService {
 		Attraction attraction = gpsUtil.getAttractions().get(0);
 		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
 
-		tourGuideService.trackUserLocation(user);
+		tourGuideService.trackUser(user).rewards().join();
 
 		List<UserReward> userRewards = user.getUserRewards();
 		tourGuideService.tracker.stopTracking();
 		assertTrue(userRewards.size() == 1);
 	}
 
+	@Test
+	public void trackUserLocationReturnsBeforeTheRewardsAreCommitted() {
+		CountDownLatch rewardCentralAnswers = new CountDownLatch(1);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(new VendorGpsClient(gpsUtil), (attractionId, userId) -> {
+			try {
+				rewardCentralAnswers.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 10;
+		});
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), rewardsService.getAttractionIndex().get(0), new Date()));
+
+		TrackedLocation trackedLocation = tourGuideService.trackUser(user);
+
+		assertEquals(2, user.getVisitedLocations().size());
+		assertEquals(trackedLocation.visitedLocation().location.latitude, user.getLastVisitedLocation().location.latitude);
+		assertFalse(trackedLocation.rewards().isDone());
+		assertTrue(user.getUserRewards().isEmpty());
+
+		rewardCentralAnswers.countDown();
+		List<UserReward> added = trackedLocation.rewards().join();
+		assertEquals(1, added.size());
+		assertEquals(added, user.getUserRewards());
+	}
+
+	@Test
+	public void calculateRewardsOnlyChecksNewLocations() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		rewardsService.calculateRewards(user);
+		assertTrue(user.getUserRewards().isEmpty());
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(user.getLocationHistory().endIndex(), user.getRewardWatermark());
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(1, user.getUserRewards().size());
+	}
+
+	@Test
+	public void addUserRewardIgnoresDuplicates() {
+		GpsUtil gpsUtil = new GpsUtil();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = gpsUtil.getAttractions().get(3);
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attraction, new Date());
+
+		user.addUserReward(new UserReward(visitedLocation, attraction, 10), 3);
+		user.addUserReward(new UserReward(visitedLocation, attraction, 20), 3);
+		user.addUserReward(new UserReward(visitedLocation, attraction, 30), 3);
+
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(10, user.getCumulativeRewardPoints());
+		assertEquals(1, user.getRewardedAttractionCount());
+		assertTrue(user.hasRewardForAttraction(3));
+		assertFalse(user.hasRewardForAttraction(2));
+		assertFalse(user.hasRewardForAttraction(200));
+	}
+
+	@Test
+	public void calculateAllUsersRewardsCanRunSeveralBatches() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+
+		for (int batch = 0; batch < 2; batch++) {
+			List<User> users = IntStream.range(0, 20)
+					.mapToObj(i -> new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"))
+					.toList();
+			users.forEach(u -> u.addToVisitedLocations(new VisitedLocation(u.getUserId(), attraction, new Date())));
+
+			rewardsService.calculateAllUsersRewards(users);
+
+			users.forEach(u -> assertEquals(1, u.getUserRewards().size()));
+		}
+	}
+
+	@Test
+	public void everyBatchEngineFindsTheSameRewards() {
+		GpsUtil gpsUtil = new GpsUtil();
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		RewardsService perUser = new RewardsService(new VendorGpsClient(gpsUtil), (attractionId, userId) -> 1);
+		RewardsService byAttraction = new RewardsService(new VendorGpsClient(gpsUtil), (attractionId, userId) -> 1);
+		RewardsService forkJoin = new RewardsService(new VendorGpsClient(gpsUtil), (attractionId, userId) -> 1);
+		byAttraction.setBatchEngine(RewardsBatchEngine.ATTRACTION_CENTRIC);
+		forkJoin.setBatchEngine(RewardsBatchEngine.FORK_JOIN);
+		List<RewardsService> services = List.of(perUser, byAttraction, forkJoin);
+		services.forEach(service -> service.setProximityBuffer(15));
+		List<List<User>> users = services.stream().map(service -> randomUsers(attractions, 11)).toList();
+		List<User> perUserUsers = users.get(0);
+
+		for (int pass = 0; pass < 2; pass++) {
+			for (int s = 0; s < services.size(); s++) {
+				services.get(s).calculateAllUsersRewards(users.get(s));
+			}
+
+			for (List<User> other : users.subList(1, users.size())) {
+				for (int i = 0; i < perUserUsers.size(); i++) {
+					assertEquals(rewardsOf(perUserUsers.get(i)), rewardsOf(other.get(i)));
+					assertEquals(perUserUsers.get(i).getRewardWatermark(), other.get(i).getRewardWatermark());
+				}
+			}
+			users.forEach(batch -> batch.forEach(user -> user.addToVisitedLocations(
+					new VisitedLocation(user.getUserId(), attractions.get(user.getUserRewards().size()), new Date()))));
+		}
+		assertTrue(perUserUsers.stream().mapToInt(user -> user.getUserRewards().size()).sum() > perUserUsers.size());
+	}
+
+	@Test
+	public void forkJoinBatchReportsChunksAndResult() {
+		GpsUtil gpsUtil = new GpsUtil();
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		List<User> users = IntStream.range(0, 1_000)
+				.mapToObj(i -> new User(new UUID(0, i), "user" + i, "000", "user" + i + "@tourGuide.com"))
+				.toList();
+		users.forEach(u -> u.addToVisitedLocations(new VisitedLocation(u.getUserId(), attraction, new Date())));
+		RewardsService rewardsService = new RewardsService(new VendorGpsClient(gpsUtil), (attractionId, userId) -> {
+			if (userId.getLeastSignificantBits() % 100 == 7) {
+				throw new UpstreamException("RewardCentral down");
+			}
+			return 1;
+		});
+		rewardsService.setBatchEngine(RewardsBatchEngine.FORK_JOIN);
+		List<RewardsBatchProgress> progress = new CopyOnWriteArrayList<>();
+
+		RewardsBatchResult result = rewardsService.calculateAllUsersRewards(users, progress::add);
+
+		assertEquals(1_000, result.usersProcessed());
+		assertEquals(990, result.rewardsGranted());
+		assertEquals(10, result.failures());
+		assertTrue(progress.size() > 1);
+		assertEquals(1_000, progress.stream().mapToInt(RewardsBatchProgress::chunkUsers).sum());
+		assertEquals(990, progress.stream().mapToInt(RewardsBatchProgress::chunkRewards).sum());
+		assertEquals(10, progress.stream().mapToInt(RewardsBatchProgress::chunkFailures).sum());
+		assertEquals(1_000, progress.get(progress.size() - 1).usersDone());
+	}
+
+	@Test
+	public void batchReturnsOnceItsTimeoutHasElapsed() {
+		GpsUtil gpsUtil = new GpsUtil();
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		CountDownLatch rewardCentralAnswers = new CountDownLatch(1);
+		RewardsService rewardsService = new RewardsService(new VendorGpsClient(gpsUtil), (attractionId, userId) -> {
+			try {
+				rewardCentralAnswers.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 1;
+		});
+		rewardsService.setBatchTimeout(Duration.ofMillis(100));
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+
+		RewardsBatchResult result = rewardsService.calculateAllUsersRewards(List.of(user));
+		rewardCentralAnswers.countDown();
+
+		assertEquals(0, result.usersProcessed());
+		assertTrue(result.elapsed().compareTo(Duration.ofSeconds(5)) < 0);
+	}
+
+	@Test
+	public void failedRewardPointsLookupIsRetriedByTheNextCalculation() {
+		AtomicBoolean rewardCentralDown = new AtomicBoolean(true);
+		RewardsService rewardsService = new RewardsService(new VendorGpsClient(new GpsUtil()), (attractionId, userId) -> {
+			if (rewardCentralDown.get()) {
+				throw new UpstreamException("RewardCentral down");
+			}
+			return 10;
+		});
+		Attraction attraction = rewardsService.getAttractionIndex().get(0);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+
+		assertThrows(UpstreamException.class, () -> rewardsService.calculateRewards(user));
+		assertTrue(user.getUserRewards().isEmpty());
+
+		rewardCentralDown.set(false);
+		rewardsService.calculateRewards(user);
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(10, user.getUserRewards().get(0).getRewardPoints());
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -67,4 +278,33 @@ public class TestRewardsService {
 		assertEquals(gpsUtil.getAttractions().size(), userRewards.size());
 	}
 
+
+	// NOTE : half of the locations a few miles around an attraction, the others anywhere
+	private static List<User> randomUsers(List<Attraction> attractions, long seed) {
+		Random random = new Random(seed);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			User user = new User(new UUID(seed, i), "user" + i, "000", "user" + i + "@tourGuide.com");
+			for (int l = 0; l < 10; l++) {
+				Location location;
+				if (random.nextBoolean()) {
+					Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+					location = new Location(attraction.latitude + random.nextGaussian() * 0.2,
+							attraction.longitude + random.nextGaussian() * 0.2);
+				} else {
+					location = new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+				}
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, new Date()));
+			}
+			users.add(user);
+		}
+		return users;
+	}
+
+	private static List<String> rewardsOf(User user) {
+		return user.getUserRewards().stream()
+				.map(reward -> reward.attraction.attractionName + "@" + reward.visitedLocation.location.latitude
+						+ "," + reward.visitedLocation.location.longitude)
+				.toList();
+	}
 }
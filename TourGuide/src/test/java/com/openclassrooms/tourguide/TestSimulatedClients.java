@@ -0,0 +1,127 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.client.UpstreamException;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.simulation.LatencyProfile;
+import com.openclassrooms.tourguide.simulation.SimulatedGpsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedRewardsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedTripPricerClient;
+import com.openclassrooms.tourguide.simulation.SimulatedUpstream;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestSimulatedClients {
+
+	@Test
+	public void sameSeedGivesTheSameLocations() {
+		UUID userId = UUID.randomUUID();
+		List<String> first = locations(new SimulatedGpsClient(new SimulatedUpstream("gps", 7, LatencyProfile.none(), 0)), userId);
+		List<String> second = locations(new SimulatedGpsClient(new SimulatedUpstream("gps", 7, LatencyProfile.none(), 0)), userId);
+		List<String> other = locations(new SimulatedGpsClient(new SimulatedUpstream("gps", 8, LatencyProfile.none(), 0)), userId);
+
+		assertEquals(first, second);
+		assertNotEquals(first, other);
+	}
+
+	@Test
+	public void errorRateIsReproducible() {
+		assertEquals(failures(42, 0.2), failures(42, 0.2));
+		int failures = failures(42, 0.2);
+		assertTrue(failures > 150 && failures < 250, failures + " failures out of 1000");
+		assertEquals(0, failures(42, 0));
+	}
+
+	@Test
+	public void latencyProfilesFollowTheirDistribution() {
+		SplittableRandom random = new SplittableRandom(1);
+		long[] samples = IntStream.range(0, 10_001)
+				.mapToLong(i -> LatencyProfile.logNormal(Duration.ofMillis(50), 0.5).sampleNanos(random)).sorted().toArray();
+		assertEquals(Duration.ofMillis(50).toNanos(), samples[5_000], Duration.ofMillis(3).toNanos());
+		assertTrue(samples[9_900] > Duration.ofMillis(120).toNanos());
+
+		LatencyProfile spiky = LatencyProfile.fixed(Duration.ofMillis(10)).withTailSpikes(0.01, Duration.ofSeconds(1));
+		long spikes = IntStream.range(0, 10_000).filter(i -> spiky.sampleNanos(random) > Duration.ofMillis(10).toNanos()).count();
+		assertTrue(spikes > 50 && spikes < 150, spikes + " spikes out of 10000");
+
+		SimulatedGpsClient slowGps = new SimulatedGpsClient(
+				new SimulatedUpstream("gps", 1, LatencyProfile.fixed(Duration.ofMillis(20)), 0));
+		long start = System.nanoTime();
+		slowGps.getUserLocation(UUID.randomUUID());
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+	}
+
+	@Test
+	public void rewardsAndTripDealsAreConsistent() {
+		SimulatedRewardsClient rewards = new SimulatedRewardsClient(new SimulatedUpstream("rewards", 3, LatencyProfile.none(), 0));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		int points = rewards.getAttractionRewardPoints(attractionId, userId);
+		assertEquals(points, rewards.getAttractionRewardPoints(attractionId, userId));
+		assertTrue(points >= 1 && points <= 999);
+
+		SimulatedTripPricerClient tripPricer = new SimulatedTripPricerClient(new SimulatedUpstream("trips", 3, LatencyProfile.none(), 0));
+		List<Provider> providers = tripPricer.getPrice("key", userId, 2, 1, 7, 100);
+		assertEquals(5, providers.stream().map(provider -> provider.name).distinct().count());
+	}
+
+	@Test
+	public void servicesRunOnSimulatedClients() {
+		SimulatedUpstream gpsUpstream = new SimulatedUpstream("gps", 5, LatencyProfile.none(), 0);
+		SimulatedGpsClient gpsClient = new SimulatedGpsClient(gpsUpstream);
+		RewardsService rewardsService = new RewardsService(gpsClient,
+				new SimulatedRewardsClient(new SimulatedUpstream("rewards", 5, LatencyProfile.none(), 0)));
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsClient,
+				new SimulatedTripPricerClient(new SimulatedUpstream("trips", 5, LatencyProfile.none(), 0)), rewardsService,
+				Runnable::run);
+		tourGuideService.tracker.stopTracking();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), gpsClient.getAttractions().get(0), visitedLocation.timeVisited));
+		rewardsService.calculateRewards(user);
+
+		assertEquals(1, gpsUpstream.getCallCount());
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(5, tourGuideService.getTripDeals(user).size());
+	}
+
+	private static List<String> locations(SimulatedGpsClient gpsClient, UUID userId) {
+		List<String> locations = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			VisitedLocation visitedLocation = gpsClient.getUserLocation(userId);
+			locations.add(visitedLocation.location.latitude + "," + visitedLocation.location.longitude);
+		}
+		return locations;
+	}
+
+	private static int failures(long seed, double errorRate) {
+		SimulatedRewardsClient rewards = new SimulatedRewardsClient(new SimulatedUpstream("rewards", seed, LatencyProfile.none(), errorRate));
+		int failures = 0;
+		for (int i = 0; i < 1_000; i++) {
+			try {
+				rewards.getAttractionRewardPoints(UUID.randomUUID(), UUID.randomUUID());
+			} catch (UpstreamException e) {
+				failures++;
+			}
+		}
+		return failures;
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.executor.BackpressurePolicy;
+import com.openclassrooms.tourguide.executor.ExecutionMode;
+import com.openclassrooms.tourguide.executor.ExecutorProperties;
+import com.openclassrooms.tourguide.executor.TourGuideExecutors;
+import com.openclassrooms.tourguide.executor.VirtualThreadExecutor;
+import com.openclassrooms.tourguide.executor.VirtualThreads;
+
+public class TestTourGuideExecutors {
+
+	@Test
+	public void virtualThreadExecutorCapsConcurrency() throws Exception {
+		VirtualThreadExecutor executor = new VirtualThreadExecutor(Executors.defaultThreadFactory(), 5);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				sleep(10);
+				running.decrementAndGet();
+			}, executor));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		executor.shutdown();
+
+		assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+		assertTrue(maxRunning.get() <= 5);
+	}
+
+	@Test
+	public void blockingBackpressureRunsEveryTask() {
+		ExecutorProperties properties = new ExecutorProperties();
+		properties.getTracking().setThreads(2);
+		properties.getTracking().setQueueCapacity(2);
+		properties.getTracking().setBackpressure(BackpressurePolicy.BLOCK);
+		AtomicInteger done = new AtomicInteger();
+
+		try (TourGuideExecutors executors = new TourGuideExecutors(properties)) {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(CompletableFuture.runAsync(() -> {
+					sleep(5);
+					done.incrementAndGet();
+				}, executors.tracking()));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		}
+
+		assertEquals(20, done.get());
+	}
+
+	@Test
+	public void forkJoinPoolIsOwnedAndClosedByTheExecutors() {
+		ExecutorProperties properties = new ExecutorProperties();
+		properties.setForkJoinParallelism(3);
+		ForkJoinPool forkJoin;
+
+		try (TourGuideExecutors executors = new TourGuideExecutors(properties)) {
+			forkJoin = executors.forkJoin();
+			assertNotSame(ForkJoinPool.commonPool(), forkJoin);
+			assertEquals(3, forkJoin.getParallelism());
+			assertTrue(forkJoin.submit(() -> Thread.currentThread().getName()).join().startsWith("tourguide-fork-join-"));
+		}
+
+		assertTrue(forkJoin.isTerminated());
+	}
+
+	@Test
+	public void virtualModeFallsBackBeforeJava21() {
+		ExecutorProperties properties = new ExecutorProperties();
+		properties.setMode(ExecutionMode.VIRTUAL);
+
+		try (TourGuideExecutors executors = new TourGuideExecutors(properties)) {
+			assertEquals(VirtualThreads.isSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM, executors.getMode());
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.openclassrooms.tourguide.dto.AttractionDTO;
 import org.junit.jupiter.api.Test;
@@ -59,6 +61,25 @@ public class TestTourGuideService {
 		assertEquals(user2, retrivedUser2);
 	}
 
+	@Test
+	public void addUserKeepsTheFirstUserOfAName() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+
+		List<User> candidates = IntStream.range(0, 50)
+				.mapToObj(i -> new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"))
+				.collect(Collectors.toList());
+		candidates.parallelStream().forEach(tourGuideService::addUser);
+
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, tourGuideService.getUsers().size());
+		assertTrue(candidates.contains(tourGuideService.getUser("jon")));
+		assertEquals(tourGuideService.getUser("jon"), tourGuideService.getUsers().iterator().next());
+	}
+
 	@Test
 	public void getAllUsers() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -116,6 +137,26 @@ public class TestTourGuideService {
 	}
 
 
+	@Test
+	public void getNearbyAttractionsWithLimit() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user);
+
+		List<AttractionDTO> attractions = tourGuideService.getNearByAttractions(visitedLocation, 2);
+
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(2, attractions.size());
+		assertTrue(attractions.get(0).getDistance() <= attractions.get(1).getDistance());
+	}
+
+
 	// NOTE 250702 : L'annotation @Test n'était pas présente...
 	@Test
 	public void getTripDeals() {
@@ -0,0 +1,154 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.tracker.TrackerProperties;
+import com.openclassrooms.tourguide.tracker.TrackingMode;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestTracker {
+
+	@Test
+	public void cyclesDoNotOverlapAndOverrunsAreReported() throws InterruptedException {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		GpsUtil slowGpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					TimeUnit.MILLISECONDS.sleep(150);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(slowGpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(slowGpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+
+		TrackerProperties properties = new TrackerProperties();
+		properties.setPollingInterval(Duration.ofMillis(50));
+		properties.setInitialDelay(Duration.ZERO);
+		Tracker tracker = new Tracker(tourGuideService, properties);
+		TimeUnit.MILLISECONDS.sleep(700);
+		tracker.stopTracking();
+		TimeUnit.MILLISECONDS.sleep(300);
+
+		assertEquals(1, maxInFlight.get());
+		assertTrue(tracker.getCycleCount() >= 2);
+		assertEquals(tracker.getCycleCount(), tracker.getOverrunCount());
+	}
+
+	@Test
+	public void everyShardIsTracked() throws InterruptedException {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(10);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		TrackerProperties properties = new TrackerProperties();
+		properties.setInitialDelay(Duration.ZERO);
+		properties.setShardSize(3);
+		Tracker tracker = new Tracker(tourGuideService, properties);
+		while (tracker.getCycleCount() == 0) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		tracker.stopTracking();
+
+		for (User user : tourGuideService.getAllUsers()) {
+			assertEquals(4, user.getVisitedLocations().size());
+		}
+		assertEquals(0, tracker.getOverrunCount());
+	}
+
+	@Test
+	public void continuousModeSpreadsUsersAcrossTheInterval() throws InterruptedException {
+		List<Long> requestTimes = new CopyOnWriteArrayList<>();
+		GpsUtil recordingGpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				requestTimes.add(System.nanoTime());
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(recordingGpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(20);
+		TourGuideService tourGuideService = new TourGuideService(recordingGpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		TrackerProperties properties = new TrackerProperties();
+		properties.setMode(TrackingMode.CONTINUOUS);
+		properties.setPollingInterval(Duration.ofSeconds(1));
+		properties.setTick(Duration.ofMillis(100));
+		properties.setInitialDelay(Duration.ZERO);
+		long start = System.nanoTime();
+		Tracker tracker = new Tracker(tourGuideService, properties);
+		TimeUnit.MILLISECONDS.sleep(1200);
+		tracker.stopTracking();
+
+		long firstQuarter = requestTimes.stream().filter(t -> t - start < TimeUnit.MILLISECONDS.toNanos(250)).count();
+		assertTrue(firstQuarter <= 8, firstQuarter + " requests in the first quarter of the interval");
+		assertTrue(tracker.getCycleCount() >= 1);
+		for (User user : tourGuideService.getAllUsers()) {
+			assertTrue(tracker.getRefreshLag(user).compareTo(Duration.ofMillis(1200)) < 0);
+		}
+	}
+
+	@Test
+	public void continuousRoundSkippingARefreshStillRunningIsAnOverrun() throws InterruptedException {
+		GpsUtil slowGpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(400);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(slowGpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(slowGpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		tourGuideService.addUser(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+
+		TrackerProperties properties = new TrackerProperties();
+		properties.setMode(TrackingMode.CONTINUOUS);
+		properties.setPollingInterval(Duration.ofMillis(100));
+		properties.setTick(Duration.ofMillis(20));
+		properties.setInitialDelay(Duration.ZERO);
+		Tracker tracker = new Tracker(tourGuideService, properties);
+		TimeUnit.MILLISECONDS.sleep(350);
+		tracker.stopTracking();
+
+		assertTrue(tracker.getCycleCount() >= 2);
+		assertTrue(tracker.getOverrunCount() >= 1, "no round reported the refresh still running");
+	}
+}
@@ -0,0 +1,145 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.deals.OffPeakWindow;
+import com.openclassrooms.tourguide.deals.TripDealsPrecomputer;
+import com.openclassrooms.tourguide.deals.TripDealsProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.simulation.LatencyProfile;
+import com.openclassrooms.tourguide.simulation.SimulatedGpsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedRewardsClient;
+import com.openclassrooms.tourguide.simulation.SimulatedTripPricerClient;
+import com.openclassrooms.tourguide.simulation.SimulatedUpstream;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+public class TestTripDealsPrecomputer {
+
+	private final SimulatedUpstream tripPricerUpstream = new SimulatedUpstream("trips", 9, LatencyProfile.none(), 0);
+
+	@Test
+	public void offPeakWindowsMaySpanMidnight() {
+		OffPeakWindow night = OffPeakWindow.parse("22:00-02:00");
+
+		assertTrue(night.contains(LocalTime.of(23, 0)));
+		assertTrue(night.contains(LocalTime.of(1, 59)));
+		assertFalse(night.contains(LocalTime.of(2, 0)));
+		assertFalse(night.contains(LocalTime.NOON));
+		assertTrue(OffPeakWindow.parse("01:00-05:00").contains(LocalTime.of(1, 0)));
+		assertThrows(IllegalArgumentException.class, () -> OffPeakWindow.parse("01:00"));
+	}
+
+	@Test
+	public void passPricesActiveUsersWithStaleDealsOnly() {
+		TourGuideService tourGuideService = tourGuideService();
+		User active = addUser(tourGuideService, "active", new Date());
+		User inactive = addUser(tourGuideService, "inactive", Date.from(Instant.now().minus(Duration.ofDays(30))));
+		User alreadyPriced = addUser(tourGuideService, "alreadyPriced", new Date());
+		tourGuideService.priceTripDeals(alreadyPriced);
+		TripDealsPrecomputer precomputer = new TripDealsPrecomputer(tourGuideService, properties(), Runnable::run,
+				Clock.systemUTC());
+
+		assertEquals(1, precomputer.precompute());
+		assertEquals(2, tripPricerUpstream.getCallCount());
+		assertNotNull(active.getPricedTripDeals());
+		assertEquals(5, active.getTripDeals().size());
+		assertEquals(null, inactive.getPricedTripDeals());
+
+		// a second pass finds every deal fresh
+		assertEquals(0, precomputer.precompute());
+		assertEquals(2, tripPricerUpstream.getCallCount());
+
+		// new reward points change the prices
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+		active.addUserReward(new UserReward(active.getLastVisitedLocation(), attraction, 100), 0);
+		assertEquals(1, precomputer.precompute());
+		assertEquals(3, tripPricerUpstream.getCallCount());
+		assertEquals(100, active.getPricedTripDeals().rewardPoints());
+		assertEquals(2, precomputer.getPricedCount());
+	}
+
+	@Test
+	public void passesRunInOffPeakWindowsOnly() {
+		TourGuideService tourGuideService = tourGuideService();
+		addUser(tourGuideService, "jon", new Date());
+		TripDealsProperties properties = properties();
+		LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+		TripDealsPrecomputer atNoon = new TripDealsPrecomputer(tourGuideService, properties, Runnable::run,
+				Clock.fixed(today.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+		assertEquals(0, atNoon.precomputeIfOffPeak());
+		assertEquals(0, tripPricerUpstream.getCallCount());
+
+		TripDealsPrecomputer atNight = new TripDealsPrecomputer(tourGuideService, properties, Runnable::run,
+				Clock.fixed(today.atTime(2, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+		assertEquals(1, atNight.precomputeIfOffPeak());
+		assertEquals(1, tripPricerUpstream.getCallCount());
+	}
+
+	@Test
+	public void tripDealsAreServedWithinTheStalenessBound() {
+		TourGuideService tourGuideService = tourGuideService();
+		User user = addUser(tourGuideService, "jon", new Date());
+		tourGuideService.setTripDealsMaxStaleness(Duration.ofHours(1));
+
+		List<Provider> priced = tourGuideService.getTripDeals(user);
+		assertEquals(priced, tourGuideService.getTripDeals(user));
+		assertEquals(1, tripPricerUpstream.getCallCount());
+
+		user.getUserPreferences().setNumberOfAdults(2);
+		tourGuideService.getTripDeals(user);
+		assertEquals(2, tripPricerUpstream.getCallCount());
+
+		tourGuideService.setTripDealsMaxStaleness(Duration.ZERO);
+		tourGuideService.getTripDeals(user);
+		assertEquals(3, tripPricerUpstream.getCallCount());
+	}
+
+	private TourGuideService tourGuideService() {
+		SimulatedGpsClient gpsClient = new SimulatedGpsClient(new SimulatedUpstream("gps", 9, LatencyProfile.none(), 0));
+		RewardsService rewardsService = new RewardsService(gpsClient,
+				new SimulatedRewardsClient(new SimulatedUpstream("rewards", 9, LatencyProfile.none(), 0)));
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsClient, new SimulatedTripPricerClient(tripPricerUpstream),
+				rewardsService, Runnable::run);
+		tourGuideService.tracker.stopTracking();
+		return tourGuideService;
+	}
+
+	private static User addUser(TourGuideService tourGuideService, String userName, Date lastVisit) {
+		User user = new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.8, -117.9), lastVisit));
+		tourGuideService.addUser(user);
+		return user;
+	}
+
+	private static TripDealsProperties properties() {
+		TripDealsProperties properties = new TripDealsProperties();
+		properties.setZone(ZoneOffset.UTC);
+		properties.setRateLimit(1_000);
+		return properties;
+	}
+}